@@ -0,0 +1,41 @@
+package com.train.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 查询接口的操作日志策略注解
+ * 仅对查询操作生效，新增/编辑/删除及执行失败的请求始终完整记录
+ * 未标注的查询接口使用 oper-log.read.default-mode 配置的策略
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface OperLogPolicy {
+
+    /**
+     * 日志记录方式
+     */
+    Mode value() default Mode.FULL;
+
+    /**
+     * SAMPLED方式的采样百分比（0-100），小于0时使用 oper-log.read.sample-percent 配置
+     */
+    int samplePercent() default -1;
+
+    enum Mode {
+        /**
+         * 每次请求记录一条日志
+         */
+        FULL,
+        /**
+         * 按百分比随机记录
+         */
+        SAMPLED,
+        /**
+         * 按（机构，账号，接口，分钟）内存计数，定时写入汇总日志
+         */
+        AGGREGATED
+    }
+}
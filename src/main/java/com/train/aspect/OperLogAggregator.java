@@ -0,0 +1,238 @@
+package com.train.aspect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.train.entity.SysOperLog;
+import com.train.enums.OperateType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 查询操作日志聚合器
+ * 1. 聚合方式的查询请求只在内存中按（机构，账号，接口，分钟）计数，不逐条写日志
+ * 2. 后台线程每 aggregate-flush-interval-ms 毫秒把已结束分钟的计数写成汇总日志，交给 OperLogWriter 批量落库
+ * 3. 停机时写出全部计数（含当前分钟）
+ */
+@Slf4j
+@Component
+public class OperLogAggregator {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    @Resource
+    private OperLogWriter operLogWriter;
+    @Resource
+    private ObjectMapper objectMapper;
+
+    /**
+     * 汇总写出间隔（毫秒）
+     */
+    @Value("${oper-log.read.aggregate-flush-interval-ms:10000}")
+    private long flushIntervalMs = 10000;
+
+    private final ConcurrentHashMap<BucketKey, Bucket> buckets = new ConcurrentHashMap<>(256);
+
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final AtomicLong summaryCount = new AtomicLong();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "oper-log-aggregator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停机时写出全部计数；须在 OperLogWriter 停机前执行（本组件依赖写入器，销毁顺序与之相反）
+     */
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            flush(true);
+        } catch (Exception e) {
+            log.error("查询日志汇总写出失败", e);
+        }
+    }
+
+    /**
+     * 记录一次查询请求
+     * @param endpoint 接口标识（请求方式+映射路径，路径变量不展开）
+     */
+    public void record(String orgId, String account, String operName, String operMenu,
+                       String endpoint, String summary, String operIp) {
+        long minute = System.currentTimeMillis() / MINUTE_MILLIS;
+        BucketKey key = new BucketKey(orgId, account, endpoint, minute);
+        // 在compute中计数：与写出时的remove互斥，计数不会落在已写出的桶上
+        buckets.compute(key, (k, bucket) -> {
+            if (bucket == null) {
+                bucket = new Bucket(operName, operMenu, summary);
+            }
+            bucket.count++;
+            bucket.lastIp = operIp;
+            return bucket;
+        });
+        recordedCount.incrementAndGet();
+    }
+
+    /**
+     * 写出汇总日志
+     * @param includeCurrentMinute true=包括尚未结束的当前分钟（停机时使用）
+     * @return 写出的汇总条数
+     */
+    public int flush(boolean includeCurrentMinute) {
+        long currentMinute = System.currentTimeMillis() / MINUTE_MILLIS;
+        List<BucketKey> keys = new ArrayList<>();
+        for (BucketKey key : buckets.keySet()) {
+            if (includeCurrentMinute || key.minute < currentMinute) {
+                keys.add(key);
+            }
+        }
+        int written = 0;
+        for (BucketKey key : keys) {
+            Bucket bucket = buckets.remove(key);
+            if (bucket != null) {
+                operLogWriter.write(toSummaryLog(key, bucket));
+                written++;
+            }
+        }
+        summaryCount.addAndGet(written);
+        return written;
+    }
+
+    private void flushSafely() {
+        try {
+            flush(false);
+        } catch (Exception e) {
+            log.error("查询日志汇总写出失败", e);
+        }
+    }
+
+    private SysOperLog toSummaryLog(BucketKey key, Bucket bucket) {
+        LocalDateTime minuteStart = LocalDateTime.ofInstant(Instant.ofEpochMilli(key.minute * MINUTE_MILLIS), ZoneId.systemDefault());
+        Map<String, Object> content = new LinkedHashMap<>(4);
+        content.put("接口", key.endpoint);
+        content.put("次数", bucket.count);
+        content.put("统计分钟", minuteStart.toString());
+        String contentJson;
+        try {
+            contentJson = objectMapper.writeValueAsString(content);
+        } catch (Exception e) {
+            contentJson = "{}";
+        }
+
+        SysOperLog operLog = new SysOperLog();
+        operLog.setLogId(SysOperLogAspect.generateUniqueLogId());
+        operLog.setOperOrgId(key.orgId);
+        operLog.setOperAccount(key.account);
+        operLog.setOperName(bucket.operName);
+        operLog.setOperMenu(bucket.operMenu);
+        operLog.setOperType(OperateType.QUERY.getDesc());
+        operLog.setTargetId("");
+        operLog.setTargetName("");
+        operLog.setOperContent(bucket.summary.isEmpty() ? contentJson : bucket.summary + "：" + contentJson);
+        operLog.setOperIp(bucket.lastIp);
+        operLog.setOperTime(minuteStart);
+        operLog.setOperResult("成功");
+        return operLog;
+    }
+
+    /**
+     * 尚未写出的聚合桶数
+     */
+    public int getPendingBuckets() {
+        return buckets.size();
+    }
+
+    /**
+     * 已聚合的查询请求数
+     */
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    /**
+     * 已写出的汇总日志条数
+     */
+    public long getSummaryCount() {
+        return summaryCount.get();
+    }
+
+    private static final class BucketKey {
+        private final String orgId;
+        private final String account;
+        private final String endpoint;
+        private final long minute;
+
+        private BucketKey(String orgId, String account, String endpoint, long minute) {
+            this.orgId = orgId;
+            this.account = account;
+            this.endpoint = endpoint;
+            this.minute = minute;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BucketKey)) {
+                return false;
+            }
+            BucketKey that = (BucketKey) o;
+            return minute == that.minute && Objects.equals(orgId, that.orgId)
+                    && Objects.equals(account, that.account) && Objects.equals(endpoint, that.endpoint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(orgId, account, endpoint, minute);
+        }
+    }
+
+    /**
+     * 聚合桶：只在 ConcurrentHashMap.compute 中修改
+     */
+    private static final class Bucket {
+        private final String operName;
+        private final String operMenu;
+        private final String summary;
+        private long count;
+        private String lastIp;
+
+        private Bucket(String operName, String operMenu, String summary) {
+            this.operName = operName;
+            this.operMenu = operMenu;
+            this.summary = summary;
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package com.train.aspect;
+
+import com.train.entity.SysOperLog;
+import com.train.mapper.SysOperLogMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作日志异步批量写入器
+ * 1. 请求线程只把日志放入有界内存队列，不等待数据库
+ * 2. 后台线程每 flush-interval-ms 毫秒，或队列积压达到 batch-size 条时，按批多行插入
+ * 3. 队列满时按溢出策略处理：BLOCK=等待（超时后丢弃），DROP_OLDEST=丢弃最旧的日志，SAMPLE=积压超过高水位后按比例抽样
+ * 4. 停机时把队列中剩余日志全部写完；与停机并发入队的日志由入队线程自行补写
+ * 队列积压、丢弃、写入、失败条数注册为 Micrometer 指标
+ */
+@Slf4j
+@Component
+public class OperLogWriter implements MeterBinder {
+
+    /**
+     * 队列溢出策略
+     */
+    public enum OverflowPolicy {
+        BLOCK, DROP_OLDEST, SAMPLE
+    }
+
+    @Resource
+    private SysOperLogMapper sysOperLogMapper;
+
+    /**
+     * 队列容量
+     */
+    @Value("${oper-log.writer.capacity:10000}")
+    private int capacity = 10000;
+
+    /**
+     * 单批插入条数
+     */
+    @Value("${oper-log.writer.batch-size:200}")
+    private int batchSize = 200;
+
+    /**
+     * 定时写入间隔（毫秒），即日志落库的最大延迟
+     */
+    @Value("${oper-log.writer.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
+
+    @Value("${oper-log.writer.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    /**
+     * BLOCK策略的最长等待时间（毫秒），超时后丢弃，避免数据库故障时拖住请求线程
+     */
+    @Value("${oper-log.writer.block-timeout-ms:100}")
+    private long blockTimeoutMs = 100;
+
+    /**
+     * SAMPLE策略：积压超过容量的该比例后开始抽样
+     */
+    @Value("${oper-log.writer.sample-high-watermark:0.8}")
+    private double sampleHighWatermark = 0.8;
+
+    /**
+     * SAMPLE策略：高水位以上保留的比例
+     */
+    @Value("${oper-log.writer.sample-rate:0.1}")
+    private double sampleRate = 0.1;
+
+    private BlockingQueue<SysOperLog> queue;
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean stopped;
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "oper-log-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 停机前写完队列中剩余的日志
+        flushSafely();
+    }
+
+    /**
+     * 提交一条日志（非阻塞，BLOCK策略下最多等待 block-timeout-ms）
+     * @return true=已入队，false=按溢出策略丢弃
+     */
+    public boolean write(SysOperLog operLog) {
+        if (stopped) {
+            // 停机后到达的日志直接写入，不再入队
+            insertBatch(singleton(operLog));
+            return true;
+        }
+        boolean accepted;
+        switch (overflowPolicy) {
+            case BLOCK:
+                accepted = offerBlocking(operLog);
+                break;
+            case SAMPLE:
+                accepted = offerSampled(operLog);
+                break;
+            case DROP_OLDEST:
+            default:
+                accepted = offerDropOldest(operLog);
+                break;
+        }
+        if (!accepted) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        acceptedCount.incrementAndGet();
+        if (stopped) {
+            // 入队前尚未停机、入队后已停机：停机流程的最后一次写出可能已经结束，由本线程补写
+            flushSafely();
+        } else if (queue.size() >= batchSize) {
+            requestFlush();
+        }
+        return true;
+    }
+
+    private boolean offerBlocking(SysOperLog operLog) {
+        try {
+            return queue.offer(operLog, blockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean offerDropOldest(SysOperLog operLog) {
+        while (!queue.offer(operLog)) {
+            if (queue.poll() != null) {
+                droppedCount.incrementAndGet();
+            }
+        }
+        return true;
+    }
+
+    private boolean offerSampled(SysOperLog operLog) {
+        if (queue.size() >= capacity * sampleHighWatermark
+                && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        return queue.offer(operLog);
+    }
+
+    /**
+     * 积压达到一批时提前触发写入（同一时刻最多排队一次）
+     */
+    private void requestFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushSafely);
+            } catch (Exception e) {
+                // 停机中的执行器拒绝任务，由停机流程写完剩余日志
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 写出队列中的全部日志（每批最多 batch-size 条）
+     */
+    public void flush() {
+        flushScheduled.set(false);
+        // 每批使用新列表：插入参数可能被持有（如拦截器、调用方记录），不能在写入后复用清空
+        List<SysOperLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            insertBatch(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("操作日志批量写入失败", e);
+        }
+    }
+
+    /**
+     * 多行插入；整批失败时逐条重试，只丢弃本身有问题的日志
+     */
+    private void insertBatch(List<SysOperLog> batch) {
+        try {
+            sysOperLogMapper.insertBatch(batch);
+            writtenCount.addAndGet(batch.size());
+            batchCount.incrementAndGet();
+            return;
+        } catch (Exception e) {
+            log.warn("操作日志批量写入失败，改为逐条写入，条数：{}", batch.size(), e);
+        }
+        for (SysOperLog operLog : batch) {
+            try {
+                sysOperLogMapper.insert(operLog);
+                writtenCount.incrementAndGet();
+            } catch (Exception e) {
+                failedCount.incrementAndGet();
+                log.error("操作日志写入失败，日志ID：{}", operLog.getLogId(), e);
+            }
+        }
+    }
+
+    private static List<SysOperLog> singleton(SysOperLog operLog) {
+        List<SysOperLog> list = new ArrayList<>(1);
+        list.add(operLog);
+        return list;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("oper.log.writer.queue.depth", this, OperLogWriter::getQueueDepth)
+                .description("操作日志队列积压条数").register(registry);
+        FunctionCounter.builder("oper.log.writer.records", acceptedCount, AtomicLong::get)
+                .tag("result", "accepted").description("操作日志入队条数").register(registry);
+        FunctionCounter.builder("oper.log.writer.records", droppedCount, AtomicLong::get)
+                .tag("result", "dropped").description("操作日志因队列溢出丢弃条数").register(registry);
+        FunctionCounter.builder("oper.log.writer.records", writtenCount, AtomicLong::get)
+                .tag("result", "written").description("操作日志写入条数").register(registry);
+        FunctionCounter.builder("oper.log.writer.records", failedCount, AtomicLong::get)
+                .tag("result", "failed").description("操作日志逐条重试仍失败条数").register(registry);
+        FunctionCounter.builder("oper.log.writer.batches", batchCount, AtomicLong::get)
+                .description("操作日志多行插入批次数").register(registry);
+    }
+
+    /**
+     * 当前队列积压条数
+     */
+    public int getQueueDepth() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    /**
+     * 因队列溢出丢弃的条数（含DROP_OLDEST挤出的旧日志）
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * 逐条重试仍失败的条数
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+}
@@ -1,16 +1,16 @@
 package com.train.aspect;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.train.annotation.IgnoreLog;
+import com.train.annotation.OperLogPolicy;
 import com.train.entity.*;
 import com.train.enums.OperateMenu;
 import com.train.enums.OperateType;
 import com.train.mapper.*;
 import com.train.security.JwtUserDetails;
+import com.train.util.BeforeImageRegistry;
+import com.train.util.SensitiveMaskingGenerator;
 import io.swagger.v3.oas.annotations.Operation;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.Signature;
@@ -21,21 +21,34 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.regex.Pattern;
 
@@ -70,15 +83,17 @@ public class SysOperLogAspect {
     private static final String DEFAULT_SIMPLE_CONTENT = "{}";
     // 操作失败内容前缀
     private static final String OPER_FAILED_PREFIX = "操作失败：";
-    // 反射相关常量
-    private static final String SELECT_BY_ID_METHOD = "selectById";
     private static final String EMPTY_STR = "";
+    // 非方法签名切点使用的空计划
+    private static final MethodPlan EMPTY_METHOD_PLAN = new MethodPlan(EMPTY_STR, null, null);
     // @Operation注解summary拼接分隔符
     private static final String SUMMARY_SEPARATOR = "：";
 
     // ==================== 依赖注入（按需注入，避免冗余） ====================
     @Resource
-    private SysOperLogMapper sysOperLogMapper;
+    private OperLogWriter operLogWriter;
+    @Resource
+    private OperLogAggregator operLogAggregator;
     @Resource
     private SysOrgMapper sysOrgMapper;
     @Resource
@@ -96,84 +111,166 @@ public class SysOperLogAspect {
     @Resource
     private ObjectMapper objectMapper;
 
-    // ==================== 反射配置（核心：实体与字段、Mapper的映射，消除硬编码） ====================
     /**
-     * 实体配置映射：key=实体Class，value=实体配置（主键字段名、业务字段列表、对应Mapper）
-     * 新增实体时，仅需添加配置，无需修改业务逻辑
+     * 未标注@OperLogPolicy的查询接口使用的日志方式
      */
-    private final Map<Class<?>, EntityConfig> entityConfigMap = new HashMap<>(16); // 初始化容量，提升性能
+    @Value("${oper-log.read.default-mode:AGGREGATED}")
+    private OperLogPolicy.Mode defaultReadMode = OperLogPolicy.Mode.AGGREGATED;
 
     /**
-     * 实体配置内部类（存储主键字段、业务字段、对应Mapper）
+     * SAMPLED方式默认采样百分比
      */
-    private static class EntityConfig {
-        private final String idField; // 主键字段名（如：orgId、userId）
-        private final List<String> bizFields; // 业务字段列表（如：orgName、userName）
-        private final Object mapper; // 对应Mapper实例（如：sysOrgMapper、sysUserMapper）
+    @Value("${oper-log.read.sample-percent:10}")
+    private int defaultSamplePercent = 10;
 
-        public EntityConfig(String idField, List<String> bizFields, Object mapper) {
-            this.idField = idField;
-            this.bizFields = Collections.unmodifiableList(bizFields); // 不可变列表，防止外部修改
-            this.mapper = mapper;
-        }
+    // ==================== 日志计划（核心：启动时一次性完成反射，请求时只做直接调用） ====================
+    /**
+     * 实体日志计划：key=实体Class，value=实体计划（主键/业务字段访问器、名称字段、旧数据查询Mapper）
+     * 字段访问器在类初始化时构建，新增实体时仅需添加一行注册，无需修改业务逻辑
+     */
+    private final Map<Class<?>, EntityPlan> entityPlanMap = new HashMap<>(16);
 
-        // Getter方法
-        public String getIdField() { return idField; }
-        public List<String> getBizFields() { return bizFields; }
-        public Object getMapper() { return mapper; }
+    /**
+     * 方法日志计划：key=控制器方法，value=方法计划（@Operation摘要、操作类型），首次调用时构建
+     */
+    private final Map<Method, MethodPlan> methodPlanMap = new ConcurrentHashMap<>(64);
+
+    {
+        registerEntity(SysOrg.class, "orgId", "orgId", "orgName");
+        registerEntity(SysUser.class, "userId", "userId", "userName", "account", "status");
+        registerEntity(SysRole.class, "roleId", "roleId", "roleName", "roleDesc");
+        registerEntity(TrainQuality.class, "qualityId", "qualityId", "userId", "score");
+        registerEntity(TrainVideo.class, "videoId", "videoId", "videoName", "coverUrl", "playUrl");
+        registerEntity(TrainAnswer.class, "answerId", "answerId", "userId", "paperId", "questionId", "userAnswer", "score");
+        registerEntity(TrainQuestion.class, "questionId", "questionId", "questionName", "questionType", "questionScore");
     }
 
     /**
-     * 初始化实体配置（项目启动时执行，仅初始化一次）
-     * 新增实体时，直接在此添加配置即可，无需修改其他方法
+     * 绑定各实体查询旧数据使用的Mapper（Mapper注入后执行一次）
      */
     @PostConstruct
     private void initEntityConfig() {
-        // 1. 配置 SysOrg 实体
-        entityConfigMap.put(SysOrg.class, new EntityConfig(
-                "orgId",
-                new ArrayList<>(Arrays.asList("orgId", "orgName")),
-                sysOrgMapper
-        ));
+        entityPlanMap.get(SysOrg.class).mapper = sysOrgMapper;
+        entityPlanMap.get(SysUser.class).mapper = sysUserMapper;
+        entityPlanMap.get(SysRole.class).mapper = sysRoleMapper;
+        entityPlanMap.get(TrainQuality.class).mapper = trainQualityMapper;
+        entityPlanMap.get(TrainVideo.class).mapper = trainVideoMapper;
+        entityPlanMap.get(TrainAnswer.class).mapper = trainAnswerMapper;
+        entityPlanMap.get(TrainQuestion.class).mapper = trainQuestionMapper;
+    }
 
-        // 2. 配置 SysUser 实体
-        entityConfigMap.put(SysUser.class, new EntityConfig(
-                "userId",
-                new ArrayList<>(Arrays.asList("userId", "userName", "account", "status")),
-                sysUserMapper
-        ));
+    private void registerEntity(Class<?> entityClass, String idField, String... bizFields) {
+        entityPlanMap.put(entityClass, new EntityPlan(entityClass, idField, Arrays.asList(bizFields)));
+    }
 
-        // 3. 配置 SysRole 实体
-        entityConfigMap.put(SysRole.class, new EntityConfig(
-                "roleId",
-                new ArrayList<>(Arrays.asList("roleId", "roleName", "roleDesc")),
-                sysRoleMapper
-        ));
+    /**
+     * 实体日志计划
+     */
+    private static final class EntityPlan {
+        private final FieldAccessor idAccessor; // 主键访问器（字段不存在时为null）
+        private final List<FieldAccessor> bizAccessors; // 业务字段访问器
+        private final FieldAccessor nameAccessor; // 第一个以Name结尾的业务字段（不存在时为null）
+        private volatile BaseMapper<?> mapper; // 查询旧数据的Mapper
+
+        private EntityPlan(Class<?> entityClass, String idField, List<String> bizFields) {
+            this.idAccessor = FieldAccessor.of(entityClass, idField);
+            List<FieldAccessor> accessors = new ArrayList<>(bizFields.size());
+            FieldAccessor name = null;
+            for (String fieldName : bizFields) {
+                FieldAccessor accessor = FieldAccessor.of(entityClass, fieldName);
+                if (accessor == null) {
+                    continue;
+                }
+                accessors.add(accessor);
+                if (name == null && fieldName.endsWith("Name")) {
+                    name = accessor;
+                }
+            }
+            this.bizAccessors = Collections.unmodifiableList(accessors);
+            this.nameAccessor = name;
+        }
 
-        // 4. 配置 TrainQuality 实体
-        entityConfigMap.put(TrainQuality.class, new EntityConfig(
-                "qualityId",
-                new ArrayList<>(Arrays.asList("qualityId", "userId", "score")),
-                trainQualityMapper
-        ));
-        // 5. 配置 TrainVideo 实体
-        entityConfigMap.put(TrainVideo.class, new EntityConfig(
-                "videoId",
-                new ArrayList<>(Arrays.asList("videoId", "videoName", "coverUrl", "playUrl")),
-                trainVideoMapper
-        ));
-        // 6. 配置 TrainAnswer 实体
-        entityConfigMap.put(TrainAnswer.class, new EntityConfig(
-                "answerId",
-                new ArrayList<>(Arrays.asList("answerId", "userId", "paperId", "questionId", "userAnswer", "score")),
-                trainAnswerMapper
-        ));
-        // 7. 配置 TrainQuestion 实体
-        entityConfigMap.put(TrainQuestion.class, new EntityConfig(
-                "questionId",
-                new ArrayList<>(Arrays.asList("questionId", "questionName", "questionType", "questionScore")),
-                trainQuestionMapper
-        ));
+        /**
+         * 业务字段值写入目标Map
+         */
+        private void extractBizFields(Object entity, Map<String, Object> targetMap) {
+            for (FieldAccessor accessor : bizAccessors) {
+                targetMap.put(accessor.name, accessor.get(entity));
+            }
+        }
+
+        private Object getId(Object entity) {
+            return idAccessor == null ? null : idAccessor.get(entity);
+        }
+
+        /**
+         * 按主键查询旧数据（直接调用Mapper，无需反射查找selectById）
+         */
+        private Object selectById(Object idValue) {
+            BaseMapper<?> currentMapper = mapper;
+            if (currentMapper == null || !(idValue instanceof Serializable)) {
+                return null;
+            }
+            return currentMapper.selectById((Serializable) idValue);
+        }
+    }
+
+    /**
+     * 字段访问器（MethodHandle，构建时完成字段查找与访问权限设置）
+     */
+    private static final class FieldAccessor {
+        private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        private final String name;
+        private final MethodHandle getter;
+
+        private FieldAccessor(String name, MethodHandle getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+
+        /**
+         * @return 字段不存在或为静态字段时返回null
+         */
+        private static FieldAccessor of(Class<?> entityClass, String fieldName) {
+            Field field = getDeclaredFieldRecursive(entityClass, fieldName);
+            if (field == null) {
+                log.warn("实体{}未找到字段{}，日志中将不包含该字段", entityClass.getSimpleName(), fieldName);
+                return null;
+            }
+            if (Modifier.isStatic(field.getModifiers())) {
+                return null;
+            }
+            try {
+                field.setAccessible(true);
+                return new FieldAccessor(fieldName, MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("无法访问实体字段：" + entityClass.getSimpleName() + "." + fieldName, e);
+            }
+        }
+
+        private Object get(Object entity) {
+            try {
+                return (Object) getter.invokeExact(entity);
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取实体字段失败：" + name, e);
+            }
+        }
+    }
+
+    /**
+     * 方法日志计划
+     */
+    private static final class MethodPlan {
+        private final String summary; // @Operation注解summary（无注解时为空字符串）
+        private final String operType; // 由映射注解推导的操作类型（无法推导时为null，按请求方法判断）
+        private final OperLogPolicy policy; // 查询日志策略（无注解时为null，使用默认配置）
+
+        private MethodPlan(String summary, String operType, OperLogPolicy policy) {
+            this.summary = summary;
+            this.operType = operType;
+            this.policy = policy;
+        }
     }
 
     /**
@@ -243,23 +340,38 @@ public class SysOperLogAspect {
             JwtUserDetails userDetails = (JwtUserDetails) authentication.getPrincipal();
             String operName = extractOperName(userDetails);
             String operIp = getClientIpAddress(request);
-            String requestMethod = Optional.ofNullable(request.getMethod()).orElse(EMPTY_STR);
             String operMenu = getModuleByUri(requestUri);
-            String operType = getOperTypeByMethod(requestMethod);
+            // 方法计划：@Operation摘要与操作类型在首次调用时解析，之后直接复用
+            MethodPlan methodPlan = getMethodPlan(joinPoint);
+            String operType = methodPlan.operType != null ? methodPlan.operType
+                    : getOperTypeByMethod(Optional.ofNullable(request.getMethod()).orElse(EMPTY_STR));
+
+            // 成功的查询操作按接口日志策略处理：采样未命中直接跳过，聚合方式只计数
+            if (ex == null && OperateType.QUERY.getDesc().equals(operType)) {
+                OperLogPolicy.Mode mode = methodPlan.policy != null ? methodPlan.policy.value() : defaultReadMode;
+                if (mode == OperLogPolicy.Mode.SAMPLED && !isSampled(methodPlan.policy)) {
+                    return;
+                }
+                if (mode == OperLogPolicy.Mode.AGGREGATED) {
+                    operLogAggregator.record(Optional.ofNullable(userDetails.getOrgId()).orElse(EMPTY_STR),
+                            Optional.ofNullable(userDetails.getAccount()).orElse(EMPTY_STR), operName, operMenu,
+                            getEndpoint(request, requestUri), methodPlan.summary, operIp);
+                    return;
+                }
+            }
             Object[] args = joinPoint.getArgs();
 
-            // ===== 关键优化：获取@Operation注解的summary值 =====
-            String operationSummary = getOperationSummary(joinPoint);
+            String operationSummary = methodPlan.summary;
             // 构建operContent（核心修改：仅编辑操作保留嵌套结构）
             String operContent = buildOperContent(operationSummary, args, result, operType, operResult, ex);
 
             String targetId = getOperObjId(args, requestUri);
             String targetName = getOperObjName(args);
 
-            // 5. 构建并保存日志实体
+            // 5. 构建日志实体，交给后台批量写入（请求线程不等待数据库）
             SysOperLog operLog = buildSysOperLog(userDetails, operName, operIp, operMenu, operType,
                     targetId, targetName, operContent, operResult);
-            sysOperLogMapper.insert(operLog);
+            operLogWriter.write(operLog);
 
         } catch (Exception e) {
             // 日志记录失败不影响主业务流程，仅打印错误日志
@@ -268,38 +380,55 @@ public class SysOperLogAspect {
     }
 
     /**
-     * 提取方法上@Operation注解的summary值
-     * @param joinPoint 切点信息
-     * @return summary值（注解不存在时返回空字符串）
+     * 获取方法日志计划（每个控制器方法只解析一次）
      */
-    private String getOperationSummary(JoinPoint joinPoint) {
-        try {
-            // 1. 获取方法签名
-            Signature signature = joinPoint.getSignature();
-            if (!(signature instanceof MethodSignature)) {
-                log.warn("切点签名非方法签名，无法获取@Operation注解");
-                return EMPTY_STR;
-            }
-            MethodSignature methodSignature = (MethodSignature) signature;
-
-            // 2. 获取目标方法
-            Class<?> targetClass = joinPoint.getTarget().getClass();
-            Method targetMethod = targetClass.getMethod(
-                    methodSignature.getName(),
-                    methodSignature.getParameterTypes()
-            );
-
-            // 3. 获取@Operation注解并提取summary
-            if (targetMethod.isAnnotationPresent(Operation.class)) {
-                Operation operation = targetMethod.getAnnotation(Operation.class);
-                return Optional.ofNullable(operation.summary()).orElse(EMPTY_STR);
-            }
-        } catch (NoSuchMethodException e) {
-            log.error("获取目标方法失败，无法提取@Operation注解", e);
-        } catch (Exception e) {
-            log.error("提取@Operation注解summary失败", e);
+    private MethodPlan getMethodPlan(JoinPoint joinPoint) {
+        Signature signature = joinPoint.getSignature();
+        if (!(signature instanceof MethodSignature)) {
+            log.warn("切点签名非方法签名，无法获取@Operation注解");
+            return EMPTY_METHOD_PLAN;
         }
-        return EMPTY_STR;
+        return methodPlanMap.computeIfAbsent(((MethodSignature) signature).getMethod(), SysOperLogAspect::buildMethodPlan);
+    }
+
+    /**
+     * 构建方法日志计划：提取@Operation注解的summary，并由映射注解推导操作类型
+     */
+    private static MethodPlan buildMethodPlan(Method method) {
+        String summary = EMPTY_STR;
+        Operation operation = AnnotatedElementUtils.findMergedAnnotation(method, Operation.class);
+        if (operation != null) {
+            summary = Optional.ofNullable(operation.summary()).orElse(EMPTY_STR);
+        }
+        String operType = null;
+        if (method.isAnnotationPresent(PostMapping.class)) {
+            operType = OperateType.ADD.getDesc();
+        } else if (method.isAnnotationPresent(PutMapping.class)) {
+            operType = OperateType.EDIT.getDesc();
+        } else if (method.isAnnotationPresent(DeleteMapping.class)) {
+            operType = OperateType.DELETE.getDesc();
+        } else if (method.isAnnotationPresent(GetMapping.class)) {
+            operType = OperateType.QUERY.getDesc();
+        }
+        OperLogPolicy policy = AnnotatedElementUtils.findMergedAnnotation(method, OperLogPolicy.class);
+        return new MethodPlan(summary, operType, policy);
+    }
+
+    /**
+     * 采样判断：按接口注解的百分比，未配置时按默认百分比
+     */
+    private boolean isSampled(OperLogPolicy policy) {
+        int percent = policy != null && policy.samplePercent() >= 0 ? policy.samplePercent() : defaultSamplePercent;
+        return ThreadLocalRandom.current().nextInt(100) < percent;
+    }
+
+    /**
+     * 接口标识：请求方式 + 映射路径（路径变量不展开，同一接口的请求聚合到一起）
+     */
+    private String getEndpoint(HttpServletRequest request, String requestUri) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String path = pattern != null ? pattern.toString() : requestUri;
+        return Optional.ofNullable(request.getMethod()).orElse(EMPTY_STR) + " " + path;
     }
 
     /**
@@ -330,10 +459,10 @@ public class SysOperLogAspect {
             Map<String, Object> contentMap = new HashMap<>(2);
             contentMap.put("原数据", oldData);
             contentMap.put("新数据", newData);
-            // 序列化嵌套结构
+            // 序列化嵌套结构（序列化时同步脱敏）
             try {
-                coreJson = objectMapper.writeValueAsString(contentMap);
-            } catch (JsonProcessingException e) {
+                coreJson = writeMasked(contentMap);
+            } catch (IOException e) {
                 log.error("序列化编辑操作数据失败", e);
                 coreJson = DEFAULT_EDIT_CONTENT;
             }
@@ -341,17 +470,20 @@ public class SysOperLogAspect {
             // 新增操作：仅序列化新数据（无嵌套）
             extractDataByReflection(args, newData, false);
             try {
-                coreJson = objectMapper.writeValueAsString(newData);
-            } catch (JsonProcessingException e) {
+                coreJson = writeMasked(newData);
+            } catch (IOException e) {
                 log.error("序列化新增操作数据失败", e);
                 coreJson = DEFAULT_SIMPLE_CONTENT;
             }
         } else if (OperateType.DELETE.getDesc().equals(operType)) {
-            // 删除操作：仅序列化旧数据（无嵌套）
+            // 删除操作：仅序列化旧数据（无嵌套）；按主键删除的接口参数中没有实体，取业务层登记的原记录
             extractDataByReflection(args, oldData, true);
+            if (oldData.isEmpty()) {
+                extractRecordedImages(oldData);
+            }
             try {
-                coreJson = objectMapper.writeValueAsString(oldData);
-            } catch (JsonProcessingException e) {
+                coreJson = writeMasked(oldData);
+            } catch (IOException e) {
                 log.error("序列化删除操作数据失败", e);
                 coreJson = DEFAULT_SIMPLE_CONTENT;
             }
@@ -360,10 +492,7 @@ public class SysOperLogAspect {
             coreJson = DEFAULT_SIMPLE_CONTENT;
         }
 
-        // 4. 敏感信息过滤
-        coreJson = filterSensitiveInfo(coreJson);
-
-        // 5. 融合summary与核心数据内容
+        // 4. 融合summary与核心数据内容
         if (StringUtils.hasText(operationSummary)) {
             return operationSummary + SUMMARY_SEPARATOR + coreJson;
         } else {
@@ -458,7 +587,7 @@ public class SysOperLogAspect {
     }
 
     /**
-     * 通用反射提取数据（支持新增/删除操作，统一逻辑）
+     * 按实体计划提取数据（支持新增/删除操作，统一逻辑）
      */
     private void extractDataByReflection(Object[] args, Map<String, Object> targetMap, boolean isOldData) {
         if (args == null || targetMap == null) {
@@ -470,39 +599,28 @@ public class SysOperLogAspect {
                 continue;
             }
 
-            Class<?> entityClass = arg.getClass();
-            if (!entityConfigMap.containsKey(entityClass)) {
+            EntityPlan plan = entityPlanMap.get(arg.getClass());
+            if (plan == null) {
                 continue;
             }
 
-            EntityConfig entityConfig = entityConfigMap.get(entityClass);
-            List<String> bizFields = entityConfig.getBizFields();
-            Object mapper = entityConfig.getMapper();
-            String idFieldName = entityConfig.getIdField();
-
             try {
                 if (!isOldData) {
-                    extractBizFieldsByReflection(arg, bizFields, targetMap);
+                    plan.extractBizFields(arg, targetMap);
                 } else {
-                    Object idValue = getFieldValueByReflection(arg, idFieldName);
-                    if (idValue == null || !StringUtils.hasText(idValue.toString())) {
-                        log.warn("实体{}主键字段{}值为空，跳过旧数据查询", entityClass.getSimpleName(), idFieldName);
-                        continue;
-                    }
-                    Object oldEntity = queryOldEntityByReflection(mapper, idValue);
+                    Object oldEntity = queryOldEntity(plan, arg);
                     if (oldEntity != null) {
-                        extractBizFieldsByReflection(oldEntity, bizFields, targetMap);
+                        plan.extractBizFields(oldEntity, targetMap);
                     }
                 }
             } catch (Exception e) {
-                log.error("反射提取实体{}数据失败", entityClass.getSimpleName(), e);
-                continue;
+                log.error("提取实体{}数据失败", arg.getClass().getSimpleName(), e);
             }
         }
     }
 
     /**
-     * 反射提取编辑操作的旧数据和新数据（复用通用逻辑，消除冗余）
+     * 按实体计划提取编辑操作的旧数据和新数据（复用通用逻辑，消除冗余）
      */
     private void extractOldAndNewDataByReflection(Object[] args, Map<String, Object> oldData, Map<String, Object> newData) {
         if (args == null || oldData == null || newData == null) {
@@ -514,90 +632,58 @@ public class SysOperLogAspect {
                 continue;
             }
 
-            Class<?> entityClass = arg.getClass();
-            if (!entityConfigMap.containsKey(entityClass)) {
+            EntityPlan plan = entityPlanMap.get(arg.getClass());
+            if (plan == null) {
                 continue;
             }
 
-            EntityConfig entityConfig = entityConfigMap.get(entityClass);
-            String idFieldName = entityConfig.getIdField();
-            List<String> bizFields = entityConfig.getBizFields();
-            Object mapper = entityConfig.getMapper();
-
             try {
-                extractBizFieldsByReflection(arg, bizFields, newData);
-                Object idValue = getFieldValueByReflection(arg, idFieldName);
-                if (idValue == null || !StringUtils.hasText(idValue.toString())) {
-                    log.warn("实体{}主键字段{}值为空，跳过旧数据查询", entityClass.getSimpleName(), idFieldName);
-                    continue;
-                }
-                Object oldEntity = queryOldEntityByReflection(mapper, idValue);
+                plan.extractBizFields(arg, newData);
+                Object oldEntity = queryOldEntity(plan, arg);
                 if (oldEntity != null) {
-                    extractBizFieldsByReflection(oldEntity, bizFields, oldData);
+                    plan.extractBizFields(oldEntity, oldData);
                 }
             } catch (Exception e) {
-                log.error("反射处理编辑操作实体{}失败", entityClass.getSimpleName(), e);
-                continue;
+                log.error("处理编辑操作实体{}失败", arg.getClass().getSimpleName(), e);
             }
         }
     }
 
     /**
-     * 敏感信息过滤（优化递归逻辑，提高性能，空值安全）
+     * 获取参数实体的旧数据：优先取业务层已登记的原记录，未登记时按主键查询；主键为空时返回null
      */
-    private String filterSensitiveInfo(String json) {
-        if (!StringUtils.hasText(json)) {
-            return DEFAULT_SIMPLE_CONTENT; // 非编辑操作默认简易值
-        }
-        try {
-            JsonNode rootNode = objectMapper.readTree(json);
-            filterSensitiveNodeRecursive(rootNode);
-            return objectMapper.writeValueAsString(rootNode);
-        } catch (Exception e) {
-            log.error("过滤敏感信息失败", e);
-            return json;
+    private Object queryOldEntity(EntityPlan plan, Object arg) {
+        Object idValue = plan.getId(arg);
+        if (idValue == null || !StringUtils.hasText(idValue.toString())) {
+            log.warn("实体{}主键值为空，跳过旧数据查询", arg.getClass().getSimpleName());
+            return null;
         }
+        Object recorded = BeforeImageRegistry.take(arg.getClass(), idValue);
+        return recorded != null ? recorded : plan.selectById(idValue);
     }
 
     /**
-     * 递归过滤敏感节点（职责单一，逻辑清晰，优化数组处理性能）
+     * 提取业务层登记的原记录（仅限已配置实体计划的类型）
      */
-    private void filterSensitiveNodeRecursive(JsonNode node) {
-        if (node == null) {
-            return;
-        }
-        if (node.isObject()) {
-            ObjectNode objectNode = (ObjectNode) node;
-            Iterator<Map.Entry<String, JsonNode>> fieldIterator = objectNode.fields();
-            while (fieldIterator.hasNext()) {
-                Map.Entry<String, JsonNode> fieldEntry = fieldIterator.next();
-                String fieldName = fieldEntry.getKey();
-                JsonNode fieldValue = fieldEntry.getValue();
-
-                if (SENSITIVE_PATTERN.matcher(fieldName).matches()) {
-                    objectNode.put(fieldName, "***");
-                } else {
-                    filterSensitiveNodeRecursive(fieldValue);
-                }
+    private void extractRecordedImages(Map<String, Object> targetMap) {
+        for (Object image : BeforeImageRegistry.takeAll()) {
+            EntityPlan plan = entityPlanMap.get(image.getClass());
+            if (plan == null) {
+                continue;
             }
-        } else if (node.isArray()) {
-            ArrayNode arrayNode = (ArrayNode) node;
-            for (int i = 0; i < arrayNode.size(); i++) {
-                JsonNode elementNode = arrayNode.get(i);
-                if (elementNode.isTextual() && containsSensitiveInfo(elementNode.asText())) {
-                    arrayNode.set(i, objectMapper.getNodeFactory().textNode("***"));
-                } else {
-                    filterSensitiveNodeRecursive(elementNode);
-                }
+            try {
+                plan.extractBizFields(image, targetMap);
+            } catch (Exception e) {
+                log.error("提取实体{}原记录失败", image.getClass().getSimpleName(), e);
             }
         }
     }
 
     /**
-     * 判断字符串是否包含敏感信息（空值安全）
+     * 序列化并脱敏：敏感字段在写出时即替换为***，无需再解析成树过滤后重新序列化
      */
-    private boolean containsSensitiveInfo(String value) {
-        return StringUtils.hasText(value) && SENSITIVE_PATTERN.matcher(value).find();
+    private String writeMasked(Object data) throws IOException {
+        return SensitiveMaskingGenerator.writeValueAsString(objectMapper, data, SENSITIVE_PATTERN);
     }
 
     /**
@@ -633,11 +719,10 @@ public class SysOperLogAspect {
             if (arg == null) {
                 continue;
             }
-            Class<?> entityClass = arg.getClass();
-            if (entityConfigMap.containsKey(entityClass)) {
-                EntityConfig config = entityConfigMap.get(entityClass);
+            EntityPlan plan = entityPlanMap.get(arg.getClass());
+            if (plan != null) {
                 try {
-                    Object idValue = getFieldValueByReflection(arg, config.getIdField());
+                    Object idValue = plan.getId(arg);
                     if (idValue != null) {
                         String idStr = idValue.toString();
                         if (isValidIdFormat(idStr)) {
@@ -645,7 +730,7 @@ public class SysOperLogAspect {
                         }
                     }
                 } catch (Exception e) {
-                    log.error("反射提取实体{}ID失败", entityClass.getSimpleName(), e);
+                    log.error("提取实体{}ID失败", arg.getClass().getSimpleName(), e);
                 }
             }
         }
@@ -663,20 +748,13 @@ public class SysOperLogAspect {
             if (arg == null) {
                 continue;
             }
-            Class<?> entityClass = arg.getClass();
-            if (entityConfigMap.containsKey(entityClass)) {
-                EntityConfig config = entityConfigMap.get(entityClass);
-                List<String> bizFields = config.getBizFields();
-                Optional<String> nameField = bizFields.stream()
-                        .filter(field -> field.endsWith("Name"))
-                        .findFirst();
-                if (nameField.isPresent()) {
-                    try {
-                        Object nameValue = getFieldValueByReflection(arg, nameField.get());
-                        return nameValue != null ? nameValue.toString() : EMPTY_STR;
-                    } catch (Exception e) {
-                        log.error("反射提取实体{}名称失败", entityClass.getSimpleName(), e);
-                    }
+            EntityPlan plan = entityPlanMap.get(arg.getClass());
+            if (plan != null && plan.nameAccessor != null) {
+                try {
+                    Object nameValue = plan.nameAccessor.get(arg);
+                    return nameValue != null ? nameValue.toString() : EMPTY_STR;
+                } catch (Exception e) {
+                    log.error("提取实体{}名称失败", arg.getClass().getSimpleName(), e);
                 }
             }
             if (arg instanceof TrainQuality) {
@@ -696,7 +774,7 @@ public class SysOperLogAspect {
     /**
      * 生成唯一日志ID（优化算法，避免重复，线程安全）
      */
-    private String generateUniqueLogId() {
+    static String generateUniqueLogId() {
         long timestamp = System.currentTimeMillis() % 1000000000L;
         int randomNum = ThreadLocalRandom.current().nextInt(1000);
         return String.format(LOG_ID_FORMAT, timestamp, randomNum);
@@ -727,34 +805,10 @@ public class SysOperLogAspect {
         return operLog;
     }
 
-    /**
-     * 反射提取实体的业务字段值（通用工具方法，支持父类字段，空值安全）
-     */
-    private void extractBizFieldsByReflection(Object entity, List<String> bizFields, Map<String, Object> targetMap)
-            throws Exception {
-        if (entity == null || bizFields == null || targetMap == null || bizFields.isEmpty()) {
-            return;
-        }
-        Class<?> entityClass = entity.getClass();
-        for (String fieldName : bizFields) {
-            Field field = getDeclaredFieldRecursive(entityClass, fieldName);
-            if (field == null) {
-                log.warn("实体{}未找到字段{}，跳过提取", entityClass.getSimpleName(), fieldName);
-                continue;
-            }
-            if (Modifier.isStatic(field.getModifiers())) {
-                continue;
-            }
-            field.setAccessible(true);
-            Object fieldValue = field.get(entity);
-            targetMap.put(fieldName, fieldValue);
-        }
-    }
-
     /**
      * 递归获取实体字段（支持父类字段，解决继承场景下字段获取失败问题）
      */
-    private Field getDeclaredFieldRecursive(Class<?> clazz, String fieldName) {
+    private static Field getDeclaredFieldRecursive(Class<?> clazz, String fieldName) {
         if (clazz == null || StringUtils.isEmpty(fieldName)) {
             return null;
         }
@@ -768,48 +822,4 @@ public class SysOperLogAspect {
             return null;
         }
     }
-
-    /**
-     * 反射获取实体的主键字段值（通用工具方法，支持父类字段，空值安全）
-     */
-    private Object getFieldValueByReflection(Object entity, String idFieldName) throws Exception {
-        if (entity == null || StringUtils.isEmpty(idFieldName)) {
-            return null;
-        }
-        Class<?> entityClass = entity.getClass();
-        Field idField = getDeclaredFieldRecursive(entityClass, idFieldName);
-        if (idField == null) {
-            log.warn("实体{}未找到主键字段{}", entityClass.getSimpleName(), idFieldName);
-            return null;
-        }
-        idField.setAccessible(true);
-        return idField.get(entity);
-    }
-
-    /**
-     * 反射调用Mapper的selectById方法查询旧数据（通用工具方法，适配MyBatis动态代理，空值安全）
-     */
-    private Object queryOldEntityByReflection(Object mapper, Object idValue) throws Exception {
-        if (mapper == null || idValue == null || !StringUtils.hasText(idValue.toString())) {
-            return null;
-        }
-
-        Class<?> mapperClass = mapper.getClass();
-        Method selectByIdMethod = null;
-        for (Class<?> interfaceClz : mapperClass.getInterfaces()) {
-            try {
-                selectByIdMethod = interfaceClz.getMethod(SELECT_BY_ID_METHOD, Object.class);
-                break;
-            } catch (NoSuchMethodException e) {
-                continue;
-            }
-        }
-
-        if (selectByIdMethod == null) {
-            log.error("Mapper{}未找到{}方法", mapperClass.getSimpleName(), SELECT_BY_ID_METHOD);
-            return null;
-        }
-
-        return selectByIdMethod.invoke(mapper, idValue);
-    }
-}
\ No newline at end of file
+}
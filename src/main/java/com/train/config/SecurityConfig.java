@@ -83,11 +83,13 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .antMatchers("/swagger-resources/**").permitAll()
                 .antMatchers("/webjars/**").permitAll()
                 .antMatchers("/train/auth/login").permitAll()
+                .antMatchers("/train/auth/refresh").permitAll()
                 .anyRequest().authenticated()
                 .and()
                 // 1. 认证过滤器
                 .addFilterBefore(new JwtAuthenticationFilter(authenticationManagerBean(), jwtTokenUtil), UsernamePasswordAuthenticationFilter.class)
                 // 2. 授权过滤器
                 .addFilterBefore(jwtAuthorizationFilter(), UsernamePasswordAuthenticationFilter.class);
+        // 3. 接口权限校验见 WebMvcConfig 注册的 PermissionInterceptor（复用MVC已解析的处理方法）
     }
 }
\ No newline at end of file
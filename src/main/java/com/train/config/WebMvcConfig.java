@@ -0,0 +1,38 @@
+package com.train.config;
+
+import com.train.security.PermissionInterceptor;
+import com.train.security.PermissionRouteTable;
+import com.train.security.RbacIndex;
+import com.train.util.JwtTokenUtil;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.annotation.Resource;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    /**
+     * 路由表依赖 requestMappingHandlerMapping，而后者创建时会回调本配置，延迟注入避免循环依赖
+     */
+    @Lazy
+    @Resource
+    private PermissionRouteTable permissionRouteTable;
+
+    @Resource
+    private RbacIndex rbacIndex;
+
+    @Resource
+    private JwtTokenUtil jwtTokenUtil;
+
+    /**
+     * 接口权限拦截器：处理方法已由DispatcherServlet解析，拦截器直接按方法查表，不重复匹配路由
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new PermissionInterceptor(permissionRouteTable, rbacIndex,
+                jwtTokenUtil.isTrustPermissionClaims(), jwtTokenUtil.isStateless()));
+    }
+}
@@ -12,6 +12,7 @@ public class Constants {
      */
     public static final String HTTPS = "https://";
     public static final String EXAM_SESSION_KEY = "org_id:exam_session:";
+    public static final String RECENT_QUESTION_KEY = "org_id:recent_question:";
     public static final Integer FIVE = 5;
     // 定义角色常量
     public static String SYS_ORG_ID = "0";
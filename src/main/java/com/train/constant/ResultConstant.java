@@ -7,10 +7,17 @@ public class ResultConstant {
     public static final String ERROR_MSG = "操作失败";
     public static final int NO_AUTH_CODE = 403;
     public static final String NO_AUTH_MSG = "无访问权限";
+    public static final int UNAUTHORIZED_CODE = 401;
     public static final int NOT_FOUND_CODE = 404;
     public static final String NOT_FOUND_MSG = "资源不存在";
 
 
     public static final int BLACK_CODE = 40103;
     public static final String BLACK_MSG = "用户被拉黑";
+
+    public static final int PERMISSION_CHANGED_CODE = 40104;
+    public static final String PERMISSION_CHANGED_MSG = "权限已变更，请刷新令牌或重新登录";
+
+    public static final int PERMISSION_CHANGED_RELOGIN_CODE = 40105;
+    public static final String PERMISSION_CHANGED_RELOGIN_MSG = "权限已变更，请重新登录";
 }
\ No newline at end of file
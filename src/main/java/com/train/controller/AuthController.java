@@ -1,6 +1,7 @@
 package com.train.controller;
 
 import com.train.annotation.IgnoreLog;
+import com.train.dto.RefreshTokenDTO;
 import com.train.service.AuthService;
 import com.train.util.Result;
 import io.swagger.v3.oas.annotations.Operation;
@@ -29,13 +30,27 @@ public class AuthController {
     /**
      * 用户退出接口
      * @param authorization 请求头（Bearer Token）
+     * @param body 请求体（可选，无状态模式下携带刷新令牌）
      * @return 退出结果
      */
-    @Operation(summary = "用户退出", description = "传入JWT Token，将Token加入黑名单，使其失效")
+    @Operation(summary = "用户退出", description = "传入JWT Token，将Token加入黑名单，使其失效；无状态模式可在请求体中同时传入刷新令牌")
     @PostMapping("/logout")
-    public Result<?> logout(@RequestHeader("Authorization") String authorization) {
+    public Result<?> logout(@RequestHeader("Authorization") String authorization,
+                            @RequestBody(required = false) RefreshTokenDTO body) {
         // 截取Bearer后的Token字符串
         String token = authorization.substring(7);
-        return authService.logout(token);
+        return authService.logout(token, body == null ? null : body.getRefreshToken());
+    }
+
+    /**
+     * 刷新令牌接口（无状态模式）
+     * @param body 请求体，携带登录或上次刷新返回的刷新令牌
+     * @return 新的访问令牌与刷新令牌
+     */
+    @Operation(summary = "刷新令牌", description = "无状态模式下使用刷新令牌换取新的访问令牌，旧刷新令牌随即失效")
+    @PostMapping("/refresh")
+    @IgnoreLog
+    public Result<Map<String, Object>> refresh(@RequestBody RefreshTokenDTO body) {
+        return authService.refresh(body.getRefreshToken());
     }
 }
\ No newline at end of file
@@ -1,31 +1,102 @@
-//package com.train.controller; TODO 没有日志需求
-//
-//
-//import com.train.entity.SysOperLog;
-//import com.train.service.SysOperLogService;
-//import com.train.dto.SysOperLogQuery;
-//import com.train.util.ExcelUtil;
-//import io.swagger.v3.oas.annotations.Operation;
-//import io.swagger.v3.oas.annotations.tags.Tag;
-//import org.springframework.beans.factory.annotation.Autowired;
-//import org.springframework.web.bind.annotation.*;
-//
-//import javax.servlet.http.HttpServletResponse;
-//import java.util.List;
-//
-//@Tag(name = "操作日志管理", description = "操作日志管理接口")
-//@RestController
-//@RequestMapping("/sysOperLog")
-//public class SysOperLogController {
-//
-//    @Autowired
-//    private SysOperLogService sysOperLogService;
-//
-//    @Operation(summary = "导出操作日志", description = "导出操作日志")
-//    @PostMapping("/export")
-//    public void export(@RequestBody SysOperLogQuery query, HttpServletResponse response) {
-//        List<SysOperLog> list = sysOperLogService.selectForExport(query);
-//        ExcelUtil excel = new ExcelUtil<SysOperLog>(SysOperLog.class);
-//        excel.exportExcel(response,list, "操作日志");
-//    }
-//}
\ No newline at end of file
+package com.train.controller;
+
+import com.train.annotation.IgnoreLog;
+import com.train.annotation.OperLogPolicy;
+import com.train.annotation.RequiresPermission;
+import com.train.dto.SysOperLogPage;
+import com.train.dto.SysOperLogQuery;
+import com.train.security.JwtUserDetails;
+import com.train.service.SysOperLogService;
+import com.train.util.Result;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import javax.annotation.Resource;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 操作日志管理控制器
+ */
+@Slf4j
+@Tag(name = "操作日志管理", description = "操作日志查询、导出接口")
+@RestController
+@RequestMapping("/sysOperLog")
+public class SysOperLogController {
+
+    @Resource
+    private SysOperLogService sysOperLogService;
+
+    /**
+     * 操作日志查询（键集分页）
+     */
+    @Operation(summary = "操作日志查询", description = "按 (操作时间, 日志ID) 键集分页：下一页传入上一页返回的nextOperTime与nextLogId；总数默认为估算值")
+    @RequiresPermission("log:read")
+    @OperLogPolicy(OperLogPolicy.Mode.FULL)
+    @GetMapping("/search")
+    public Result<SysOperLogPage> search(SysOperLogQuery query) {
+        restrictOrg(query);
+        return Result.success(sysOperLogService.searchLogs(query));
+    }
+
+    /**
+     * 流式导出操作日志
+     */
+    @Operation(summary = "导出操作日志", description = "按条件流式导出，非超级管理员只能导出本机构日志；传入exportId可通过取消接口中止")
+    @RequiresPermission("log:read")
+    @PostMapping("/export")
+    public void export(@RequestBody SysOperLogQuery query,
+                       @Parameter(name = "exportId", description = "导出任务标识（用于取消）")
+                       @RequestParam(required = false) String exportId,
+                       HttpServletResponse response) {
+        restrictOrg(query);
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("utf-8");
+        try {
+            String fileName = URLEncoder.encode("操作日志.csv", StandardCharsets.UTF_8.name()).replace("+", "%20");
+            response.setHeader("Content-Disposition", "attachment;filename*=utf-8''" + fileName);
+            long rows = sysOperLogService.exportCsv(query, response.getOutputStream(), exportId, currentUser().getUserId());
+            log.info("操作日志导出完成，共{}行", rows);
+        } catch (InterruptedIOException e) {
+            // 被取消：已写出的行已推送，响应已提交，不再返回错误结果
+            log.info("操作日志导出中止：{}", e.getMessage());
+        } catch (IOException e) {
+            // 客户端断开时在下一次推送处写出失败，游标已在服务层关闭
+            log.warn("操作日志导出中断：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 取消导出
+     */
+    @Operation(summary = "取消导出操作日志", description = "中止当前用户发起的、指定exportId的进行中导出")
+    @RequiresPermission("log:read")
+    @IgnoreLog("取消导出不产生业务数据")
+    @PostMapping("/export/cancel")
+    public Result<?> cancelExport(@Parameter(name = "exportId", description = "导出任务标识", required = true)
+                                  @RequestParam String exportId) {
+        return sysOperLogService.cancelExport(exportId, currentUser().getUserId())
+                ? Result.success() : Result.error("导出任务不存在或已结束");
+    }
+
+    /**
+     * 权限隔离：超级管理员可按机构筛选，其他用户固定为本机构
+     */
+    private void restrictOrg(SysOperLogQuery query) {
+        JwtUserDetails userDetails = currentUser();
+        if (userDetails.getIsSysAdmin() == null || userDetails.getIsSysAdmin() != 1) {
+            query.setOrgId(userDetails.getOrgId());
+        }
+    }
+
+    private static JwtUserDetails currentUser() {
+        return (JwtUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    }
+}
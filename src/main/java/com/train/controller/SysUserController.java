@@ -2,6 +2,7 @@ package com.train.controller;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.train.annotation.OperLogPolicy;
 import com.train.annotation.RequiresPermission;
 import com.train.entity.SysUser;
 import com.train.mapper.SysUserMapper;
@@ -37,6 +38,7 @@ public class SysUserController {
      */
     @Operation(summary = "用户分页查询", description = "支持账号、用户名模糊查询，按权限隔离数据")
     @RequiresPermission("user:read")
+    @OperLogPolicy(OperLogPolicy.Mode.FULL)
     @GetMapping("/page")
     public Result<IPage<SysUser>> queryUserPage(
             @Parameter(name = "pageNum", description = "页码", example = "1")
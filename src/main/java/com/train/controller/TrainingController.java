@@ -74,8 +74,8 @@ public class TrainingController {
         // 获取当前登录用户
         JwtUserDetails userDetails = (JwtUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         String orgId = userDetails.getOrgId();
-        // 1. 随机抽取5道题（SQL：ORDER BY RANDOM () LIMIT 5）
-        return trainQuestionService.selectRandomQuestions(orgId, Constants.FIVE);
+        // 1. 随机抽取5道题（内存题库抽样，避开本人最近做过的题目）
+        return trainQuestionService.selectRandomQuestions(orgId, userDetails.getUserId(), Constants.FIVE);
     }
     //重新抽题
     @GetMapping("/question/reRandomQuestions")
@@ -85,8 +85,8 @@ public class TrainingController {
         // 获取当前登录用户
         JwtUserDetails userDetails = (JwtUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         String orgId = userDetails.getOrgId();
-        // 1. 随机抽取5道题（SQL：ORDER BY RANDOM () LIMIT 5）
-        return trainQuestionService.reRandomQuestions(paperId, orgId, Constants.FIVE);
+        // 1. 重新抽取5道题（排除旧试卷题目，避开本人最近做过的题目）
+        return trainQuestionService.reRandomQuestions(paperId, orgId, userDetails.getUserId(), Constants.FIVE);
     }
 
     @PostMapping("/question/judge")
@@ -0,0 +1,17 @@
+package com.train.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 刷新令牌请求DTO（令牌放在请求体中，避免出现在URL与访问日志里）
+ */
+@Schema(description = "刷新令牌请求DTO")
+@Data
+public class RefreshTokenDTO {
+    /**
+     * 登录或上次刷新返回的刷新令牌
+     */
+    @Schema(description = "刷新令牌", required = true)
+    private String refreshToken;
+}
@@ -0,0 +1,34 @@
+package com.train.dto;
+
+import com.train.entity.SysOperLog;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 操作日志键集分页结果
+ */
+@Data
+@Schema(description = "操作日志键集分页结果")
+public class SysOperLogPage {
+
+    @Schema(description = "本页数据")
+    private List<SysOperLog> records;
+
+    @Schema(description = "总条数（totalExact=false时为执行计划估算值）")
+    private long total;
+
+    @Schema(description = "总条数是否精确")
+    private boolean totalExact;
+
+    @Schema(description = "是否还有下一页")
+    private boolean hasMore;
+
+    @Schema(description = "下一页请求的afterOperTime（无下一页时为空）")
+    private LocalDateTime nextOperTime;
+
+    @Schema(description = "下一页请求的afterLogId（无下一页时为空）")
+    private String nextLogId;
+}
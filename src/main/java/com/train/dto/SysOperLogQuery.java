@@ -2,6 +2,9 @@ package com.train.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
 
 /**
  * 操作日志查询参数
@@ -10,8 +13,11 @@ import lombok.Data;
 @Schema(description = "操作日志查询参数")
 public class SysOperLogQuery {
 
-    @Schema(description = "操作ID 账号名")
-    private Long operAccount;
+    @Schema(description = "机构ID（超级管理员专用，其他用户固定为本机构）")
+    private String orgId;
+
+    @Schema(description = "操作账号")
+    private String operAccount;
 
     @Schema(description = "操作模块 菜单名")
     private String operMenu;
@@ -27,4 +33,17 @@ public class SysOperLogQuery {
 
     @Schema(description = "操作结果 成功 失败")
     private String operResult;
+
+    @Schema(description = "键集分页：上一页最后一条的操作时间（首页不传）")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime afterOperTime;
+
+    @Schema(description = "键集分页：上一页最后一条的日志ID（首页不传）")
+    private String afterLogId;
+
+    @Schema(description = "每页条数，默认20，最大100")
+    private Integer pageSize;
+
+    @Schema(description = "是否返回精确总数（默认返回估算值）")
+    private Boolean exactCount;
 }
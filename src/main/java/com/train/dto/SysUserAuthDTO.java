@@ -0,0 +1,24 @@
+package com.train.dto;
+
+import com.train.entity.SysUser;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 登录认证用户信息（用户 + 角色ID + 权限标识，一次查询返回）
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class SysUserAuthDTO extends SysUser {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 用户关联的角色ID（仅包含sys_role中存在的角色）
+     */
+    private String[] roleIds;
+
+    /**
+     * 用户角色关联菜单的权限标识（去重、排序，不含空值）
+     */
+    private String[] perms;
+}
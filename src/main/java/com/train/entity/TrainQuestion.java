@@ -47,6 +47,18 @@ public class TrainQuestion {
     @Schema(description = "状态", example = "1")
     private Integer status;        // 状态（0=禁用，1=启用，默认1）
 
+    /**
+     * 近似答案允许的最大编辑距离
+     */
+    @Schema(description = "近似答案允许的最大编辑距离（为空或0时不启用部分得分）")
+    private Integer nearMissMaxDistance;  // 近似答案最大编辑距离（可选）
+
+    /**
+     * 近似答案得分
+     */
+    @Schema(description = "近似答案得分")
+    private Integer nearMissScore;   // 近似答案得分（可选）
+
     /**
      * 创建时间
      */
@@ -0,0 +1,32 @@
+package com.train.enums;
+
+// Token会话校验结果（与Redis校验脚本返回码一一对应）
+public enum TokenSessionStatus {
+    VALID(0, "有效"),
+    REVOKED(1, "已登出（黑名单）"),
+    NO_SESSION(2, "会话已过期");
+
+    private final int code;
+    private final String desc;
+    TokenSessionStatus(int code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+    public int getCode() {
+        return code;
+    }
+    public String getDesc() {
+        return desc;
+    }
+
+    public static TokenSessionStatus of(Long code) {
+        if (code != null) {
+            for (TokenSessionStatus status : values()) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+        }
+        return NO_SESSION;
+    }
+}
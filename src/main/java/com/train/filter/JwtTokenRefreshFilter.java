@@ -1,9 +1,9 @@
 package com.train.filter;
 
+import com.train.security.VerifiedToken;
 import com.train.util.JwtTokenUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import javax.servlet.FilterChain;
@@ -60,37 +60,28 @@ public class JwtTokenRefreshFilter extends OncePerRequestFilter {
         // 只有接口请求正常完成（认证通过、业务无异常），才会执行后续续期逻辑
         filterChain.doFilter(request, response);
 
-        // 3. 判断是否认证通过：SecurityContextHolder存在Authentication说明已授权成功
-        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+        // 3. 判断是否认证通过：授权过滤器仅在认证成功时绑定已验签Token，直接复用，不再重新提取/解析请求头
+        // （不依赖SecurityContextHolder，过滤器链返回后安全上下文可能已被清理）
+        VerifiedToken verifiedToken = VerifiedToken.from(request);
+        if (verifiedToken == null) {
             logger.debug("请求未认证通过，不执行Token续期");
             return;
         }
-
-        // 4. 提取请求头中的JWT Token
-        String authorizationHeader = request.getHeader("Authorization");
-        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
-            logger.debug("请求头中无有效Token，不执行Token续期");
+        // 无状态访问令牌没有服务端会话，由客户端调用刷新接口换取新令牌
+        if (jwtTokenUtil.isStatelessToken(verifiedToken)) {
             return;
         }
-        // 去除Bearer前缀，获取纯Token
-        String token = authorizationHeader.substring(7).trim();
 
-        // 5. 核心：判断是否需要续期 + 执行续期操作
+        // 4. 核心：申请续期（续期窗口内只续期一次，后台线程批量发送EXPIRE，请求线程不等待Redis）
         try {
-            // 5.1 判断Token是否需要续期（剩余时间 < 续期阈值）
-//            if (jwtTokenUtil.needRefresh(token)) {
-            // 5.2 执行续期：更新Redis用户信息缓存的过期时间（重置为JWT原始过期时间）
-            boolean refreshSuccess = jwtTokenUtil.refreshUserInfoCache(token);
-            if (refreshSuccess) {
-                logger.info("Token无感续期成功，Token后缀：{}", token.substring(Math.max(0, token.length() - 10)));
+            boolean submitted = jwtTokenUtil.refreshUserInfoCache(verifiedToken);
+            if (submitted) {
+                logger.debug("Token无感续期已提交，Token后缀：{}", verifiedToken.getTokenSuffix());
             } else {
-                logger.warn("Token无感续期失败（Redis用户信息缓存不存在），Token后缀：{}", token.substring(Math.max(0, token.length() - 10)));
+                logger.debug("Token续期窗口内已续期，无需续期，Token后缀：{}", verifiedToken.getTokenSuffix());
             }
-//            } else {
-//                logger.debug("Token剩余时间充足，无需续期，Token后缀：{}", token.substring(Math.max(0, token.length() - 10)));
-//            }
         } catch (Exception e) {
-            logger.error("Token无感续期异常，Token后缀：{}", token.substring(Math.max(0, token.length() - 10)), e);
+            logger.error("Token无感续期异常，Token后缀：{}", verifiedToken.getTokenSuffix(), e);
         }
     }
 }
\ No newline at end of file
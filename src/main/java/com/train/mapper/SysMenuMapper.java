@@ -35,4 +35,10 @@ public interface SysMenuMapper extends BaseMapper<SysMenu> {
      * @return 菜单列表
      */
     List<SysMenu> selectAllEnableMenu();
+
+    /**
+     * 查询去重后的全部权限标识（按首次出现的菜单ID排序，新增菜单的权限追加在末尾）
+     * @return 权限标识列表
+     */
+    List<String> selectDistinctPerms();
 }
\ No newline at end of file
@@ -1,7 +1,37 @@
 package com.train.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.train.dto.SysOperLogQuery;
 import com.train.entity.SysOperLog;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
 
 public interface SysOperLogMapper  extends BaseMapper<SysOperLog> {
+
+    /**
+     * 多行插入（一条INSERT写入整批日志）
+     */
+    int insertBatch(@Param("list") List<SysOperLog> logs);
+
+    /**
+     * 按条件以游标方式读取日志（须在事务内遍历）
+     */
+    Cursor<SysOperLog> selectForExport(@Param("query") SysOperLogQuery query);
+
+    /**
+     * 键集分页查询：按 (oper_time, log_id) 倒序，从 query 中的上一页末行之后取 limit 行
+     */
+    List<SysOperLog> selectPageAfter(@Param("query") SysOperLogQuery query, @Param("limit") int limit);
+
+    /**
+     * 精确统计满足条件的行数
+     */
+    long countByQuery(@Param("query") SysOperLogQuery query);
+
+    /**
+     * 查询的执行计划（JSON格式），用于估算行数
+     */
+    String explainCount(@Param("query") SysOperLogQuery query);
 }
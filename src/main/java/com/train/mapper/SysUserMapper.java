@@ -3,6 +3,7 @@ package com.train.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.train.dto.SysUserAuthDTO;
 import com.train.entity.SysUser;
 import org.apache.ibatis.annotations.Param;
 
@@ -33,4 +34,12 @@ public interface SysUserMapper extends BaseMapper<SysUser> {
      * @return 权限标识列表
      */
     List<String> selectUserPermsByAccount(@Param("account") String account);
+
+    /**
+     * 登录认证：一次查询返回用户、角色ID、权限标识
+     * @param account 账号
+     * @param orgId 机构ID
+     * @return 用户认证信息，不存在返回null
+     */
+    SysUserAuthDTO selectAuthUser(@Param("account") String account, @Param("orgId") String orgId);
 }
\ No newline at end of file
@@ -7,21 +7,18 @@ import org.apache.ibatis.annotations.Param;
 import java.util.List;
 
 public interface TrainQuestionMapper extends BaseMapper<TrainQuestion> {
-    // 随机抽取5道题（用于生成试卷）
-    List<TrainQuestion> selectRandomQuestions(@Param("orgIds") List<String> orgIds, @Param("limit") Integer limit);
+    // 机构启用题目ID（按ID排序，用于抽题快照）
+    List<Long> selectActiveQuestionIds(@Param("orgId") String orgId);
 
-    // 根据题目ID查询答案和关键词（用于判分）
-    TrainQuestion selectAnswer(@Param("questionId") Long questionId);
+    // 机构题库版本（启用题目数:有序ID列表的MD5，启用题目集合变化后即变化）
+    String selectPoolVersion(@Param("orgId") String orgId);
 
-    /**
-     * 按机构随机抽题（排除指定旧题目ID）
-     * @param orgIds  机构ID列表
-     * @param excludeQuestionIds  需要排除的旧题目ID列表
-     * @param limit  抽题数量
-     * @return  无重复的新题目列表
-     */
-    List<TrainQuestion> selectRandomQuestionsExcludeOldIds(
-            @Param("orgIds") List<String> orgIds,
-            @Param("excludeQuestionIds") List<Long> excludeQuestionIds,
-            @Param("limit") int limit
-    );}
\ No newline at end of file
+    // 按主键批量取题（仅启用状态，用于抽题）
+    List<TrainQuestion> selectQuestionsByIds(@Param("questionIds") List<Long> questionIds);
+
+    // 按主键批量查询答案及近似答案配置（仅启用状态，用于判分）
+    List<TrainQuestion> selectAnswersByIds(@Param("questionIds") List<Long> questionIds);
+
+    // 判分答案版本（触发器维护的题库版本号，任一题目增删改后变化）
+    Long selectAnswerVersion();
+}
@@ -1,12 +1,7 @@
 package com.train.security;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.train.entity.SysRole;
-import com.train.entity.SysUser;
-import com.train.entity.SysUserRole;
-import com.train.mapper.SysRoleMapper;
+import com.train.dto.SysUserAuthDTO;
 import com.train.mapper.SysUserMapper;
-import com.train.mapper.SysUserRoleMapper;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,9 +11,9 @@ import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 /**
  * 自定义UserDetailsService，实现账号+机构的用户查询
@@ -26,14 +21,11 @@ import java.util.stream.Collectors;
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
-    @Resource
-    private SysUserMapper sysUserMapper;
-
-    @Resource
-    private SysUserRoleMapper sysUserRoleMapper;
+    private static final Pattern ORG_ID_PATTERN = Pattern.compile("\\d+");
+    private static final Pattern ROLE_ID_PATTERN = Pattern.compile("^[a-zA-Z0-9_]+$");
 
     @Resource
-    private SysRoleMapper sysRoleMapper;
+    private SysUserMapper sysUserMapper;
 
     /**
      * 加载用户信息
@@ -57,48 +49,36 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
 
         // 验证orgId格式（防止SQL注入等攻击）
-        if (!orgId.matches("\\d+")) {
+        if (!ORG_ID_PATTERN.matcher(orgId).matches()) {
             throw new UsernameNotFoundException("机构ID格式不正确");
         }
 
-        // 2. 根据账号+机构ID查询用户（核心：确保同账号不同机构的用户唯一性）
-        SysUser sysUser = sysUserMapper.selectOne(
-                new LambdaQueryWrapper<SysUser>()
-                        .eq(SysUser::getAccount, account)
-                        .eq(SysUser::getOrgId, orgId)
-        );
+        // 2. 根据账号+机构ID一次查询用户、角色ID、权限标识（核心：确保同账号不同机构的用户唯一性）
+        SysUserAuthDTO sysUser = sysUserMapper.selectAuthUser(account, orgId);
         if (sysUser == null) {
             throw new UsernameNotFoundException("账号或机构不存在");
         }
 
-        // 3. 查询用户关联的角色
-        List<SysUserRole> userRoleList = sysUserRoleMapper.selectList(
-                new LambdaQueryWrapper<SysUserRole>()
-                        .eq(SysUserRole::getUserId, sysUser.getUserId())
-        );
-        List<String> roleIds = userRoleList.stream()
-                .map(SysUserRole::getRoleId)
-                .collect(Collectors.toList());
+        // 3. 角色封装为GrantedAuthority
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (sysUser.getRoleIds() != null) {
+            for (String roleId : sysUser.getRoleIds()) {
+                if (roleId == null) {
+                    throw new IllegalArgumentException("Role ID cannot be null");
+                }
+                // 验证roleId只包含字母、数字和下划线
+                if (!ROLE_ID_PATTERN.matcher(roleId).matches()) {
+                    throw new IllegalArgumentException("Invalid role ID format: " + roleId);
+                }
+                authorities.add(new SimpleGrantedAuthority(roleId));
+            }
+        }
 
-        // 4. 查询角色权限（封装为GrantedAuthority）
-        List<SysRole> roleList = sysRoleMapper.selectList(
-                new LambdaQueryWrapper<SysRole>()
-                        .in(SysRole::getRoleId, roleIds)
-        );
-        List<GrantedAuthority> authorities = roleList.stream()
-                .filter(Objects::nonNull)
-                .map(role -> {
-                    String roleId = role.getRoleId();
-                    if (roleId == null) {
-                        throw new IllegalArgumentException("Role ID cannot be null");
-                    }
-                    // 验证roleId只包含字母、数字和下划线
-                    if (!roleId.matches("^[a-zA-Z0-9_]+$")) {
-                        throw new IllegalArgumentException("Invalid role ID format: " + roleId);
-                    }
-                    return new SimpleGrantedAuthority(roleId);
-                })
-                .collect(Collectors.toList());
+        // 4. 权限标识（使用ArrayList，保证写入Redis的用户信息可按类型反序列化）
+        List<String> permissions = new ArrayList<>();
+        if (sysUser.getPerms() != null) {
+            permissions.addAll(Arrays.asList(sysUser.getPerms()));
+        }
 
          // 5. 封装为自定义JwtUserDetails
         JwtUserDetails jwtUserDetails = new JwtUserDetails();
@@ -108,6 +88,7 @@ public class CustomUserDetailsService implements UserDetailsService {
         jwtUserDetails.setOrgId(sysUser.getOrgId());
         jwtUserDetails.setIsSysAdmin(sysUser.getIsSysAdmin());
         jwtUserDetails.setAuthorities(authorities);
+        jwtUserDetails.setPermissions(permissions);
         jwtUserDetails.setPassword(sysUser.getPassword());
         jwtUserDetails.setStatus(sysUser.getStatus());
 
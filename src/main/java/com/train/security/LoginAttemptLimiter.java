@@ -0,0 +1,182 @@
+package com.train.security;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.train.entity.SysUser;
+import com.train.mapper.SysUserMapper;
+import com.train.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录失败限流与锁定
+ * 1. 失败计数、窗口过期、达到上限后锁定 在一个Lua脚本中原子完成，并发失败不会丢计数
+ * 2. 已锁定账号在本进程缓存（有界陈旧），暴力破解流量不再访问Redis、数据库和密码校验
+ * 3. 超级管理员不锁定，超级管理员名单定时整体加载，失败路径不再逐个查库
+ */
+@Slf4j
+@Component
+public class LoginAttemptLimiter {
+
+    /**
+     * 最大错误次数
+     */
+    public static final int MAX_ERROR_COUNT = 5;
+
+    /**
+     * 计数窗口 / 锁定时长（秒）
+     */
+    public static final int LOCK_DURATION = 3600;
+
+    /**
+     * 失败计数脚本
+     * KEYS[1]=错误计数键，KEYS[2]=锁定键；ARGV[1]=窗口/锁定秒数，ARGV[2]=最大错误次数，ARGV[3]=1表示免锁定
+     * 返回本次累计错误次数（达到上限且未免锁定时已写入锁定键并清除计数）
+     */
+    private static final DefaultRedisScript<Long> RECORD_FAILURE_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1])\n" +
+            "if count == 1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end\n" +
+            "if ARGV[3] ~= '1' and count >= tonumber(ARGV[2]) then\n" +
+            "  redis.call('SET', KEYS[2], 'locked', 'EX', ARGV[1])\n" +
+            "  redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return count", Long.class);
+
+    @Resource
+    private RedisUtil redisUtil;
+
+    @Resource
+    private SysUserMapper sysUserMapper;
+
+    /**
+     * 本地锁定缓存有效期（秒）：其他节点解锁后，本节点最多在该时长内仍拒绝登录
+     */
+    @Value("${login.lock-cache-seconds:30}")
+    private long lockCacheSeconds = 30;
+
+    /**
+     * 本地锁定缓存最大条目数
+     */
+    @Value("${login.lock-cache-max-size:10000}")
+    private int lockCacheMaxSize = 10000;
+
+    /**
+     * 超级管理员名单刷新间隔（秒）
+     */
+    @Value("${login.sys-admin-refresh-seconds:300}")
+    private long sysAdminRefreshSeconds = 300;
+
+    /**
+     * key=锁定键，value=本地缓存失效时间戳
+     */
+    private final Map<String, Long> lockedCache = new ConcurrentHashMap<>();
+
+    private volatile Set<String> sysAdminIdentities = Collections.emptySet();
+    private volatile long sysAdminLoadedAt;
+
+    /**
+     * 账号是否已锁定（本地缓存优先）
+     */
+    public boolean isLocked(String lockKey) {
+        Long until = lockedCache.get(lockKey);
+        long now = System.currentTimeMillis();
+        if (until != null) {
+            if (until > now) {
+                return true;
+            }
+            lockedCache.remove(lockKey, until);
+        }
+        if (redisUtil.hasKey(lockKey)) {
+            cacheLocked(lockKey, now);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 记录一次登录失败（一次Redis往返）
+     * @param exempt 是否免锁定（超级管理员）
+     * @return 本次累计错误次数
+     */
+    public long recordFailure(String errorCountKey, String lockKey, boolean exempt) {
+        Long count = redisUtil.executeScript(RECORD_FAILURE_SCRIPT, Arrays.asList(errorCountKey, lockKey),
+                String.valueOf(LOCK_DURATION), String.valueOf(MAX_ERROR_COUNT), exempt ? "1" : "0");
+        long errorCount = count == null ? 0 : count;
+        if (isLockedBy(errorCount, exempt)) {
+            cacheLocked(lockKey, System.currentTimeMillis());
+        }
+        return errorCount;
+    }
+
+    /**
+     * 本次失败是否触发了锁定
+     */
+    public boolean isLockedBy(long errorCount, boolean exempt) {
+        return !exempt && errorCount >= MAX_ERROR_COUNT;
+    }
+
+    /**
+     * 解锁：清除锁定键、错误计数及本地缓存
+     */
+    public void unlock(String lockKey, String errorCountKey) {
+        lockedCache.remove(lockKey);
+        redisUtil.batchDelete(Arrays.asList(lockKey, errorCountKey));
+    }
+
+    /**
+     * 是否为超级管理员（免锁定），名单按刷新间隔整体加载
+     */
+    public boolean isSysAdmin(String account, String orgId) {
+        long now = System.currentTimeMillis();
+        if (now - sysAdminLoadedAt > sysAdminRefreshSeconds * 1000) {
+            reloadSysAdmins(now);
+        }
+        return sysAdminIdentities.contains(account + "@" + orgId);
+    }
+
+    private synchronized void reloadSysAdmins(long now) {
+        if (now - sysAdminLoadedAt <= sysAdminRefreshSeconds * 1000) {
+            return;
+        }
+        Set<String> identities = new HashSet<>();
+        for (SysUser user : sysUserMapper.selectList(new QueryWrapper<SysUser>()
+                .select("account", "org_id")
+                .eq("is_sys_admin", 1))) {
+            identities.add(user.getAccount() + "@" + user.getOrgId());
+        }
+        sysAdminIdentities = Collections.unmodifiableSet(identities);
+        sysAdminLoadedAt = now;
+    }
+
+    private void cacheLocked(String lockKey, long now) {
+        if (lockedCache.size() >= lockCacheMaxSize) {
+            evictExpired(now);
+        }
+        if (lockedCache.size() < lockCacheMaxSize) {
+            lockedCache.put(lockKey, now + Math.min(lockCacheSeconds, LOCK_DURATION) * 1000);
+        }
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Long>> iterator = lockedCache.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() <= now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public int getLockedCacheSize() {
+        return lockedCache.size();
+    }
+}
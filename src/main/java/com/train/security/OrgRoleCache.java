@@ -0,0 +1,189 @@
+package com.train.security;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.train.entity.SysOrgRole;
+import com.train.mapper.SysOrgRoleMapper;
+import com.train.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 机构 → 角色ID 本地缓存（读多写少）
+ * 1. 首次访问某机构时查询 sys_org_role 并缓存，登录机构列表可批量预加载
+ * 2. 本节点修改机构角色绑定时立即失效，并在事务提交后再次失效，避免缓存事务未提交时读到的旧数据
+ * 3. 其他节点的变更通过 {@link RbacIndex} 的版本号感知：已应用版本号变化时清空全部缓存
+ */
+@Slf4j
+@Component
+public class OrgRoleCache {
+
+    @Resource
+    private SysOrgRoleMapper sysOrgRoleMapper;
+
+    @Resource
+    private RbacIndex rbacIndex;
+
+    /**
+     * key=机构ID，value=该机构绑定的角色ID（只读）
+     */
+    private final Map<String, List<String>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 失效代数：加载期间发生失效则不回填，避免旧数据覆盖失效结果
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * 缓存内容对应的权限索引版本号
+     */
+    private volatile long indexVersion = Long.MIN_VALUE;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong preloadCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    /**
+     * 机构绑定的角色ID列表（只读，机构未绑定角色时为空列表）
+     */
+    public List<String> getRoleIds(String orgId) {
+        checkIndexVersion();
+        List<String> roleIds = entries.get(orgId);
+        if (roleIds != null) {
+            hitCount.incrementAndGet();
+            return roleIds;
+        }
+        missCount.incrementAndGet();
+        long loadGeneration = generation.get();
+        roleIds = Collections.unmodifiableList(new ArrayList<>(sysOrgRoleMapper.selectRoleIdsByOrgId(orgId)));
+        if (generation.get() == loadGeneration) {
+            entries.put(orgId, roleIds);
+        }
+        return roleIds;
+    }
+
+    /**
+     * 批量预加载（一次查询加载所有未缓存的机构）
+     */
+    public void preload(Collection<String> orgIds) {
+        if (orgIds == null || orgIds.isEmpty()) {
+            return;
+        }
+        checkIndexVersion();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String orgId : orgIds) {
+            if (orgId != null && !entries.containsKey(orgId)) {
+                missing.add(orgId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        long loadGeneration = generation.get();
+        Map<String, List<String>> loaded = new HashMap<>();
+        for (String orgId : missing) {
+            loaded.put(orgId, new ArrayList<>());
+        }
+        for (SysOrgRole orgRole : sysOrgRoleMapper.selectList(new QueryWrapper<SysOrgRole>()
+                .select("org_id", "role_id")
+                .in("org_id", missing))) {
+            List<String> roleIds = loaded.get(orgRole.getOrgId());
+            if (roleIds != null) {
+                roleIds.add(orgRole.getRoleId());
+            }
+        }
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        for (Map.Entry<String, List<String>> entry : loaded.entrySet()) {
+            entries.putIfAbsent(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        preloadCount.addAndGet(loaded.size());
+        log.debug("机构角色缓存已预加载{}个机构", loaded.size());
+    }
+
+    /**
+     * 机构角色绑定变更：立即失效，事务提交后再次失效
+     */
+    public void invalidate(String orgId) {
+        evict(orgId);
+        TransactionUtil.afterCommit(() -> evict(orgId));
+    }
+
+    /**
+     * 影响多个机构的变更（如按角色批量解绑）：立即清空，事务提交后再次清空
+     */
+    public void invalidateAll() {
+        clear();
+        TransactionUtil.afterCommit(this::clear);
+    }
+
+    private void evict(String orgId) {
+        generation.incrementAndGet();
+        if (entries.remove(orgId) != null) {
+            invalidationCount.incrementAndGet();
+        }
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        invalidationCount.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    /**
+     * 权限索引版本号变化（本节点或其他节点修改了权限数据）时清空缓存
+     */
+    private void checkIndexVersion() {
+        long version = rbacIndex.getAppliedVersion();
+        if (version != indexVersion) {
+            synchronized (this) {
+                if (version != indexVersion) {
+                    clear();
+                    indexVersion = version;
+                }
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getPreloadCount() {
+        return preloadCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 命中率（无访问时为0）
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
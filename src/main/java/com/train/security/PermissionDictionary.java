@@ -0,0 +1,201 @@
+package com.train.security;
+
+import com.train.mapper.SysMenuMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * 权限标识字典
+ * 将 sys_menu.perms 去重后按菜单ID顺序编号，Token中只需携带 字典版本 + 权限位图（Base64），
+ * 解码时按版本还原为权限集合。字典变化（菜单增删改）会产生新版本，旧版本保留若干个，
+ * 保证变化前签发的Token仍能解码；超出保留数的旧版本无法解码，持有者需刷新Token
+ * 解码路径不加锁：历史版本为写时复制的只读快照，解码结果缓存满时整体清空（结果只由键决定，清空不影响正确性）
+ */
+@Slf4j
+@Component
+public class PermissionDictionary {
+
+    /**
+     * 保留的历史版本数
+     */
+    private static final int MAX_HISTORY = 8;
+
+    /**
+     * 解码结果缓存上限（同一角色组合的用户共享同一位图，命中率很高）
+     */
+    private static final int MAX_DECODED = 1024;
+
+    /**
+     * 遇到未知版本时重新加载字典的最小间隔（毫秒），防止伪造版本号压垮数据库
+     */
+    private static final long UNKNOWN_VERSION_RELOAD_INTERVAL_MS = 5000;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @Resource
+    private SysMenuMapper sysMenuMapper;
+
+    private volatile Snapshot current = new Snapshot(Collections.<String>emptyList());
+
+    /**
+     * 历史版本（只读，重建时整体替换）
+     */
+    private volatile Map<String, Snapshot> history = Collections.emptyMap();
+
+    private final Map<String, Set<String>> decoded = new ConcurrentHashMap<>(256);
+
+    private volatile long lastUnknownReloadAt;
+
+    @PostConstruct
+    public void reload() {
+        rebuild(sysMenuMapper.selectDistinctPerms());
+    }
+
+    /**
+     * 按给定顺序重建字典
+     * @param orderedPerms 去重后的权限标识（按菜单ID顺序）
+     */
+    public synchronized void rebuild(List<String> orderedPerms) {
+        Snapshot snapshot = new Snapshot(orderedPerms);
+        if (snapshot.version.equals(current.version)) {
+            return;
+        }
+        LinkedHashMap<String, Snapshot> retained = new LinkedHashMap<>(history);
+        retained.put(snapshot.version, snapshot);
+        Iterator<String> eldest = retained.keySet().iterator();
+        while (retained.size() > MAX_HISTORY) {
+            eldest.next();
+            eldest.remove();
+        }
+        history = Collections.unmodifiableMap(retained);
+        current = snapshot;
+        log.info("权限字典已加载，版本：{}，权限数：{}", snapshot.version, snapshot.perms.length);
+    }
+
+    /**
+     * 当前字典版本
+     */
+    public String getVersion() {
+        return current.version;
+    }
+
+    /**
+     * 权限标识在当前版本中的编号，不存在返回-1
+     */
+    public int idOf(String perm) {
+        Integer id = current.ids.get(perm);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 按当前版本把权限集合编码为位图（Base64 URL安全、无填充），字典中不存在的权限忽略
+     */
+    public String encode(Collection<String> perms) {
+        Snapshot snapshot = current;
+        BitSet bits = new BitSet(snapshot.perms.length);
+        if (perms != null) {
+            for (String perm : perms) {
+                Integer id = snapshot.ids.get(perm);
+                if (id != null) {
+                    bits.set(id);
+                }
+            }
+        }
+        return ENCODER.encodeToString(bits.toByteArray());
+    }
+
+    /**
+     * 按版本把位图解码为只读权限集合
+     * @return 版本未知（已超出保留的历史版本）或位图非法时返回null；
+     *         位图来自已验签的Token，因此带版本号却解码失败即说明Token的字典版本已过期
+     */
+    public Set<String> decode(String version, String encodedBits) {
+        if (version == null || encodedBits == null) {
+            return null;
+        }
+        String cacheKey = version + ":" + encodedBits;
+        Set<String> cached = decoded.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        Snapshot snapshot = findSnapshot(version);
+        if (snapshot == null) {
+            return null;
+        }
+        BitSet bits;
+        try {
+            bits = BitSet.valueOf(DECODER.decode(encodedBits));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        Set<String> perms = new LinkedHashSet<>();
+        for (int i = bits.nextSetBit(0); i >= 0 && i < snapshot.perms.length; i = bits.nextSetBit(i + 1)) {
+            perms.add(snapshot.perms[i]);
+        }
+        Set<String> result = Collections.unmodifiableSet(perms);
+        if (decoded.size() >= MAX_DECODED) {
+            decoded.clear();
+        }
+        decoded.put(cacheKey, result);
+        return result;
+    }
+
+    private Snapshot findSnapshot(String version) {
+        Snapshot snapshot = current;
+        if (snapshot.version.equals(version)) {
+            return snapshot;
+        }
+        snapshot = history.get(version);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        // 其他节点已加载了更新的字典，本节点限频重新加载一次
+        long now = System.currentTimeMillis();
+        if (now - lastUnknownReloadAt > UNKNOWN_VERSION_RELOAD_INTERVAL_MS) {
+            lastUnknownReloadAt = now;
+            reload();
+            return history.get(version);
+        }
+        return null;
+    }
+
+    /**
+     * 字典快照（不可变）
+     */
+    private static final class Snapshot {
+        private final String version;
+        private final String[] perms;
+        private final Map<String, Integer> ids;
+
+        private Snapshot(List<String> orderedPerms) {
+            this.perms = orderedPerms.toArray(new String[0]);
+            Map<String, Integer> idMap = new HashMap<>(perms.length * 2);
+            CRC32 crc32 = new CRC32();
+            for (int i = 0; i < perms.length; i++) {
+                idMap.put(perms[i], i);
+                crc32.update(perms[i].getBytes(StandardCharsets.UTF_8));
+                crc32.update('\n');
+            }
+            this.ids = Collections.unmodifiableMap(idMap);
+            this.version = Long.toHexString(crc32.getValue());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.train.security;
+
+import com.train.annotation.RequiresPermission;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.annotation.Resource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 接口权限路由表
+ * 启动时扫描全部带 {@link RequiresPermission} 的处理方法，权限标识驻留为整数编号，构建 处理方法 → 权限编号 的只读表；
+ * 请求时由 {@link PermissionInterceptor} 按 DispatcherServlet 已解析的处理方法查表并做一次位测试，不再经过AOP切面。
+ * 注解中的权限标识在菜单表中不存在时启动失败
+ */
+@Slf4j
+@Component
+public class PermissionRouteTable implements SmartInitializingSingleton {
+
+    /**
+     * 无需权限校验
+     */
+    public static final int NONE = -1;
+
+    @Resource(name = "requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Resource
+    private RbacIndex rbacIndex;
+
+    /**
+     * 注解权限标识在菜单表中不存在时是否启动失败
+     */
+    @Value("${security.permission.fail-on-unknown:true}")
+    private boolean failOnUnknown = true;
+
+    private volatile Map<Method, Integer> table = Collections.emptyMap();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<Method, Integer> built = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            HandlerMethod handlerMethod = entry.getValue();
+            RequiresPermission annotation = findAnnotation(handlerMethod);
+            if (annotation == null) {
+                continue;
+            }
+            String perm = annotation.value();
+            String endpoint = handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName();
+            if (perm == null || perm.trim().isEmpty()) {
+                errors.add(endpoint + " 权限标识为空");
+                continue;
+            }
+            if (!rbacIndex.isKnownPermission(perm)) {
+                errors.add(endpoint + " 权限标识[" + perm + "]在菜单表中不存在");
+                if (failOnUnknown) {
+                    continue;
+                }
+            }
+            built.put(handlerMethod.getMethod(), rbacIndex.internPermission(perm));
+        }
+        if (!errors.isEmpty()) {
+            if (failOnUnknown) {
+                throw new IllegalStateException("接口权限配置错误：" + String.join("；", errors));
+            }
+            errors.forEach(error -> log.warn("接口权限配置错误：{}", error));
+        }
+        table = Collections.unmodifiableMap(built);
+        log.info("接口权限路由表已构建，受控接口{}个", built.size());
+    }
+
+    private static RequiresPermission findAnnotation(HandlerMethod handlerMethod) {
+        RequiresPermission annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), RequiresPermission.class);
+        if (annotation == null) {
+            annotation = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), RequiresPermission.class);
+        }
+        return annotation;
+    }
+
+    /**
+     * 处理方法所需的权限编号
+     * @return 无需权限校验时返回 {@link #NONE}
+     */
+    public int requiredPermission(Method method) {
+        Integer permId = table.get(method);
+        return permId == null ? NONE : permId;
+    }
+
+    public int size() {
+        return table.size();
+    }
+}
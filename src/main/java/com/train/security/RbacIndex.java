@@ -0,0 +1,512 @@
+package com.train.security;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.train.entity.SysMenu;
+import com.train.entity.SysOrgRole;
+import com.train.entity.SysRole;
+import com.train.entity.SysRoleMenu;
+import com.train.entity.SysUserRole;
+import com.train.mapper.SysMenuMapper;
+import com.train.mapper.SysOrgRoleMapper;
+import com.train.mapper.SysRoleMapper;
+import com.train.mapper.SysRoleMenuMapper;
+import com.train.mapper.SysUserRoleMapper;
+import com.train.util.RedisUtil;
+import com.train.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * 进程内RBAC权限索引
+ * 1. 启动时由 sys_user_role / sys_org_role / sys_role / sys_role_menu / sys_menu 构建 用户→角色、角色→权限集合 索引，
+ *    权限校验只做内存查找，不访问数据库
+ * 2. 本节点的用户角色、角色权限、角色状态、机构角色变更在事务提交后局部修补；菜单变更整体重建
+ * 3. 每次变更递增Redis版本号，其他节点定时比较版本号，不一致时整体重建
+ * 权限标识在本进程内驻留为整数编号（只增不减，重建后不变），角色与用户的权限均预计算为位图，
+ * 接口权限校验为一次位测试
+ * 4. 每个用户的有效权限集合折算为权限版本（与进程无关，各节点一致），签入Token后可用于校验Token中的权限是否过期
+ */
+@Slf4j
+@Component
+public class RbacIndex {
+
+    /**
+     * 跨节点失效版本号键
+     */
+    private static final String VERSION_KEY = "rbac:version";
+
+    /**
+     * 版本号按整数存储，读写均走脚本，不经过值序列化器
+     */
+    private static final DefaultRedisScript<Long> VERSION_GET_SCRIPT = new DefaultRedisScript<>(
+            "return tonumber(redis.call('GET', KEYS[1]) or '0')", Long.class);
+    private static final DefaultRedisScript<Long> VERSION_INCR_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('INCR', KEYS[1])", Long.class);
+
+    /**
+     * 无任何有效权限（含机构未绑定角色）时的权限版本
+     */
+    public static final String EMPTY_PERMISSION_VERSION = "0";
+
+    @Resource
+    private SysUserRoleMapper sysUserRoleMapper;
+    @Resource
+    private SysOrgRoleMapper sysOrgRoleMapper;
+    @Resource
+    private SysRoleMapper sysRoleMapper;
+    @Resource
+    private SysRoleMenuMapper sysRoleMenuMapper;
+    @Resource
+    private SysMenuMapper sysMenuMapper;
+    @Resource
+    private PermissionDictionary permissionDictionary;
+    @Resource
+    private RedisUtil redisUtil;
+
+    /**
+     * 版本号检查间隔（毫秒），即其他节点变更在本节点生效的最大延迟
+     */
+    @Value("${rbac.index.poll-interval-ms:1000}")
+    private long pollIntervalMs = 1000;
+
+    /**
+     * 权限标识 → 进程内编号
+     */
+    private final Map<String, Integer> permIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> permNames = new ConcurrentHashMap<>();
+    private final AtomicInteger nextPermId = new AtomicInteger();
+
+    private volatile Index index = new Index();
+
+    /**
+     * 本节点已应用的版本号
+     */
+    private volatile long appliedVersion = -1;
+
+    private ScheduledExecutorService poller;
+
+    @PostConstruct
+    public void start() {
+        appliedVersion = readVersion();
+        rebuild();
+        poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rbac-index-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    /**
+     * 校验用户在指定机构下是否拥有权限（纯内存查找）
+     * 与原逐表查询逻辑一致：机构未绑定任何角色时无权限；用户任一启用角色关联了该权限标识即有权限
+     */
+    public boolean hasPermission(Long userId, String orgId, String perm) {
+        if (userId == null || orgId == null || perm == null) {
+            return false;
+        }
+        Integer permId = permIds.get(perm);
+        return permId != null && hasPermission(userId, orgId, permId);
+    }
+
+    /**
+     * 按权限编号校验（一次位测试）
+     * @param permId {@link #internPermission(String)} 返回的编号
+     */
+    public boolean hasPermission(Long userId, String orgId, int permId) {
+        if (userId == null || orgId == null) {
+            return false;
+        }
+        Index current = index;
+        if (!current.orgsWithRoles.contains(orgId)) {
+            return false;
+        }
+        return userBits(current, userId).get(permId);
+    }
+
+    /**
+     * 驻留权限标识，返回进程内编号（同一标识始终返回同一编号）
+     */
+    public int internPermission(String perm) {
+        Integer id = permIds.get(perm);
+        if (id != null) {
+            return id;
+        }
+        return permIds.computeIfAbsent(perm, k -> {
+            int newId = nextPermId.getAndIncrement();
+            permNames.put(newId, k);
+            return newId;
+        });
+    }
+
+    /**
+     * 编号对应的权限标识（未驻留的编号返回null）
+     */
+    public String permissionName(int permId) {
+        return permNames.get(permId);
+    }
+
+    /**
+     * 权限标识是否存在于菜单表（以最近一次重建为准）
+     */
+    public boolean isKnownPermission(String perm) {
+        return index.knownPerms.contains(perm);
+    }
+
+    /**
+     * 用户权限位图（启用角色位图的并集），首次使用时计算并缓存，角色或用户变更时失效
+     */
+    private BitSet userBits(Index current, Long userId) {
+        BitSet bits = current.userBits.get(userId);
+        if (bits != null) {
+            return bits;
+        }
+        long generation = current.generation.get();
+        bits = new BitSet();
+        String[] roleIds = current.userRoles.get(userId);
+        if (roleIds != null) {
+            for (String roleId : roleIds) {
+                RoleEntry role = current.roles.get(roleId);
+                if (role != null && role.enabled) {
+                    bits.or(role.bits);
+                }
+            }
+        }
+        // 计算期间发生了修补则不缓存，避免旧数据算出的位图覆盖修补结果
+        current.putIfUnchanged(current.userBits, userId, bits, generation);
+        return bits;
+    }
+
+    /**
+     * 用户启用角色的权限标识并集
+     */
+    public Set<String> getPermissions(Long userId) {
+        return getPermissions(index, userId);
+    }
+
+    private static Set<String> getPermissions(Index current, Long userId) {
+        String[] roleIds = current.userRoles.get(userId);
+        if (roleIds == null) {
+            return Collections.emptySet();
+        }
+        Set<String> perms = new HashSet<>();
+        for (String roleId : roleIds) {
+            RoleEntry role = current.roles.get(roleId);
+            if (role != null && role.enabled) {
+                perms.addAll(role.perms);
+            }
+        }
+        return perms;
+    }
+
+    /**
+     * 用户在指定机构下的有效权限集合（机构未绑定任何角色时为空），与 {@link #hasPermission} 判定一致
+     */
+    public Set<String> getEffectivePermissions(Long userId, String orgId) {
+        if (userId == null || orgId == null || !index.orgsWithRoles.contains(orgId)) {
+            return Collections.emptySet();
+        }
+        return getPermissions(userId);
+    }
+
+    /**
+     * 用户在指定机构下的权限版本：有效权限集合排序后的CRC32，集合不变则版本不变
+     * 首次使用时计算并缓存，角色或用户变更时失效，校验Token权限是否过期时为纯内存查找
+     */
+    public String getPermissionVersion(Long userId, String orgId) {
+        if (userId == null || orgId == null) {
+            return EMPTY_PERMISSION_VERSION;
+        }
+        Index current = index;
+        if (!current.orgsWithRoles.contains(orgId)) {
+            return EMPTY_PERMISSION_VERSION;
+        }
+        String version = current.userVersions.get(userId);
+        if (version != null) {
+            return version;
+        }
+        long generation = current.generation.get();
+        version = versionOf(getPermissions(current, userId));
+        current.putIfUnchanged(current.userVersions, userId, version, generation);
+        return version;
+    }
+
+    /**
+     * 权限集合的版本（与顺序、进程无关）
+     */
+    public static String versionOf(Collection<String> perms) {
+        if (perms == null || perms.isEmpty()) {
+            return EMPTY_PERMISSION_VERSION;
+        }
+        CRC32 crc = new CRC32();
+        for (String perm : new TreeSet<>(perms)) {
+            crc.update(perm.getBytes(StandardCharsets.UTF_8));
+            crc.update('\n');
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * 用户角色分配变更（事务提交后修补该用户）
+     */
+    public void onUserRolesChanged(Long userId) {
+        TransactionUtil.afterCommit(() -> {
+            synchronized (this) {
+                patchUser(index, userId);
+            }
+            publishChange();
+        });
+    }
+
+    /**
+     * 角色新增/编辑/删除、状态切换、菜单权限分配（事务提交后修补该角色）
+     */
+    public void onRoleChanged(String roleId) {
+        TransactionUtil.afterCommit(() -> {
+            synchronized (this) {
+                patchRole(index, roleId);
+            }
+            publishChange();
+        });
+    }
+
+    /**
+     * 机构角色绑定变更（事务提交后修补该机构）
+     */
+    public void onOrgRolesChanged(String orgId) {
+        TransactionUtil.afterCommit(() -> {
+            synchronized (this) {
+                patchOrg(index, orgId);
+            }
+            publishChange();
+        });
+    }
+
+    /**
+     * 菜单变更等影响面较大的变更（事务提交后整体重建，并重新加载权限字典）
+     */
+    public void invalidate() {
+        TransactionUtil.afterCommit(() -> {
+            permissionDictionary.reload();
+            rebuild();
+            publishChange();
+        });
+    }
+
+    /**
+     * 整体重建（5次全表查询，仅启动、菜单变更及其他节点变更时执行）
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Index rebuilt = new Index();
+        Map<String, String> interned = new HashMap<>();
+
+        Map<Long, List<String>> userRoleLists = new HashMap<>();
+        for (SysUserRole userRole : sysUserRoleMapper.selectList(null)) {
+            userRoleLists.computeIfAbsent(userRole.getUserId(), k -> new ArrayList<>()).add(userRole.getRoleId());
+        }
+        for (Map.Entry<Long, List<String>> entry : userRoleLists.entrySet()) {
+            rebuilt.userRoles.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+        }
+
+        for (SysOrgRole orgRole : sysOrgRoleMapper.selectList(new QueryWrapper<SysOrgRole>()
+                .select("DISTINCT org_id"))) {
+            rebuilt.orgsWithRoles.add(orgRole.getOrgId());
+        }
+
+        Map<Long, String> menuPerms = new HashMap<>();
+        for (SysMenu menu : sysMenuMapper.selectList(new QueryWrapper<SysMenu>()
+                .select("menu_id", "perms")
+                .isNotNull("perms")
+                .ne("perms", ""))) {
+            menuPerms.put(menu.getMenuId(), interned.computeIfAbsent(menu.getPerms(), k -> k));
+        }
+        rebuilt.knownPerms.addAll(interned.keySet());
+        Map<String, Set<String>> rolePerms = new HashMap<>();
+        for (SysRoleMenu roleMenu : sysRoleMenuMapper.selectList(null)) {
+            String perm = menuPerms.get(roleMenu.getMenuId());
+            if (perm != null) {
+                rolePerms.computeIfAbsent(roleMenu.getRoleId(), k -> new HashSet<>()).add(perm);
+            }
+        }
+        for (SysRole role : sysRoleMapper.selectList(new QueryWrapper<SysRole>()
+                .select("role_id", "status"))) {
+            Set<String> perms = rolePerms.get(role.getRoleId());
+            rebuilt.roles.put(role.getRoleId(), newRole(isEnabled(role),
+                    perms == null ? Collections.<String>emptySet() : perms));
+        }
+
+        index = rebuilt;
+        log.info("RBAC权限索引已重建：用户{}个，角色{}个，耗时{}ms", rebuilt.userRoles.size(), rebuilt.roles.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void patchUser(Index target, Long userId) {
+        List<SysUserRole> userRoles = sysUserRoleMapper.selectList(new LambdaQueryWrapper<SysUserRole>()
+                .eq(SysUserRole::getUserId, userId));
+        synchronized (target) {
+            if (userRoles.isEmpty()) {
+                target.userRoles.remove(userId);
+            } else {
+                String[] roleIds = new String[userRoles.size()];
+                for (int i = 0; i < roleIds.length; i++) {
+                    roleIds[i] = userRoles.get(i).getRoleId();
+                }
+                target.userRoles.put(userId, roleIds);
+            }
+            target.generation.incrementAndGet();
+            target.userBits.remove(userId);
+            target.userVersions.remove(userId);
+        }
+    }
+
+    private void patchRole(Index target, String roleId) {
+        SysRole role = sysRoleMapper.selectById(roleId);
+        RoleEntry entry = null;
+        if (role != null) {
+            List<String> perms = sysMenuMapper.selectPermsByRoleIds(Collections.singletonList(roleId));
+            entry = newRole(isEnabled(role), new HashSet<>(perms));
+        }
+        synchronized (target) {
+            if (entry == null) {
+                target.roles.remove(roleId);
+            } else {
+                target.roles.put(roleId, entry);
+            }
+            // 角色可能被多个用户持有，用户位图全部重新计算
+            target.generation.incrementAndGet();
+            target.userBits.clear();
+            target.userVersions.clear();
+        }
+    }
+
+    private RoleEntry newRole(boolean enabled, Set<String> perms) {
+        BitSet bits = new BitSet();
+        for (String perm : perms) {
+            bits.set(internPermission(perm));
+        }
+        return new RoleEntry(enabled, perms, bits);
+    }
+
+    private void patchOrg(Index target, String orgId) {
+        if (sysOrgRoleMapper.selectRoleIdsByOrgId(orgId).isEmpty()) {
+            target.orgsWithRoles.remove(orgId);
+        } else {
+            target.orgsWithRoles.add(orgId);
+        }
+    }
+
+    private static boolean isEnabled(SysRole role) {
+        return role.getStatus() != null && role.getStatus() == 1;
+    }
+
+    /**
+     * 递增版本号通知其他节点；若期间有其他节点的变更未应用（版本号跳跃），本节点整体重建
+     */
+    private void publishChange() {
+        try {
+            long version = incrVersion();
+            if (version != appliedVersion + 1) {
+                permissionDictionary.reload();
+                rebuild();
+            }
+            appliedVersion = version;
+        } catch (Exception e) {
+            // 通知失败时本节点已是最新，其他节点需等待下一次变更或重启
+            log.error("RBAC权限索引版本号递增失败", e);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            long version = readVersion();
+            if (version != appliedVersion) {
+                // 先记录版本号再重建：重建期间的新变更会在下一次检查时再次触发重建
+                appliedVersion = version;
+                permissionDictionary.reload();
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("RBAC权限索引版本检查失败", e);
+        }
+    }
+
+    private long readVersion() {
+        Long version = redisUtil.executeScript(VERSION_GET_SCRIPT, Collections.singletonList(VERSION_KEY));
+        return version == null ? 0 : version;
+    }
+
+    private long incrVersion() {
+        Long version = redisUtil.executeScript(VERSION_INCR_SCRIPT, Collections.singletonList(VERSION_KEY));
+        return version == null ? 0 : version;
+    }
+
+    public long getAppliedVersion() {
+        return appliedVersion;
+    }
+
+    /**
+     * 索引数据：整体重建时替换引用，局部修补时原地更新
+     * 修补（改数据、递增代数、清除用户缓存）与用户缓存的回填在同一把锁（索引对象本身）下进行，
+     * 回填时代数未变即说明计算期间没有修补，不会把旧数据算出的结果写回
+     */
+    private static final class Index {
+        private final Map<Long, String[]> userRoles = new ConcurrentHashMap<>();
+        private final Map<String, RoleEntry> roles = new ConcurrentHashMap<>();
+        private final Set<String> orgsWithRoles = ConcurrentHashMap.newKeySet();
+        private final Set<String> knownPerms = ConcurrentHashMap.newKeySet();
+        private final Map<Long, BitSet> userBits = new ConcurrentHashMap<>();
+        private final Map<Long, String> userVersions = new ConcurrentHashMap<>();
+        private final AtomicLong generation = new AtomicLong();
+
+        private synchronized <V> void putIfUnchanged(Map<Long, V> cache, Long userId, V value, long expectedGeneration) {
+            if (generation.get() == expectedGeneration) {
+                cache.put(userId, value);
+            }
+        }
+    }
+
+    private static final class RoleEntry {
+        private final boolean enabled;
+        private final Set<String> perms;
+        private final BitSet bits;
+
+        private RoleEntry(boolean enabled, Set<String> perms, BitSet bits) {
+            this.enabled = enabled;
+            this.perms = perms;
+            this.bits = bits;
+        }
+    }
+}
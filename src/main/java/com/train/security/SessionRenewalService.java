@@ -0,0 +1,202 @@
+package com.train.security;
+
+import com.train.util.RedisUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 会话（用户信息缓存）异步续期服务
+ * 1. 同一会话在续期窗口内最多续期一次（按本进程记录的上次续期时间判断）
+ * 2. 请求线程只负责入队，由后台线程定时批量 pipeline 发送 EXPIRE，请求线程不等待续期IO
+ * 3. 发送后的续期按入队顺序保存，只从队头清理超出窗口的记录，不遍历全部会话
+ * EXPIRE 对不存在的键无效果，已登出/已过期的会话不会被重新创建
+ */
+@Slf4j
+@Component
+public class SessionRenewalService {
+
+    @Resource
+    private RedisUtil redisUtil;
+
+    /**
+     * 会话有效期（秒），与登录时写入用户信息缓存的有效期一致
+     */
+    @Value("${jwt.expiration:3600}")
+    private long expiration = 3600;
+
+    /**
+     * 续期窗口（秒）：窗口内重复请求不再续期，须小于会话有效期
+     */
+    @Value("${jwt.renew.window-seconds:60}")
+    private long windowSeconds = 60;
+
+    /**
+     * 后台批量续期间隔（毫秒）
+     */
+    @Value("${jwt.renew.flush-interval-ms:500}")
+    private long flushIntervalMs = 500;
+
+    /**
+     * 单批最多发送的EXPIRE数量
+     */
+    @Value("${jwt.renew.batch-size:500}")
+    private int batchSize = 500;
+
+    /**
+     * key=用户信息缓存键，value=上次续期入队时间
+     */
+    private final Map<String, Long> lastRenewed = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Renewal> pending = new ConcurrentLinkedQueue<>();
+    /**
+     * 已发送的续期（按入队时间先后），用于清理 {@link #lastRenewed}
+     */
+    private final ConcurrentLinkedQueue<Renewal> renewed = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong requestedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong flushedCount = new AtomicLong();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        if (windowSeconds >= expiration) {
+            windowSeconds = Math.max(1, expiration / 2);
+            log.warn("续期窗口不小于会话有效期，已调整为{}秒", windowSeconds);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "session-renewal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 停机前把已入队的续期发送完，避免活跃会话因停机窗口过期
+        flushSafely();
+    }
+
+    /**
+     * 申请续期（非阻塞）
+     * @param userInfoKey 用户信息缓存键
+     * @return true=已入队，false=续期窗口内已续期，本次跳过
+     */
+    public boolean requestRenewal(String userInfoKey) {
+        requestedCount.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long windowMs = windowSeconds * 1000;
+        boolean[] accepted = new boolean[1];
+        lastRenewed.compute(userInfoKey, (key, last) -> {
+            if (last != null && now - last < windowMs) {
+                return last;
+            }
+            accepted[0] = true;
+            return now;
+        });
+        if (!accepted[0]) {
+            throttledCount.incrementAndGet();
+            return false;
+        }
+        pending.offer(new Renewal(userInfoKey, now));
+        return true;
+    }
+
+    /**
+     * 批量发送已入队的续期
+     */
+    public void flush() {
+        List<String> batch = new ArrayList<>(Math.min(batchSize, 64));
+        Renewal renewal;
+        while ((renewal = pending.poll()) != null) {
+            batch.add(renewal.key);
+            renewed.offer(renewal);
+            if (batch.size() >= batchSize) {
+                redisUtil.expireBatch(batch, expiration, TimeUnit.SECONDS);
+                flushedCount.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            redisUtil.expireBatch(batch, expiration, TimeUnit.SECONDS);
+            flushedCount.addAndGet(batch.size());
+        }
+        evictStale();
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // 续期失败只影响会话有效期，下一个窗口会再次续期
+            log.error("会话批量续期失败", e);
+        }
+    }
+
+    /**
+     * 清理超过续期窗口的记录，控制内存占用（窗口外的会话下次请求会重新入队）
+     * 只检查队头，遇到窗口内的记录即停止；记录已被重新续期时保留新值
+     */
+    private void evictStale() {
+        long threshold = System.currentTimeMillis() - windowSeconds * 1000;
+        Renewal renewal;
+        while ((renewal = renewed.peek()) != null && renewal.renewedAt < threshold) {
+            renewed.poll();
+            lastRenewed.remove(renewal.key, renewal.renewedAt);
+        }
+    }
+
+    public long getRequestedCount() {
+        return requestedCount.get();
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public int getPendingSize() {
+        return pending.size();
+    }
+
+    public int getTrackedSize() {
+        return lastRenewed.size();
+    }
+
+    private static final class Renewal {
+        private final String key;
+        private final long renewedAt;
+
+        private Renewal(String key, long renewedAt) {
+            this.key = key;
+            this.renewedAt = renewedAt;
+        }
+    }
+}
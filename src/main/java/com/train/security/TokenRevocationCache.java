@@ -0,0 +1,197 @@
+package com.train.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token吊销状态本地近缓存
+ * 1. 已吊销的Token缓存到其过期为止（吊销不可逆，不存在过期数据问题）
+ * 2. 未吊销的结果只缓存 negative-ttl 毫秒，即本地判断最多落后Redis该时长（有界陈旧）
+ * 3. 登出时经Redis发布订阅广播，各节点毫秒级感知
+ * 读写不加全局锁；容量超出上限时由一个线程近似淘汰：先清理过期条目，仍超出时优先淘汰未吊销条目
+ * 命中、未命中、淘汰次数与条目数注册为 Micrometer 指标
+ */
+@Slf4j
+@Component
+public class TokenRevocationCache implements MessageListener, MeterBinder {
+
+    /**
+     * 吊销广播频道
+     */
+    public static final String REVOKED_CHANNEL = "token:revoked";
+
+    /**
+     * 最大缓存条目数
+     */
+    @Value("${jwt.revocation-cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    /**
+     * 未吊销结果的缓存时长（毫秒），即允许的最大陈旧时间，0表示不缓存未吊销结果
+     */
+    @Value("${jwt.revocation-cache.negative-ttl-ms:1000}")
+    private long negativeTtlMs = 1000;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * key=Token摘要，value=[是否吊销, 条目失效时间戳]
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>(256);
+
+    /**
+     * 正在淘汰（同一时间只有一个线程淘汰，其他线程直接返回）
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * 查询本地吊销状态
+     * @param tokenKey Token摘要
+     * @return TRUE=已吊销，FALSE=近期确认未吊销，null=本地无有效记录需查Redis
+     */
+    public Boolean lookup(String tokenKey) {
+        Entry entry = entries.get(tokenKey);
+        if (entry != null) {
+            if (entry.expireAt > System.currentTimeMillis()) {
+                hitCount.incrementAndGet();
+                return entry.revoked;
+            }
+            entries.remove(tokenKey, entry);
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * 记录已吊销（缓存到Token过期为止）
+     */
+    public void markRevoked(String tokenKey, long expireAtMillis) {
+        entries.put(tokenKey, new Entry(true, expireAtMillis));
+        evictIfFull();
+    }
+
+    /**
+     * 记录Redis确认未吊销（仅缓存 negative-ttl 毫秒）
+     */
+    public void markNotRevoked(String tokenKey) {
+        if (negativeTtlMs <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Entry notRevoked = new Entry(false, now + negativeTtlMs);
+        // 已吊销且未过期的记录不能被覆盖
+        entries.compute(tokenKey, (key, old) -> old != null && old.revoked && old.expireAt > now ? old : notRevoked);
+        evictIfFull();
+    }
+
+    private void evictIfFull() {
+        if (entries.size() <= maxSize || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            // 第一轮清理过期条目，第二轮淘汰未吊销条目（代价只是多查一次Redis），最后才淘汰已吊销条目
+            for (int round = 0; round < 3 && entries.size() > maxSize; round++) {
+                Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+                while (iterator.hasNext() && entries.size() > maxSize) {
+                    Entry entry = iterator.next().getValue();
+                    boolean evict = round == 0 ? entry.expireAt <= now : round == 2 || !entry.revoked;
+                    if (evict) {
+                        iterator.remove();
+                        evictionCount.incrementAndGet();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("token.revocation.cache.lookups", hitCount, AtomicLong::get)
+                .tag("result", "hit").description("Token吊销状态本地命中次数").register(registry);
+        FunctionCounter.builder("token.revocation.cache.lookups", missCount, AtomicLong::get)
+                .tag("result", "miss").description("Token吊销状态本地未命中次数").register(registry);
+        FunctionCounter.builder("token.revocation.cache.evictions", evictionCount, AtomicLong::get)
+                .description("Token吊销缓存淘汰条目数").register(registry);
+        Gauge.builder("token.revocation.cache.size", entries, Map::size)
+                .description("Token吊销缓存条目数").register(registry);
+    }
+
+    /**
+     * 构建广播消息：Token摘要|过期时间戳
+     */
+    public static String buildMessage(String tokenKey, long expireAtMillis) {
+        return tokenKey + "|" + expireAtMillis;
+    }
+
+    /**
+     * 接收其他节点（含本节点）的吊销广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int idx = body.lastIndexOf('|');
+        if (idx <= 0) {
+            log.warn("忽略格式错误的Token吊销广播：{}", body);
+            return;
+        }
+        try {
+            markRevoked(body.substring(0, idx), Long.parseLong(body.substring(idx + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的Token吊销广播：{}", body);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 命中率（无访问时为0）
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static final class Entry {
+        private final boolean revoked;
+        private final long expireAt;
+
+        private Entry(boolean revoked, long expireAt) {
+            this.revoked = revoked;
+            this.expireAt = expireAt;
+        }
+    }
+}
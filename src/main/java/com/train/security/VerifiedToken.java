@@ -0,0 +1,266 @@
+package com.train.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 请求级已验签Token上下文
+ * 过滤器对Token只做一次签名校验与解析，结果挂在请求属性上，
+ * 后续的续期过滤器、权限切面等直接复用，不再重复解析JWT
+ */
+public final class VerifiedToken {
+
+    /**
+     * 请求属性名
+     */
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    /**
+     * 载荷字段：权限字典版本 / 权限位图
+     */
+    public static final String CLAIM_PERMISSION_VERSION = "pv";
+    public static final String CLAIM_PERMISSION_BITS = "pb";
+
+    /**
+     * 载荷字段：签发时用户的权限版本（仅信任Token权限模式下写入）
+     */
+    public static final String CLAIM_PERMISSION_STAMP = "ps";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * 原始Token（不含Bearer前缀）
+     */
+    private final String token;
+
+    /**
+     * 已验签的载荷
+     */
+    private final Claims claims;
+
+    /**
+     * 过期时间（未设置exp时为null）
+     */
+    private final Date expiration;
+
+    /**
+     * 由载荷构建的登录用户信息
+     */
+    private final JwtUserDetails userDetails;
+
+    /**
+     * 角色权限列表（只读）
+     */
+    private final List<GrantedAuthority> authorities;
+
+    /**
+     * 权限标识集合（只读）
+     */
+    private final Set<String> permissions;
+
+    /**
+     * Token携带的权限字典版本已不在保留的历史版本中，权限无法解码，需重新签发Token
+     */
+    private final boolean permissionsStale;
+
+    /**
+     * Token的SHA-256摘要（首次使用时计算）
+     */
+    private volatile String tokenHash;
+
+    public VerifiedToken(String token, Claims claims) {
+        this(token, claims, null);
+    }
+
+    /**
+     * @param permissions 由权限位图解码出的权限集合，为null时按旧Token的permissions明文列表读取
+     */
+    public VerifiedToken(String token, Claims claims, Set<String> permissions) {
+        this(token, claims, permissions, false);
+    }
+
+    /**
+     * @param permissionsStale 权限字典版本已过期（此时权限集合按空集处理）
+     */
+    public VerifiedToken(String token, Claims claims, Set<String> permissions, boolean permissionsStale) {
+        this.token = token;
+        this.claims = claims;
+        this.expiration = claims.getExpiration();
+        this.permissionsStale = permissionsStale;
+        if (permissionsStale) {
+            this.permissions = Collections.emptySet();
+        } else {
+            this.permissions = permissions != null ? permissions : legacyPermissions(claims);
+        }
+        this.userDetails = buildUserDetails(claims, this.permissions);
+        this.authorities = Collections.unmodifiableList(new ArrayList<>(userDetails.getAuthorities()));
+    }
+
+    /**
+     * 获取当前请求上已验签的Token（非Web线程或未认证时返回null）
+     */
+    public static VerifiedToken current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object value = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return value instanceof VerifiedToken ? (VerifiedToken) value : null;
+    }
+
+    /**
+     * 从指定请求中获取已验签的Token
+     */
+    public static VerifiedToken from(HttpServletRequest request) {
+        Object value = request.getAttribute(REQUEST_ATTRIBUTE);
+        return value instanceof VerifiedToken ? (VerifiedToken) value : null;
+    }
+
+    /**
+     * 绑定到请求属性
+     */
+    public void bindTo(HttpServletRequest request) {
+        request.setAttribute(REQUEST_ATTRIBUTE, this);
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public Date getExpiration() {
+        return expiration;
+    }
+
+    public JwtUserDetails getUserDetails() {
+        return userDetails;
+    }
+
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public Set<String> getPermissions() {
+        return permissions;
+    }
+
+    public boolean isPermissionsStale() {
+        return permissionsStale;
+    }
+
+    /**
+     * 签发时的权限版本，未写入时返回null
+     */
+    public String getPermissionStamp() {
+        return claims.get(CLAIM_PERMISSION_STAMP, String.class);
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+
+    /**
+     * 剩余有效时间（秒），未设置过期时间返回0
+     */
+    public long getRemainingSeconds() {
+        if (expiration == null) {
+            return 0;
+        }
+        return Math.max(0, (expiration.getTime() - System.currentTimeMillis()) / 1000);
+    }
+
+    /**
+     * Token的SHA-256十六进制摘要
+     */
+    public String getTokenHash() {
+        String hash = tokenHash;
+        if (hash == null) {
+            hash = sha256Hex(token);
+            tokenHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * 会话ID（Redis会话键、黑名单键的后缀）：jti，旧Token无jti时为Token摘要
+     */
+    public String getSessionId() {
+        String jti = claims.getId();
+        return jti != null ? jti : getTokenHash();
+    }
+
+    /**
+     * 是否为未携带jti的旧Token（其Redis键可能仍以完整Token为后缀）
+     */
+    public boolean isLegacy() {
+        return claims.getId() == null;
+    }
+
+    /**
+     * Token末尾10位（用于日志，避免打印完整Token）
+     */
+    public String getTokenSuffix() {
+        return token.substring(Math.max(0, token.length() - 10));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> legacyPermissions(Claims claims) {
+        List<String> permissionList = claims.get("permissions", List.class);
+        if (permissionList == null || permissionList.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(permissionList));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JwtUserDetails buildUserDetails(Claims claims, Set<String> permissions) {
+        List<String> authorityStrList = claims.get("authorities", List.class);
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (authorityStrList != null) {
+            for (String authorityStr : authorityStrList) {
+                authorities.add(new SimpleGrantedAuthority(authorityStr));
+            }
+        }
+        JwtUserDetails userDetails = new JwtUserDetails();
+        userDetails.setUserId(claims.get("userId", Long.class));
+        userDetails.setAccount(claims.get("account", String.class));
+        userDetails.setUserName(claims.get("userName", String.class));
+        userDetails.setOrgId(claims.get("orgId", String.class));
+        userDetails.setIsSysAdmin(claims.get("isSysAdmin", Integer.class));
+        userDetails.setAuthorities(authorities);
+        userDetails.setPermissions(new ArrayList<>(permissions));
+        userDetails.setStatus(1);
+        return userDetails;
+    }
+
+    public static String sha256Hex(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            char[] chars = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                chars[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                chars[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
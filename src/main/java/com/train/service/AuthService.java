@@ -12,4 +12,19 @@ public interface AuthService {
      * @return 退出结果
      */
     Result<?> logout(String token);
+
+    /**
+     * 用户退出（无状态模式同时作废刷新令牌）
+     * @param token 访问令牌
+     * @param refreshToken 刷新令牌，可为空
+     * @return 退出结果
+     */
+    Result<?> logout(String token, String refreshToken);
+
+    /**
+     * 使用刷新令牌换取新的访问令牌与刷新令牌（仅无状态模式）
+     * @param refreshToken 刷新令牌
+     * @return 新令牌信息
+     */
+    Result<Map<String, Object>> refresh(String refreshToken);
 }
\ No newline at end of file
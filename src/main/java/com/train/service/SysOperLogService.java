@@ -1,11 +1,37 @@
 package com.train.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.train.dto.SysOperLogPage;
 import com.train.dto.SysOperLogQuery;
 import com.train.entity.SysOperLog;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
 
 public interface SysOperLogService  extends IService<SysOperLog> {
-    List<SysOperLog> selectForExport(SysOperLogQuery query);
+
+    /**
+     * 键集分页查询操作日志
+     * @param query 筛选条件与上一页末行 (afterOperTime, afterLogId)
+     * @return 本页数据、下一页游标与总数（默认估算值，exactCount=true时精确统计）
+     */
+    SysOperLogPage searchLogs(SysOperLogQuery query);
+
+    /**
+     * 流式导出操作日志为CSV（游标逐行读取，边读边写入输出流，内存占用与行数无关；定期推送，客户端断开时尽早中止）
+     * @param query 筛选条件
+     * @param out 输出流
+     * @param exportId 导出任务标识（可为空），用于中途取消
+     * @param ownerId 发起导出的用户ID，只有该用户可以取消
+     * @return 导出行数
+     * @throws IOException 写出失败（如客户端已断开）；被取消时抛出 {@link java.io.InterruptedIOException}
+     */
+    long exportCsv(SysOperLogQuery query, OutputStream out, String exportId, Long ownerId) throws IOException;
+
+    /**
+     * 取消进行中的导出
+     * @param userId 当前用户ID，须与发起导出的用户一致
+     * @return true=已找到并标记取消；任务不存在、已结束或不属于当前用户时返回false
+     */
+    boolean cancelExport(String exportId, Long userId);
 }
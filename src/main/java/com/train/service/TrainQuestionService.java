@@ -9,8 +9,8 @@ import com.train.security.JwtUserDetails;
 import com.train.util.Result;
 
 public interface TrainQuestionService extends IService<TrainQuestion> {
-    Result<TrainRandomQuestionOutDTO> selectRandomQuestions(String orgId, int randomNum);
-    Result<TrainRandomQuestionOutDTO> reRandomQuestions(String paperId, String orgId, Integer randomNum);
+    Result<TrainRandomQuestionOutDTO> selectRandomQuestions(String orgId, Long userId, int randomNum);
+    Result<TrainRandomQuestionOutDTO> reRandomQuestions(String paperId, String orgId, Long userId, Integer randomNum);
 
     Result<TrainJudgeQuestionDTO> judge(JwtUserDetails orgId, TrainJudgeQuestionQuery trainJudgeQuestionQuery);
 
@@ -1,18 +1,15 @@
 package com.train.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.train.constant.Constants;
+import com.train.constant.ResultConstant;
 import com.train.dto.UserInfoDTO;
-import com.train.entity.SysMenu;
-import com.train.entity.SysRoleMenu;
 import com.train.entity.SysUser;
-import com.train.entity.SysUserRole;
 import com.train.mapper.SysUserMapper;
+import com.train.security.CustomUserDetailsService;
 import com.train.security.JwtUserDetails;
+import com.train.security.LoginAttemptLimiter;
+import com.train.security.VerifiedToken;
 import com.train.service.AuthService;
-import com.train.service.ISysMenuService;
-import com.train.service.SysRoleMenuService;
-import com.train.service.SysUserRoleService;
 import com.train.util.AESUtil;
 import com.train.util.JwtTokenUtil;
 import com.train.util.RedisUtil;
@@ -28,7 +25,7 @@ import org.springframework.stereotype.Service;
 import javax.annotation.Resource;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 /**
  * 认证授权业务实现类（修正优化版，兼容同账号不同机构）
@@ -50,26 +47,18 @@ public class AuthServiceImpl implements AuthService {
     private SysUserMapper sysUserMapper;
 
     @Resource
-    private SysRoleMenuService sysRoleMenuService;
+    private LoginAttemptLimiter loginAttemptLimiter;
 
     @Resource
-    private SysUserRoleService sysUserRoleService;
-
-    @Resource
-    private ISysMenuService sysMenuService;
-
+    private CustomUserDetailsService customUserDetailsService;
 
 
     // 密码错误次数前缀
     private static final String LOGIN_ERROR_COUNT_PREFIX = "login:error:count:";
-    // 密码错误时间前缀
-    private static final String LOGIN_ERROR_TIME_PREFIX = "login:error:time:";
-    // 锁定时间（1小时）
-    private static final int LOCK_DURATION = 3600;
-    // 最大错误次数
-    private static final int MAX_ERROR_COUNT = 5;
-    // 提示次数
+    // 提示次数（锁定次数与锁定时长见 LoginAttemptLimiter）
     private static final int WARNING_COUNT = 4;
+    // Redis键名组成部分允许的字符
+    private static final Pattern REDIS_KEY_PART_PATTERN = Pattern.compile("^[a-zA-Z0-9_@.-]+$");
 
     /**
      * 构建Redis键名，防止键名注入
@@ -80,7 +69,7 @@ public class AuthServiceImpl implements AuthService {
             throw new IllegalArgumentException("Account and orgId cannot be null");
         }
         // 更严格的验证：只允许字母数字下划线点和@符号
-        if (!account.matches("^[a-zA-Z0-9_@.-]+$") || !orgId.matches("^[a-zA-Z0-9_@.-]+$")) {
+        if (!REDIS_KEY_PART_PATTERN.matcher(account).matches() || !REDIS_KEY_PART_PATTERN.matcher(orgId).matches()) {
             throw new IllegalArgumentException("Invalid characters in account or orgId");
         }
         return prefix + account + ":" + orgId;
@@ -93,20 +82,6 @@ public class AuthServiceImpl implements AuthService {
         return buildRedisKey("user:locked:", account, orgId);
     }
 
-    /**
-     * 构建用户信息键名
-     */
-    private String buildUserInfoKey(String token) {
-        return "user:info:" + token;
-    }
-
-    /**
-     * 构建Token黑名单键名
-     */
-    private String buildBlacklistKey(String token) {
-        return "token:invalid:" + token;
-    }
-
     /**
      * 构建错误计数键名
      */
@@ -114,13 +89,6 @@ public class AuthServiceImpl implements AuthService {
         return LOGIN_ERROR_COUNT_PREFIX + uniqueUsername;
     }
 
-    /**
-     * 构建错误时间键名
-     */
-    private String buildErrorTimeKey(String uniqueUsername) {
-        return LOGIN_ERROR_TIME_PREFIX + uniqueUsername;
-    }
-
     /**
      * 带机构ID登录（核心方法，支持同账号不同机构区分）
      */
@@ -144,9 +112,9 @@ public class AuthServiceImpl implements AuthService {
             return Result.error("账户名或密码长度超出限制（账户最多50位，密码最多100位）");
         }
 
-        // 检查用户是否被锁定
+        // 检查用户是否被锁定（已锁定账号优先命中本地缓存，不再访问数据库与密码校验）
         String lockKey = buildLockKey(account, orgId);
-        if (redisUtil.hasKey(lockKey)) {
+        if (loginAttemptLimiter.isLocked(lockKey)) {
             return Result.error("本账号已锁定，请联系管理员重置密码");
         }
 
@@ -202,65 +170,35 @@ public class AuthServiceImpl implements AuthService {
                     new UsernamePasswordAuthenticationToken(uniqueUsername, decryptedPassword);
             Authentication authentication = authenticationManager.authenticate(authenticationToken);
             JwtUserDetails userDetails = (JwtUserDetails) authentication.getPrincipal();
-            String token = jwtTokenUtil.generateToken(userDetails);
-
-            // 关键：使用JwtTokenUtil的方法构建用户信息Key，并设置过期时间与JWT一致
-            String userInfoKey = jwtTokenUtil.buildUserInfoKey(token);
-            redisUtil.set(userInfoKey, userDetails, jwtTokenUtil.getExpiration(), TimeUnit.SECONDS);
 
-            Map<String, Object> resultMap = new HashMap<>(4);
-            resultMap.put("accessToken", token);
-            resultMap.put("tokenType", "Bearer");
-            resultMap.put("expiresIn", jwtTokenUtil.getExpiration());
+            Map<String, Object> resultMap = issueTokens(userDetails);
             UserInfoDTO userInfo = new UserInfoDTO(userDetails);
-            List<String> permissions = getUserPermissions(userDetails.getUserId());
-            userInfo.setPermissions(permissions);
+            // 权限标识已在认证时随用户信息一次查出，无需再查询
+            userInfo.setPermissions(userDetails.getPermissions());
             resultMap.put("userInfo", userInfo);
 
             // 清除错误次数
-            String errorCountKey = buildErrorCountKey(uniqueUsername);
-            String errorTimeKey = buildErrorTimeKey(uniqueUsername);
-            redisUtil.delete(errorCountKey);
-            redisUtil.delete(errorTimeKey);
+            redisUtil.delete(buildErrorCountKey(uniqueUsername));
             return Result.success("登录成功", resultMap);
         } catch (AuthenticationException e) {
             // 认证失败：密码错误、用户禁用等
             String uniqueUsername = account + "@" + orgId;
             String errorCountKey = buildErrorCountKey(uniqueUsername);
-            String errorTimeKey = buildErrorTimeKey(uniqueUsername);
-
-            // 获取当前错误次数
-            Object countObj = redisUtil.get(errorCountKey);
-            int errorCount = countObj != null ? (Integer) countObj : 0;
-            errorCount++;
-
-            // 设置错误时间（如果还没有设置）
-            if (!redisUtil.hasKey(errorTimeKey)) {
-                redisUtil.set(errorTimeKey, System.currentTimeMillis(), LOCK_DURATION, TimeUnit.SECONDS);
-            }
-
-            // 更新错误次数
-            redisUtil.set(errorCountKey, errorCount, LOCK_DURATION, TimeUnit.SECONDS);
 
-            // 检查是否需要锁定用户 - 超级管理员不受限制
-            SysUser user = sysUserMapper.selectOne(new QueryWrapper<SysUser>()
-                    .eq("account", account)
-                    .eq("org_id", orgId)
-            );
+            // 超级管理员不受锁定限制（名单本地缓存，不逐次查库）
+            boolean sysAdmin = loginAttemptLimiter.isSysAdmin(account, orgId);
+            // 计数 + 窗口过期 + 锁定 一次原子完成
+            long errorCount = loginAttemptLimiter.recordFailure(errorCountKey, lockKey, sysAdmin);
 
             // 如果是超级管理员，不执行锁定逻辑
-            if (user != null && user.getIsSysAdmin() != null && user.getIsSysAdmin() == 1) {
+            if (sysAdmin) {
                 // 超级管理员不锁定，但记录错误次数
                 logger.warn("超级管理员登录失败: {}@{} 错误次数: {}", account, orgId, errorCount);
                 return Result.error("账户名、密码错误，或用户已被禁用");
             }
 
-            // 检查是否需要锁定用户
-            if (errorCount >= MAX_ERROR_COUNT) {
-                // 锁定用户1小时
-                String lockKeyToSet = buildLockKey(account, orgId.toString());
-                redisUtil.set(lockKeyToSet, "locked", (long) LOCK_DURATION, TimeUnit.SECONDS);
-                redisUtil.delete(errorCountKey); // 清除错误计数
+            // 检查是否已锁定用户
+            if (loginAttemptLimiter.isLockedBy(errorCount, false)) {
                 logger.info("用户被锁定: {}@{}", account, orgId);
                 return Result.error("本账号已锁定，请联系管理员重置密码");
             } else if (errorCount == WARNING_COUNT) {
@@ -276,58 +214,79 @@ public class AuthServiceImpl implements AuthService {
             return Result.error("登录失败，请联系管理员");
         }
     }
-     /**
-     * 获取用户的所有权限标识
+    /**
+     * 签发令牌
+     * 会话模式：无exp的Token + Redis用户信息缓存（有效期即会话有效期）
+     * 无状态模式：短期访问令牌 + 刷新令牌，不写入用户信息缓存
      */
-    private List<String> getUserPermissions(Long userId) {
-        // 通过用户ID查询关联的角色
-        List<SysUserRole> userRoles = sysUserRoleService.list(
-                new QueryWrapper<SysUserRole>().eq("user_id", userId)
-        );
-
-        if (userRoles.isEmpty()) {
-            return Collections.emptyList(); // 修复：使用 Collections.emptyList()
+    private Map<String, Object> issueTokens(JwtUserDetails userDetails) {
+        Map<String, Object> resultMap = new HashMap<>(8);
+        resultMap.put("tokenType", "Bearer");
+        if (jwtTokenUtil.isStateless()) {
+            long epoch = jwtTokenUtil.getUserEpoch(userDetails.getUserId());
+            resultMap.put("accessToken", jwtTokenUtil.generateAccessToken(userDetails, epoch));
+            resultMap.put("expiresIn", jwtTokenUtil.getAccessTtlSeconds());
+            resultMap.put("refreshToken", jwtTokenUtil.generateRefreshToken(userDetails, epoch));
+            resultMap.put("refreshExpiresIn", jwtTokenUtil.getRefreshTtlSeconds());
+            return resultMap;
         }
+        String token = jwtTokenUtil.generateToken(userDetails);
+        // 关键：使用JwtTokenUtil的方法构建用户信息Key，并设置过期时间与JWT一致
+        String userInfoKey = jwtTokenUtil.buildUserInfoKey(token);
+        redisUtil.set(userInfoKey, userDetails, jwtTokenUtil.getExpiration(), TimeUnit.SECONDS);
+        resultMap.put("accessToken", token);
+        resultMap.put("expiresIn", jwtTokenUtil.getExpiration());
+        return resultMap;
+    }
 
-        List<String> roleIds = userRoles.stream()
-                .map(SysUserRole::getRoleId)
-                .collect(Collectors.toList());
-
-        // 查询角色关联的菜单权限
-        List<SysRoleMenu> roleMenus = sysRoleMenuService.list(
-                new QueryWrapper<SysRoleMenu>().in("role_id", roleIds)
-        );
-
-        if (roleMenus.isEmpty()) {
-            return Collections.emptyList(); // 修复：使用 Collections.emptyList()
+    /**
+     * 刷新令牌：校验签名与有效期 → 作废旧刷新令牌并校验吊销纪元 → 重新加载用户（获取最新权限与状态）→ 签发新令牌
+     */
+    @Override
+    public Result<Map<String, Object>> refresh(String refreshToken) {
+        if (!jwtTokenUtil.isStateless()) {
+            return Result.error("未启用无状态令牌模式，无需刷新");
+        }
+        if (refreshToken == null || refreshToken.trim().isEmpty()) {
+            return Result.error("刷新令牌不能为空");
+        }
+        try {
+            VerifiedToken verifiedToken = jwtTokenUtil.verifyRefreshToken(refreshToken);
+            if (verifiedToken == null) {
+                return Result.error(ResultConstant.UNAUTHORIZED_CODE, "刷新令牌无效或已过期，请重新登录");
+            }
+            if (jwtTokenUtil.rotateRefreshToken(verifiedToken) < 0) {
+                return Result.error(ResultConstant.UNAUTHORIZED_CODE, "刷新令牌已失效，请重新登录");
+            }
+            JwtUserDetails userDetails = (JwtUserDetails) customUserDetailsService
+                    .loadUserByUsername(verifiedToken.getClaims().getSubject());
+            if (!userDetails.isEnabled()) {
+                return Result.error("用户已被禁用，请联系管理员");
+            }
+            return Result.success("刷新成功", issueTokens(userDetails));
+        } catch (AuthenticationException e) {
+            return Result.error("用户不存在，请重新登录");
+        } catch (Exception e) {
+            logger.error("刷新令牌过程发生异常", e);
+            return Result.error("刷新令牌失败，请重新登录");
         }
-
-        List<Long> menuIds = roleMenus.stream()
-                .map(SysRoleMenu::getMenuId)
-                .collect(Collectors.toList());
-
-        // 查询具体的权限标识
-        List<SysMenu> menus = sysMenuService.list(
-                new QueryWrapper<SysMenu>()
-                        .in("menu_id", menuIds)
-                        .isNotNull("perms") // 确保权限标识不为null
-                        .ne("perms", "") // 确保权限标识不为空字符串
-        );
-
-        return menus.stream()
-                .map(SysMenu::getPerms)
-                .filter(Objects::nonNull) // 过滤null权限
-                .filter(perms -> !perms.trim().isEmpty()) // 过滤空字符串权限
-                .distinct() // 去除重复权限
-                .sorted() // 排序权限列表
-                .collect(Collectors.toList());
     }
 
-
-
     /**
      * 登出方法（加入Token黑名单，确保登出后令牌失效）
      */
+    @Override
+    public Result<?> logout(String token, String refreshToken) {
+        Result<?> result = logout(token);
+        if (refreshToken != null && !refreshToken.trim().isEmpty()) {
+            VerifiedToken verifiedRefreshToken = jwtTokenUtil.verifyRefreshToken(refreshToken);
+            if (verifiedRefreshToken != null) {
+                jwtTokenUtil.addTokenToBlacklist(verifiedRefreshToken);
+            }
+        }
+        return result;
+    }
+
     @Override
     public Result<?> logout(String token) {
         if (token == null || token.trim().isEmpty()) {
@@ -335,14 +294,16 @@ public class AuthServiceImpl implements AuthService {
         }
 
         try {
-            if (!jwtTokenUtil.isTokenValid(token)) {
+            // 只验签一次，黑名单与用户信息键复用解析结果
+            VerifiedToken verifiedToken = jwtTokenUtil.verify(token);
+            if (!jwtTokenUtil.isTokenValid(verifiedToken)) {
                 return Result.error("无效的Token，无需登出");
             }
 
             // 1. 加入黑名单
-            jwtTokenUtil.addTokenToBlacklist(token);
+            jwtTokenUtil.addTokenToBlacklist(verifiedToken);
             // 2. 删除Redis用户信息
-            String userInfoKey = jwtTokenUtil.buildUserInfoKey(token);
+            String userInfoKey = jwtTokenUtil.buildUserInfoKey(verifiedToken);
             redisUtil.delete(userInfoKey);
 
             return Result.success("退出登录成功");
@@ -352,25 +313,11 @@ public class AuthServiceImpl implements AuthService {
         }
     }
 
-    /**
-     * 将Token加入黑名单
-     */
-    private void addTokenToBlacklist(String token) {
-        // 计算Token剩余有效时间
-        long expirationTime = jwtTokenUtil.getExpirationFromToken(token).getTime() - System.currentTimeMillis();
-        if (expirationTime > 0) {
-            // 将Token存入Redis，设置过期时间为原Token的剩余有效时间
-            String blacklistKey = buildBlacklistKey(token);
-            redisUtil.set(blacklistKey, "invalid", expirationTime, TimeUnit.MILLISECONDS);
-        }
-    }
-
     /**
      * 检查Token是否在黑名单中
      */
     public boolean isTokenInBlacklist(String token) {
-        String blacklistKey = buildBlacklistKey(token);
-        return redisUtil.hasKey(blacklistKey);
+        return jwtTokenUtil.isTokenInBlacklist(token);
     }
 
     /**
@@ -402,18 +349,10 @@ public class AuthServiceImpl implements AuthService {
                 return Result.error("超级管理员不能被锁定或解锁");
             }
 
-            // 清除锁定状态
+            // 清除锁定状态与错误计数（含本节点锁定缓存；其他节点的缓存在有界时间内过期） - 使用统一的键名构建方法
             String lockKey = buildLockKey(user.getAccount(), orgId.toString());
-            if (redisUtil.hasKey(lockKey)) {
-                redisUtil.delete(lockKey);
-            }
-
-            // 清除错误计数 - 使用统一的键名构建方法
-            String uniqueUsername = user.getAccount() + "@" + orgId;
-            String errorCountKey = buildErrorCountKey(uniqueUsername);
-            String errorTimeKey = buildErrorTimeKey(uniqueUsername);
-            redisUtil.delete(errorCountKey);
-            redisUtil.delete(errorTimeKey);
+            String errorCountKey = buildErrorCountKey(user.getAccount() + "@" + orgId);
+            loginAttemptLimiter.unlock(lockKey, errorCountKey);
 
             logger.info("用户解锁成功: {}@{}", user.getAccount(), orgId);
             return Result.success("用户解锁成功");
@@ -431,17 +370,11 @@ public class AuthServiceImpl implements AuthService {
      */
     public boolean isUserLocked(String account, String orgId) {
         // 超级管理员不受锁定限制
-        SysUser user = sysUserMapper.selectOne(
-            new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<SysUser>()
-                .eq(SysUser::getAccount, account)
-                .eq(SysUser::getOrgId, orgId)
-        );
-
-        if (user != null && user.getIsSysAdmin() != null && user.getIsSysAdmin() == 1) {
+        if (loginAttemptLimiter.isSysAdmin(account, orgId)) {
             return false; // 超级管理员永远不被锁定
         }
 
         String lockKey = buildLockKey(account, orgId);
-        return redisUtil.hasKey(lockKey);
+        return loginAttemptLimiter.isLocked(lockKey);
     }
 }
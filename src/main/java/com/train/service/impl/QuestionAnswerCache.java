@@ -0,0 +1,276 @@
+package com.train.service.impl;
+
+import com.train.entity.TrainQuestion;
+import com.train.mapper.TrainQuestionMapper;
+import com.train.util.KaryotypeAnswer;
+import com.train.util.RedisUtil;
+import com.train.util.TransactionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 题目标准答案本地缓存（判分用，key=题目ID，value=编译后的核型答案，每道题只解析一次）
+ * 1. 一份试卷的答案一次取齐：已缓存的直接返回，未缓存的合并成一次 IN 查询，判分时最多访问一次数据库
+ * 2. 只缓存启用题目；题目答案修改或启停时调用 {@link #invalidate(Collection)}：本节点立即失效、事务提交后再次失效，
+ *    并递增Redis版本号
+ * 3. 其他节点按检查间隔比较版本号，变化时清空整个缓存；版本号读取失败时也清空，不使用无法确认的答案
+ * 4. 题目也可能不经过本服务修改（后台直接改库、导入脚本），后台线程按数据库检查间隔读取触发器维护的题库版本号
+ *    （train_question_version，按主键取一行），变化或读取失败时清空，因此缓存答案最多比数据库滞后一个数据库检查间隔；
+ *    判分请求不访问该版本号
+ */
+@Slf4j
+@Component
+public class QuestionAnswerCache {
+
+    /**
+     * 跨节点失效版本号键
+     */
+    private static final String VERSION_KEY = "train:question:answer_version";
+
+    private static final DefaultRedisScript<Long> VERSION_GET_SCRIPT = new DefaultRedisScript<>(
+            "return tonumber(redis.call('GET', KEYS[1]) or '0')", Long.class);
+    private static final DefaultRedisScript<Long> VERSION_INCR_SCRIPT = new DefaultRedisScript<>(
+            "return redis.call('INCR', KEYS[1])", Long.class);
+
+    @Resource
+    private TrainQuestionMapper trainQuestionMapper;
+    @Resource
+    private RedisUtil redisUtil;
+
+    /**
+     * 版本号检查间隔（毫秒），即其他节点修改答案后本节点生效的最大延迟
+     */
+    @Value("${train.question.answer-cache.version-check-ms:1000}")
+    private long versionCheckMs = 1000;
+
+    /**
+     * 数据库题库版本号检查间隔（毫秒），即直接改库后判分生效的最大延迟
+     */
+    @Value("${train.question.answer-cache.db-check-ms:30000}")
+    private long dbCheckMs = 30000;
+
+    /**
+     * key=题目ID，value=编译后的标准答案（答案为空时为 {@link KaryotypeAnswer#EMPTY}）
+     */
+    private final Map<Long, KaryotypeAnswer> answers = new ConcurrentHashMap<>();
+
+    /**
+     * 失效代数：查询期间发生失效则不回填
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile long appliedVersion = Long.MIN_VALUE;
+    private volatile long checkedAt;
+    private volatile Long appliedDbVersion;
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    private ScheduledExecutorService dbChecker;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong queryCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        dbChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "question-answer-db-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dbChecker.scheduleWithFixedDelay(this::checkDbVersion, 0, dbCheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (dbChecker != null) {
+            dbChecker.shutdownNow();
+        }
+    }
+
+    /**
+     * 批量取编译后的标准答案
+     * @return key=题目ID，value=标准答案；题目不存在或已禁用时不包含该ID
+     */
+    public Map<Long, KaryotypeAnswer> getAnswers(Collection<Long> questionIds) {
+        if (questionIds == null || questionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        checkVersion();
+        Map<Long, KaryotypeAnswer> result = new HashMap<>(questionIds.size() * 2);
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long questionId : questionIds) {
+            if (questionId == null || result.containsKey(questionId)) {
+                continue;
+            }
+            KaryotypeAnswer answer = answers.get(questionId);
+            if (answer != null) {
+                hitCount.incrementAndGet();
+                result.put(questionId, answer);
+            } else {
+                missing.add(questionId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        missCount.addAndGet(missing.size());
+        queryCount.incrementAndGet();
+        long loadGeneration = generation.get();
+        List<TrainQuestion> rows = trainQuestionMapper.selectAnswersByIds(new ArrayList<>(missing));
+        boolean fill = generation.get() == loadGeneration;
+        for (TrainQuestion row : rows) {
+            KaryotypeAnswer answer = KaryotypeAnswer.compile(row.getAnswer(), row.getNearMissMaxDistance(), row.getNearMissScore());
+            result.put(row.getQuestionId(), answer);
+            if (fill) {
+                answers.put(row.getQuestionId(), answer);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 题目答案或状态变更：立即失效，事务提交后再次失效并通知其他节点
+     */
+    public void invalidate(Collection<Long> questionIds) {
+        if (questionIds == null || questionIds.isEmpty()) {
+            return;
+        }
+        evict(questionIds);
+        TransactionUtil.afterCommit(() -> {
+            evict(questionIds);
+            publishChange();
+        });
+    }
+
+    /**
+     * 批量导入等影响范围不确定的变更：清空本节点缓存并通知其他节点
+     */
+    public void invalidateAll() {
+        clear();
+        TransactionUtil.afterCommit(() -> {
+            clear();
+            publishChange();
+        });
+    }
+
+    private void evict(Collection<Long> questionIds) {
+        generation.incrementAndGet();
+        for (Long questionId : questionIds) {
+            if (questionId != null && answers.remove(questionId) != null) {
+                invalidationCount.incrementAndGet();
+            }
+        }
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        invalidationCount.addAndGet(answers.size());
+        answers.clear();
+    }
+
+    /**
+     * 超过检查间隔时由一个线程比较Redis版本号，其他线程直接使用缓存
+     */
+    private void checkVersion() {
+        long now = System.currentTimeMillis();
+        if (now - checkedAt < versionCheckMs || !checking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long version = readVersion();
+            if (version != appliedVersion) {
+                clear();
+                appliedVersion = version;
+            }
+            checkedAt = now;
+        } catch (Exception e) {
+            log.warn("题目答案缓存版本检查失败，清空缓存", e);
+            clear();
+        } finally {
+            checking.set(false);
+        }
+    }
+
+    /**
+     * 后台线程定时执行：比较数据库题库版本号，变化或读取失败时清空
+     */
+    private void checkDbVersion() {
+        try {
+            Long version = trainQuestionMapper.selectAnswerVersion();
+            if (!Objects.equals(version, appliedDbVersion)) {
+                clear();
+                appliedDbVersion = version;
+            }
+        } catch (Exception e) {
+            log.warn("题库版本号检查失败，清空题目答案缓存", e);
+            clear();
+        }
+    }
+
+    /**
+     * 递增版本号；版本号跳跃说明期间有其他节点的变更未应用，清空本节点缓存
+     */
+    private void publishChange() {
+        try {
+            long version = incrVersion();
+            if (version != appliedVersion + 1) {
+                clear();
+            }
+            appliedVersion = version;
+        } catch (Exception e) {
+            log.error("题目答案缓存版本号递增失败，其他节点需等待下一次变更", e);
+        }
+    }
+
+    private long readVersion() {
+        Long version = redisUtil.executeScript(VERSION_GET_SCRIPT, Collections.singletonList(VERSION_KEY));
+        return version == null ? 0 : version;
+    }
+
+    private long incrVersion() {
+        Long version = redisUtil.executeScript(VERSION_INCR_SCRIPT, Collections.singletonList(VERSION_KEY));
+        return version == null ? 0 : version;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getQueryCount() {
+        return queryCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    public int size() {
+        return answers.size();
+    }
+}
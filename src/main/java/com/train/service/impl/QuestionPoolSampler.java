@@ -0,0 +1,361 @@
+package com.train.service.impl;
+
+import com.train.entity.TrainQuestion;
+import com.train.mapper.TrainQuestionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * 题库抽样器（替代 ORDER BY RANDOM() 全表扫描排序）
+ * 1. 每个机构的启用题目ID以 long[] 快照常驻内存，抽题时用 Floyd 算法在 O(k) 内抽出 k 个不重复ID，再按主键取题
+ * 2. 快照只读，刷新时整体替换（写时复制），抽题线程无需加锁
+ * 3. 支持按题目ID排除（重新抽题时排除旧试卷题目）与"尽量避开"条件（用户最近做过的题目）
+ * 4. 每隔 refresh-check-ms 用一条聚合查询比对题库版本（启用题目数:ID和），版本变化时重新加载；
+ *    题目增删改后也可调用 {@link #invalidate(String)} 立即失效
+ */
+@Slf4j
+@Component
+public class QuestionPoolSampler {
+
+    /**
+     * "尽量避开"条件最多拒绝的题目数，超过后不再避开（题库大部分已做过时避免反复补抽）
+     */
+    private static final int MAX_SOFT_REJECTS = 64;
+
+    @Resource
+    private TrainQuestionMapper trainQuestionMapper;
+
+    /**
+     * 题库版本检查间隔（毫秒）
+     */
+    @Value("${train.question.pool.refresh-check-ms:30000}")
+    private long refreshCheckMs = 30000;
+
+    /**
+     * key=机构ID，value=该机构启用题目ID快照
+     */
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong versionCheckCount = new AtomicLong();
+
+    /**
+     * 从多个机构的题库中随机抽取不重复题目（返回顺序随机）
+     * @param orgIds 机构ID列表（如系统机构+本机构）
+     * @param count 抽题数量，题库不足时返回全部
+     */
+    public List<TrainQuestion> sample(List<String> orgIds, int count) {
+        return sample(orgIds, count, Collections.<Long>emptyList(), null);
+    }
+
+    /**
+     * 带排除条件的抽题
+     * @param excludedIds 必须排除的题目ID（如上一份试卷的题目）
+     * @param recentlySeen 尽量避开的题目（如用户最近做过的题目），可为null；剩余题目不足时仍会选用
+     */
+    public List<TrainQuestion> sample(List<String> orgIds, int count, Collection<Long> excludedIds, LongPredicate recentlySeen) {
+        long[] ids = sampleIds(orgIds, count, excludedIds, recentlySeen);
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
+        List<TrainQuestion> questions = fetchInOrder(ids);
+        if (questions.size() < ids.length) {
+            // 快照中的题目已被删除或禁用：重新加载后再抽一次
+            log.info("题库快照已过期，重新加载，机构：{}", orgIds);
+            orgIds.forEach(this::invalidate);
+            questions = fetchInOrder(sampleIds(orgIds, count, excludedIds, recentlySeen));
+        }
+        return questions;
+    }
+
+    /**
+     * 抽取不重复的题目ID
+     */
+    public long[] sampleIds(List<String> orgIds, int count) {
+        return sampleIds(orgIds, count, Collections.<Long>emptyList(), null);
+    }
+
+    /**
+     * 抽取不重复的题目ID（带排除条件）
+     */
+    public long[] sampleIds(List<String> orgIds, int count, Collection<Long> excludedIds, LongPredicate recentlySeen) {
+        long[][] parts = new long[orgIds.size()][];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = getPool(orgIds.get(i)).ids;
+            total += parts[i].length;
+        }
+        return sample(parts, total, count, positionsOf(parts, excludedIds), recentlySeen, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Floyd 抽样：从 parts 拼接成的长度为 total 的虚拟数组中等概率抽取 k 个不同位置，只做 k 次随机数与集合判断；
+     * Floyd 只保证选中集合等概率，结果再做一次洗牌使顺序也随机
+     */
+    public static long[] floydSample(long[][] parts, int total, int k, Random random) {
+        return sample(parts, total, k, new int[0], null, random);
+    }
+
+    /**
+     * 带排除的抽样
+     * 1. 排除位置直接从抽样空间中去掉：在 total-排除数 个名次上做 Floyd 抽样，再把名次映射回跳过排除位置后的实际位置，
+     *    无需拒绝重抽，结果在剩余题目中等概率
+     * 2. 命中"尽量避开"条件的题目先放到备选中，并把其位置加入排除集合后补抽；拒绝次数超过上限或题目耗尽时用备选补足
+     * @param excludedPositions 已排序的排除位置
+     */
+    public static long[] sample(long[][] parts, int total, int k, int[] excludedPositions,
+                                LongPredicate softExcluded, Random random) {
+        k = Math.max(0, Math.min(k, total));
+        int[] excluded = Arrays.copyOf(excludedPositions, excludedPositions.length + k + MAX_SOFT_REJECTS);
+        int excludedCount = excludedPositions.length;
+        long[] result = new long[k];
+        int size = 0;
+        long[] deferred = new long[MAX_SOFT_REJECTS];
+        int deferredCount = 0;
+        while (size < k) {
+            int available = total - excludedCount;
+            if (available <= 0) {
+                break;
+            }
+            int[] ranks = floydRanks(available, Math.min(k - size, available), random);
+            // 先按本轮开始时的排除集合映射全部名次，再把本轮位置加入排除集合
+            int[] positions = new int[ranks.length];
+            for (int i = 0; i < ranks.length; i++) {
+                positions[i] = rankToPosition(ranks[i], excluded, excludedCount);
+            }
+            for (int position : positions) {
+                excludedCount = insertSorted(excluded, excludedCount, position);
+                long id = idAt(parts, position);
+                if (softExcluded != null && deferredCount < MAX_SOFT_REJECTS && softExcluded.test(id)) {
+                    deferred[deferredCount++] = id;
+                } else {
+                    result[size++] = id;
+                }
+            }
+            if (deferredCount >= MAX_SOFT_REJECTS) {
+                // 拒绝次数已达上限，之后不再避开
+                softExcluded = null;
+            }
+        }
+        for (int i = 0; i < deferredCount && size < k; i++) {
+            result[size++] = deferred[i];
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int swap = random.nextInt(i + 1);
+            long tmp = result[i];
+            result[i] = result[swap];
+            result[swap] = tmp;
+        }
+        return size == k ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Floyd 算法：从 [0, n) 中等概率抽取 k 个不同的数
+     */
+    private static int[] floydRanks(int n, int k, Random random) {
+        Set<Integer> chosen = new HashSet<>(k * 2);
+        int[] ranks = new int[k];
+        int size = 0;
+        for (int j = n - k; j < n; j++) {
+            int t = random.nextInt(j + 1);
+            int picked = chosen.add(t) ? t : j;
+            if (picked == j) {
+                chosen.add(j);
+            }
+            ranks[size++] = picked;
+        }
+        return ranks;
+    }
+
+    /**
+     * 第 rank 个未排除位置（excluded 前 count 个元素升序）
+     */
+    private static int rankToPosition(int rank, int[] excluded, int count) {
+        int position = rank;
+        for (int i = 0; i < count && excluded[i] <= position; i++) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int insertSorted(int[] array, int count, int value) {
+        int index = Arrays.binarySearch(array, 0, count, value);
+        if (index >= 0) {
+            return count;
+        }
+        index = -index - 1;
+        System.arraycopy(array, index, array, index + 1, count - index);
+        array[index] = value;
+        return count + 1;
+    }
+
+    /**
+     * 题目ID → 虚拟数组中的位置（各快照按ID升序，二分查找；不在题库中的ID忽略），结果升序
+     */
+    private static int[] positionsOf(long[][] parts, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return new int[0];
+        }
+        int[] positions = new int[ids.size()];
+        int count = 0;
+        for (Long id : ids) {
+            if (id == null) {
+                continue;
+            }
+            int offset = 0;
+            for (long[] part : parts) {
+                int index = Arrays.binarySearch(part, id);
+                if (index >= 0) {
+                    positions[count++] = offset + index;
+                    break;
+                }
+                offset += part.length;
+            }
+        }
+        positions = Arrays.copyOf(positions, count);
+        Arrays.sort(positions);
+        // 去重
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || positions[unique - 1] != positions[i]) {
+                positions[unique++] = positions[i];
+            }
+        }
+        return Arrays.copyOf(positions, unique);
+    }
+
+    private static long idAt(long[][] parts, int position) {
+        for (long[] part : parts) {
+            if (position < part.length) {
+                return part[position];
+            }
+            position -= part.length;
+        }
+        throw new IndexOutOfBoundsException("抽样位置越界：" + position);
+    }
+
+    /**
+     * 按主键取题，并按抽样顺序排列（缺失的题目跳过）
+     */
+    private List<TrainQuestion> fetchInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        Map<Long, TrainQuestion> byId = new HashMap<>(ids.length * 2);
+        for (TrainQuestion question : trainQuestionMapper.selectQuestionsByIds(idList)) {
+            byId.put(question.getQuestionId(), question);
+        }
+        List<TrainQuestion> ordered = new ArrayList<>(ids.length);
+        for (Long id : idList) {
+            TrainQuestion question = byId.get(id);
+            if (question != null) {
+                ordered.add(question);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 取机构题库快照：首次访问时加载；超过检查间隔时由一个线程比对版本，其他线程继续使用旧快照
+     */
+    private Pool getPool(String orgId) {
+        Pool pool = pools.get(orgId);
+        if (pool == null) {
+            return load(orgId);
+        }
+        if (System.currentTimeMillis() - pool.checkedAt >= refreshCheckMs && pool.checking.compareAndSet(false, true)) {
+            try {
+                versionCheckCount.incrementAndGet();
+                String version = trainQuestionMapper.selectPoolVersion(orgId);
+                if (!Objects.equals(version, pool.version)) {
+                    return load(orgId);
+                }
+                pool.checkedAt = System.currentTimeMillis();
+            } catch (Exception e) {
+                log.warn("题库版本检查失败，继续使用旧快照，机构：{}", orgId, e);
+            } finally {
+                pool.checking.set(false);
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * 加载快照（先取版本再取ID：加载期间有变更时版本偏旧，下次检查会再次加载）
+     */
+    private Pool load(String orgId) {
+        String version = trainQuestionMapper.selectPoolVersion(orgId);
+        List<Long> idList = trainQuestionMapper.selectActiveQuestionIds(orgId);
+        long[] ids = new long[idList.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idList.get(i);
+        }
+        Pool pool = new Pool(ids, version);
+        pools.put(orgId, pool);
+        loadCount.incrementAndGet();
+        log.info("题库快照已加载，机构：{}，启用题目数：{}", orgId, ids.length);
+        return pool;
+    }
+
+    /**
+     * 失效机构题库快照（下次抽题时重新加载）
+     */
+    public void invalidate(String orgId) {
+        pools.remove(orgId);
+    }
+
+    /**
+     * 机构题库快照中的题目数（未加载时为-1）
+     */
+    public int getPoolSize(String orgId) {
+        Pool pool = pools.get(orgId);
+        return pool == null ? -1 : pool.ids.length;
+    }
+
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    public long getVersionCheckCount() {
+        return versionCheckCount.get();
+    }
+
+    /**
+     * 题库快照（ids只读）
+     */
+    private static final class Pool {
+        private final long[] ids;
+        private final String version;
+        private volatile long checkedAt;
+        private final AtomicBoolean checking = new AtomicBoolean();
+
+        private Pool(long[] ids, String version) {
+            this.ids = ids;
+            this.version = version;
+            this.checkedAt = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.train.service.impl;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.LongPredicate;
+
+/**
+ * 用户最近做过的题目窗口：两代轮换的定长位图，与题库大小无关，每个用户固定 2×128 字节
+ * 1. 题目ID散列到 1024 位位图中的一位，写入"当前代"；当前代记满 papersPerGeneration 份试卷后成为"上一代"，原上一代丢弃，
+ *    因此窗口覆盖最近 papersPerGeneration ~ 2×papersPerGeneration 份试卷
+ * 2. 散列冲突只会让少量没做过的题目被当作做过（抽题时推后选用），不会漏掉做过的题目
+ * 3. 以Base64字符串存入Redis，各节点共享
+ */
+public final class RecentlySeenWindow implements LongPredicate {
+
+    private static final int BITS = 1024;
+    private static final int WORDS = BITS / Long.SIZE;
+    private static final int ENCODED_BYTES = 2 * WORDS * Long.BYTES + Integer.BYTES;
+
+    private final long[] current = new long[WORDS];
+    private final long[] previous = new long[WORDS];
+
+    /**
+     * 当前代已记录的试卷份数
+     */
+    private int papers;
+
+    /**
+     * 是否（可能）做过该题目
+     */
+    @Override
+    public boolean test(long questionId) {
+        int bit = bitOf(questionId);
+        long mask = 1L << bit;
+        return ((current[bit >>> 6] | previous[bit >>> 6]) & mask) != 0;
+    }
+
+    /**
+     * 记录一份试卷的题目
+     * @param papersPerGeneration 每代记录的试卷份数
+     */
+    public void record(long[] questionIds, int papersPerGeneration) {
+        if (papers >= Math.max(1, papersPerGeneration)) {
+            System.arraycopy(current, 0, previous, 0, WORDS);
+            Arrays.fill(current, 0L);
+            papers = 0;
+        }
+        for (long questionId : questionIds) {
+            int bit = bitOf(questionId);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        papers++;
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+        for (long word : current) {
+            buffer.putLong(word);
+        }
+        for (long word : previous) {
+            buffer.putLong(word);
+        }
+        buffer.putInt(papers);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解析已保存的窗口，内容为空或格式不符时返回空窗口
+     */
+    public static RecentlySeenWindow decode(String encoded) {
+        RecentlySeenWindow window = new RecentlySeenWindow();
+        if (encoded == null || encoded.isEmpty()) {
+            return window;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return window;
+        }
+        if (bytes.length != ENCODED_BYTES) {
+            return window;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < WORDS; i++) {
+            window.current[i] = buffer.getLong();
+        }
+        for (int i = 0; i < WORDS; i++) {
+            window.previous[i] = buffer.getLong();
+        }
+        window.papers = buffer.getInt();
+        return window;
+    }
+
+    /**
+     * 题目ID散列到位图位置（先打散，避免连续ID落在相邻位上集中冲突）
+     */
+    private static int bitOf(long questionId) {
+        long h = questionId * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        return (int) (h >>> (Long.SIZE - 10));
+    }
+}
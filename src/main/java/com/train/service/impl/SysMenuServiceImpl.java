@@ -9,6 +9,7 @@ import com.train.entity.SysRoleMenu;
 import com.train.mapper.SysMenuMapper;
 import com.train.mapper.SysRoleMenuMapper;
 import com.train.exception.BusinessException;
+import com.train.security.RbacIndex;
 import com.train.util.Result;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
@@ -29,6 +30,9 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
     @Resource
     private SysRoleMenuMapper sysRoleMenuMapper;
 
+    @Resource
+    private RbacIndex rbacIndex;
+
     @Override
     public IPage<SysMenu> queryMenuPage(Page<SysMenu> page, String menuName, Integer type) {
         LambdaQueryWrapper<SysMenu> queryWrapper = new LambdaQueryWrapper<>();
@@ -88,6 +92,7 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
         if (!saveFlag) {
             throw new BusinessException("菜单新增失败");
         }
+        rbacIndex.invalidate();
         return Result.success("菜单新增成功");
     }
 
@@ -132,6 +137,7 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
         if (!updateFlag) {
             throw new BusinessException("菜单编辑失败");
         }
+        rbacIndex.invalidate();
         return Result.success("菜单编辑成功");
     }
 
@@ -157,6 +163,8 @@ public class SysMenuServiceImpl extends ServiceImpl<SysMenuMapper, SysMenu> impl
         if (!deleteFlag) {
             throw new BusinessException("菜单删除失败");
         }
+        // 权限标识变化后重建权限字典与权限索引（菜单状态不参与权限校验，无需重建）
+        rbacIndex.invalidate();
         return Result.success("菜单删除成功");
     }
 
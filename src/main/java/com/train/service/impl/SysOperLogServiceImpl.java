@@ -1,13 +1,244 @@
-//package com.train.service.impl;
-//
-//import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-//import com.train.entity.SysMenu;
-//import com.train.entity.SysOperLog;
-//import com.train.mapper.SysMenuMapper;
-//import com.train.mapper.SysOperLogMapper;
-//import com.train.service.SysOperLogService;
-//import org.springframework.stereotype.Service;
-//
-//@Service
-//public class SysOperLogServiceImpl extends ServiceImpl<SysOperLogMapper, SysOperLog> implements SysOperLogService {
-//}
+package com.train.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.train.dto.SysOperLogPage;
+import com.train.dto.SysOperLogQuery;
+import com.train.entity.SysOperLog;
+import com.train.exception.BusinessException;
+import com.train.mapper.SysOperLogMapper;
+import com.train.service.SysOperLogService;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 操作日志服务
+ * 导出：游标按 fetchSize 分批读取，每行直接编码为CSV写入响应流，不经过工作簿或临时文件，堆内存占用与导出行数无关；
+ * 每 FLUSH_INTERVAL 行推送一次，客户端断开时在推送处抛出IOException，游标随即关闭，不会把结果集读完
+ * 查询：按 (oper_time, log_id) 键集分页，翻到任意深度都只读取一页数据；总数默认取执行计划估算值
+ */
+@Slf4j
+@Service
+public class SysOperLogServiceImpl extends ServiceImpl<SysOperLogMapper, SysOperLog> implements SysOperLogService {
+
+    /**
+     * 每写出多少行推送一次并检查取消标记
+     */
+    private static final int FLUSH_INTERVAL = 1000;
+
+    /**
+     * 写出缓冲区大小（字符）
+     */
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * UTF-8 BOM，Excel 据此识别编码
+     */
+    private static final char BOM = '\uFEFF';
+
+    private static final String[] HEADERS = {"日志ID", "机构ID", "操作账号", "操作人", "操作菜单", "操作类型",
+            "操作对象ID", "操作对象名称", "操作内容", "操作IP", "操作时间", "操作结果"};
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final ObjectMapper PLAN_READER = new ObjectMapper();
+
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * 进行中的导出任务：key=导出任务标识，value=发起用户与取消标记
+     */
+    private final Map<String, ExportTask> runningExports = new ConcurrentHashMap<>();
+
+    @Override
+    public SysOperLogPage searchLogs(SysOperLogQuery query) {
+        if (query == null) {
+            query = new SysOperLogQuery();
+        }
+        int pageSize = query.getPageSize() == null || query.getPageSize() <= 0
+                ? DEFAULT_PAGE_SIZE : Math.min(query.getPageSize(), MAX_PAGE_SIZE);
+        // 多取一行判断是否还有下一页
+        List<SysOperLog> records = this.baseMapper.selectPageAfter(query, pageSize + 1);
+        boolean hasMore = records.size() > pageSize;
+        if (hasMore) {
+            records = records.subList(0, pageSize);
+        }
+
+        SysOperLogPage page = new SysOperLogPage();
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            SysOperLog last = records.get(records.size() - 1);
+            page.setNextOperTime(last.getOperTime());
+            page.setNextLogId(last.getLogId());
+        }
+
+        boolean firstPage = query.getAfterOperTime() == null || StringUtils.isBlank(query.getAfterLogId());
+        if (firstPage && !hasMore) {
+            // 首页即末页，总数就是本页条数
+            page.setTotal(records.size());
+            page.setTotalExact(true);
+        } else if (Boolean.TRUE.equals(query.getExactCount())) {
+            page.setTotal(this.baseMapper.countByQuery(query));
+            page.setTotalExact(true);
+        } else {
+            long estimate = estimateCount(query);
+            if (estimate < 0) {
+                page.setTotal(this.baseMapper.countByQuery(query));
+                page.setTotalExact(true);
+            } else {
+                page.setTotal(Math.max(estimate, records.size()));
+                page.setTotalExact(false);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 从执行计划读取估算行数（只规划不执行），失败时返回-1
+     */
+    private long estimateCount(SysOperLogQuery query) {
+        try {
+            String plan = this.baseMapper.explainCount(query);
+            JsonNode rows = PLAN_READER.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return rows.isNumber() ? rows.asLong() : -1;
+        } catch (Exception e) {
+            log.warn("操作日志总数估算失败，改为精确统计：{}", e.getMessage());
+            return -1;
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCsv(SysOperLogQuery query, OutputStream out, String exportId, Long ownerId) throws IOException {
+        ExportTask task = new ExportTask(ownerId);
+        if (StringUtils.isNotBlank(exportId) && runningExports.putIfAbsent(exportId, task) != null) {
+            throw new BusinessException("导出任务[" + exportId + "]正在进行中");
+        }
+        long total = 0;
+        try (Cursor<SysOperLog> cursor = this.baseMapper.selectForExport(query == null ? new SysOperLogQuery() : query)) {
+            // 不关闭写出器：响应流由容器关闭
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+            writer.write(BOM);
+            writeLine(writer, HEADERS);
+            for (SysOperLog operLog : cursor) {
+                writeRow(writer, operLog);
+                total++;
+                if (total % FLUSH_INTERVAL == 0) {
+                    if (isCancelled(task.cancelled)) {
+                        // 响应已提交，不能再返回错误结果：推送到整行后按写出中断处理
+                        writer.flush();
+                        log.info("操作日志导出已取消，任务：{}，已写出{}行", exportId, total);
+                        throw new InterruptedIOException("导出已取消");
+                    }
+                    // 客户端已断开时在这里抛出IOException
+                    writer.flush();
+                }
+            }
+            writer.flush();
+            return total;
+        } finally {
+            if (StringUtils.isNotBlank(exportId)) {
+                runningExports.remove(exportId, task);
+            }
+        }
+    }
+
+    @Override
+    public boolean cancelExport(String exportId, Long userId) {
+        ExportTask task = StringUtils.isBlank(exportId) ? null : runningExports.get(exportId);
+        if (task == null || task.ownerId == null || !task.ownerId.equals(userId)) {
+            return false;
+        }
+        task.cancelled.set(true);
+        return true;
+    }
+
+    /**
+     * 被显式取消，或请求线程被中断（如异步请求超时）
+     */
+    private static boolean isCancelled(AtomicBoolean cancelled) {
+        return cancelled.get() || Thread.currentThread().isInterrupted();
+    }
+
+    private static void writeRow(Writer writer, SysOperLog operLog) throws IOException {
+        writeLine(writer, operLog.getLogId(), operLog.getOperOrgId(), operLog.getOperAccount(), operLog.getOperName(),
+                operLog.getOperMenu(), operLog.getOperType(), operLog.getTargetId(), operLog.getTargetName(),
+                operLog.getOperContent(), operLog.getOperIp(),
+                operLog.getOperTime() == null ? null : TIME_FORMATTER.format(operLog.getOperTime()),
+                operLog.getOperResult());
+    }
+
+    private static void writeLine(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * 写出一个CSV字段（RFC 4180）：含逗号、引号、换行时整体加引号并转义引号；
+     * 以 = + - @ 开头的值前加单引号，防止用户输入的内容在Excel中被当作公式执行
+     */
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char first = value.charAt(0);
+        boolean formula = first == '=' || first == '+' || first == '-' || first == '@';
+        boolean quote = formula;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    /**
+     * 进行中的导出任务
+     */
+    private static final class ExportTask {
+        private final Long ownerId;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private ExportTask(Long ownerId) {
+            this.ownerId = ownerId;
+        }
+    }
+}
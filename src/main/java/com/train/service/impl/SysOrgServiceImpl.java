@@ -9,8 +9,11 @@ import com.train.constant.Constants;
 import com.train.entity.*;
 import com.train.exception.BusinessException;
 import com.train.mapper.SysOrgMapper;
+import com.train.security.OrgRoleCache;
+import com.train.security.RbacIndex;
 import com.train.service.*;
 import com.train.util.AESUtil;
+import com.train.util.BeforeImageRegistry;
 import com.train.util.Md5Util;
 import com.train.util.Result;
 import org.apache.commons.compress.utils.Lists;
@@ -44,6 +47,10 @@ public class SysOrgServiceImpl extends ServiceImpl<SysOrgMapper, SysOrg> impleme
     private SysUserRoleService sysUserRoleService;
     @Resource
     private ISysOrgRoleService sysOrgRoleService;
+    @Resource
+    private RbacIndex rbacIndex;
+    @Resource
+    private OrgRoleCache orgRoleCache;
 
     private static final String DEFAULT_ADMIN_PASSWORD = "a123456";
     private static final DateTimeFormatter ORG_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
@@ -129,6 +136,8 @@ public class SysOrgServiceImpl extends ServiceImpl<SysOrgMapper, SysOrg> impleme
         sysOrgRole1.setRoleId(ORG_ROLE_USER);
         sysOrgRoles.add(sysOrgRole1);
         sysOrgRoleService.saveBatch(sysOrgRoles);
+        orgRoleCache.invalidate(sysOrg.getOrgId());
+        rbacIndex.onOrgRolesChanged(sysOrg.getOrgId());
 
         return Result.success("机构新增成功", sysOrg);
     }
@@ -344,6 +353,7 @@ public class SysOrgServiceImpl extends ServiceImpl<SysOrgMapper, SysOrg> impleme
         if (existingOrg == null) {
             throw new BusinessException("机构不存在");
         }
+        BeforeImageRegistry.record(existingOrg, orgId);
 
 
         // 删除相关机构信息
@@ -354,6 +364,8 @@ public class SysOrgServiceImpl extends ServiceImpl<SysOrgMapper, SysOrg> impleme
         if (!deleteFlag) {
             throw new BusinessException("机构删除失败");
         }
+        // 机构删除会级联清理角色绑定、角色与用户角色，整体重建权限索引
+        rbacIndex.invalidate();
 
         return Result.success("机构删除成功");
     }
@@ -374,6 +386,8 @@ public class SysOrgServiceImpl extends ServiceImpl<SysOrgMapper, SysOrg> impleme
             // 只有在roleIds不为空时才执行删除
             if (!roleIds.isEmpty()) {
                 sysOrgRoleService.remove(new QueryWrapper<SysOrgRole>().in("role_id", roleIds));
+                // 按角色解绑会影响所有绑定了这些角色的机构
+                orgRoleCache.invalidateAll();
                 // 验证roleIds中不包含保护角色ID
                 List<String> safeRoleIds = roleIds.stream()
                         .filter(roleId -> !ORG_ROLE_ADMIN.equals(roleId)
@@ -431,6 +445,9 @@ public class SysOrgServiceImpl extends ServiceImpl<SysOrgMapper, SysOrg> impleme
         LambdaQueryWrapper<SysOrg> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(SysOrg::getStatus, 1).ne(SysOrg::getOrgId, Constants.SYS_ORG_ID)
                 .orderByDesc(SysOrg::getCreateTime);
-        return this.baseMapper.selectList(queryWrapper);
+        List<SysOrg> orgList = this.baseMapper.selectList(queryWrapper);
+        // 登录后的角色查询都会用到所选机构的角色，一次查询预加载
+        orgRoleCache.preload(orgList.stream().map(SysOrg::getOrgId).collect(Collectors.toList()));
+        return orgList;
     }
 }
@@ -9,12 +9,14 @@ import com.train.entity.SysRoleMenu;
 import com.train.entity.SysUser;
 import com.train.entity.SysUserRole;
 import com.train.exception.BusinessException;
-import com.train.mapper.SysOrgRoleMapper;
 import com.train.mapper.SysRoleMapper;
 import com.train.mapper.SysRoleMenuMapper;
 import com.train.mapper.SysUserRoleMapper;
+import com.train.security.OrgRoleCache;
+import com.train.security.RbacIndex;
 import com.train.service.ISysRoleService;
 import com.train.service.SysRoleMenuService;
+import com.train.util.BeforeImageRegistry;
 import com.train.util.Result;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -40,9 +42,11 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
     @Resource
     private SysRoleMenuMapper sysRoleMenuMapper;
     @Resource
-    private SysOrgRoleMapper sysOrgRoleMapper;
+    private OrgRoleCache orgRoleCache;
     @Resource
     private SysUserRoleMapper sysUserRoleMapper;
+    @Resource
+    private RbacIndex rbacIndex;
 
     private static final DateTimeFormatter ROLE_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
     private static final AtomicInteger dailySequence = new AtomicInteger(1);
@@ -64,11 +68,11 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
                 .orderByDesc(SysRole::getCreateTime);
         // 权限隔离：超级管理员查所有，机构管理员查本机构
         if (isSysAdmin != 1) {
-            List<String> roleIds = sysOrgRoleMapper.selectRoleIdsByOrgId(currentOrgId);
+            List<String> roleIds = orgRoleCache.getRoleIds(currentOrgId);
             queryWrapper.in(SysRole::getRoleId, roleIds);
         } else if (StringUtils.isNotBlank(orgId)) {
             // 超级管理员可按机构筛选
-            List<String> roleIds = sysOrgRoleMapper.selectRoleIdsByOrgId(orgId);
+            List<String> roleIds = orgRoleCache.getRoleIds(orgId);
             queryWrapper.in(SysRole::getRoleId, roleIds);
         }
         return this.baseMapper.selectPage(page, queryWrapper);
@@ -82,7 +86,7 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         validateOrgId(currentOrgId);
 
         // 1. 校验角色名称唯一性（同一机构内）
-        List<String> roleIds = sysOrgRoleMapper.selectRoleIdsByOrgId(currentOrgId);
+        List<String> roleIds = orgRoleCache.getRoleIds(currentOrgId);
         LambdaQueryWrapper<SysRole> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(SysRole::getRoleName, sysRole.getRoleName())
                 .in(SysRole::getRoleId, roleIds);
@@ -166,11 +170,12 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         if (oldRole == null) {
             throw new BusinessException("角色不存在");
         }
+        BeforeImageRegistry.record(oldRole, oldRole.getRoleId());
         if (oldRole.getRoleType() == 0 && oldRole.getCanDelete() == 0) {
             throw new BusinessException("系统超级管理员角色不可修改");
         }
         // 2. 校验角色名称唯一性（排除自身）
-        List<String> roleIds = sysOrgRoleMapper.selectRoleIdsByOrgId(currentOrgId);
+        List<String> roleIds = orgRoleCache.getRoleIds(currentOrgId);
 
         LambdaQueryWrapper<SysRole> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(SysRole::getRoleName, sysRole.getRoleName())
@@ -199,6 +204,7 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         if (sysRole == null) {
             throw new BusinessException("角色不存在");
         }
+        BeforeImageRegistry.record(sysRole, roleId);
         if (sysRole.getCanDelete() == 0) {
             throw new BusinessException("该角色不可删除");
         }
@@ -213,6 +219,7 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         LambdaQueryWrapper<SysRoleMenu> roleMenuWrapper = new LambdaQueryWrapper<>();
         roleMenuWrapper.eq(SysRoleMenu::getRoleId, roleId);
         sysRoleMenuMapper.delete(roleMenuWrapper);
+        rbacIndex.onRoleChanged(roleId);
         return Result.success("角色删除成功");
     }
 
@@ -234,6 +241,7 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         if (!updateFlag) {
             throw new BusinessException("角色状态切换失败");
         }
+        rbacIndex.onRoleChanged(roleId);
         return Result.success(status == 1 ? "角色启用成功" : "角色禁用成功");
     }
 
@@ -259,7 +267,7 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
     @Override
     public List<SysRole> queryRoleListByOrgId(String orgId) {
         validateOrgId(orgId);
-        List<String> roleIds = sysOrgRoleMapper.selectRoleIdsByOrgId(orgId);
+        List<String> roleIds = orgRoleCache.getRoleIds(orgId);
 
         LambdaQueryWrapper<SysRole> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.in(SysRole::getRoleId, roleIds)
@@ -277,6 +285,8 @@ public class SysRoleServiceImpl extends ServiceImpl<SysRoleMapper, SysRole> impl
         LambdaQueryWrapper<SysRoleMenu> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(SysRoleMenu::getRoleId, roleId);
         sysRoleMenuMapper.delete(queryWrapper);
+        // 权限索引在事务提交后按最终数据修补该角色
+        rbacIndex.onRoleChanged(roleId);
         // 2. 新增新关联
         if (menuIds == null || menuIds.isEmpty()) {
             return;
@@ -9,12 +9,16 @@ import com.train.entity.SysUserRole;
 import com.train.exception.BusinessException;
 import com.train.mapper.SysUserMapper;
 import com.train.mapper.SysUserRoleMapper;
+import com.train.security.RbacIndex;
 import com.train.service.ISysOrgRoleService;
 import com.train.service.ISysUserService;
 import com.train.service.SysUserRoleService;
 import com.train.util.AESUtil;
+import com.train.util.BeforeImageRegistry;
+import com.train.util.JwtTokenUtil;
 import com.train.util.Md5Util;
 import com.train.util.Result;
+import com.train.util.TransactionUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +42,12 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
     @Resource
     private ISysOrgRoleService sysOrgRoleService;
 
+    @Resource
+    private JwtTokenUtil jwtTokenUtil;
+
+    @Resource
+    private RbacIndex rbacIndex;
+
     @Override
     public IPage<SysUser> queryUserPage(Page<SysUser> page, String account, String userName, String orgId, String currentOrgId, Integer isSysAdmin) {
         LambdaQueryWrapper<SysUser> queryWrapper = new LambdaQueryWrapper<>();
@@ -118,6 +128,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         if (oldUser == null) {
             throw new BusinessException("用户不存在");
         }
+        BeforeImageRegistry.record(oldUser, oldUser.getUserId());
         if (oldUser.getIsSysAdmin() == 1) {
             throw new BusinessException("系统超级管理员不可修改");
         }
@@ -152,6 +163,7 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         if (sysUser == null) {
             throw new BusinessException("用户不存在");
         }
+        BeforeImageRegistry.record(sysUser, userId);
         if (sysUser.getIsSysAdmin() == 1 || sysUser.getCanDelete() == 0) {
             throw new BusinessException("该用户不可删除");
         }
@@ -162,6 +174,8 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         LambdaQueryWrapper<SysUserRole> userRoleWrapper = new LambdaQueryWrapper<>();
         userRoleWrapper.eq(SysUserRole::getUserId, userId);
         sysUserRoleMapper.delete(userRoleWrapper);
+        rbacIndex.onUserRolesChanged(userId);
+        revokeTokensAfterCommit(userId);
         return Result.success("用户删除成功");
     }
 
@@ -183,6 +197,10 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         if (!updateFlag) {
             throw new BusinessException("用户状态切换失败");
         }
+        if (status != 1) {
+            // 禁用后已签发的刷新令牌不可再换取访问令牌
+            revokeTokensAfterCommit(userId);
+        }
         return Result.success(status == 1 ? "用户启用成功" : "用户禁用成功");
     }
 
@@ -205,9 +223,17 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         if (!updateFlag) {
             throw new BusinessException("密码重置失败");
         }
+        revokeTokensAfterCommit(userId);
         return Result.success("密码重置成功");
     }
 
+    /**
+     * 事务提交后吊销用户令牌（回滚时不吊销，也不在事务内等待Redis）
+     */
+    private void revokeTokensAfterCommit(Long userId) {
+        TransactionUtil.afterCommit(() -> jwtTokenUtil.revokeUserTokens(userId));
+    }
+
     /**
      * 保存用户-角色关联关系（先删后加）
      */
@@ -216,6 +242,8 @@ public class SysUserServiceImpl extends ServiceImpl<SysUserMapper, SysUser> impl
         LambdaQueryWrapper<SysUserRole> queryWrapper = new LambdaQueryWrapper<>();
         queryWrapper.eq(SysUserRole::getUserId, userId);
         sysUserRoleMapper.delete(queryWrapper);
+        // 权限索引在事务提交后按最终数据修补该用户
+        rbacIndex.onUserRolesChanged(userId);
         // 2. 新增新关联
         if (roleIds == null || roleIds.isEmpty()) {
             return;
@@ -15,6 +15,7 @@ import com.train.mapper.TrainQuestionMapper;
 import com.train.security.JwtUserDetails;
 import com.train.service.TrainAnswerService;
 import com.train.service.TrainQuestionService;
+import com.train.util.KaryotypeAnswer;
 import com.train.util.RedisUtil;
 import com.train.util.Result;
 import org.slf4j.Logger;
@@ -46,8 +47,8 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
     // ==================== 常量定义（消除魔法值，提高可维护性） ====================
     private static final Logger logger = LoggerFactory.getLogger(TrainQuestionServiceImpl.class);
 
-    /** 答案分隔符（多标准答案分隔） */
-    private static final String ANSWER_MULTI_SPLIT = "\\|\\|";
+    /** 每题满分 */
+    private static final int QUESTION_FULL_SCORE = 20;
     /** 答案项分隔符（单题答案内部分隔） */
     private static final String ANSWER_ITEM_SPLIT = ",";
     /** 答题耗时格式化模板（mm:ss） */
@@ -62,6 +63,14 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
     @Value("${train.exam.session.expire.minutes:30}")
     private int sessionExpireMinutes;
 
+    /** 最近做题窗口每代记录的试卷份数（窗口覆盖最近 N~2N 份试卷） */
+    @Value("${train.question.recent-window.papers-per-generation:10}")
+    private int recentPapersPerGeneration = 10;
+
+    /** 最近做题窗口过期天数（长期未练习则重新从全部题目中抽） */
+    @Value("${train.question.recent-window.expire-days:7}")
+    private long recentWindowExpireDays = 7;
+
     // ==================== 依赖注入 ====================
     @Resource
     private TrainAnswerService trainAnswerService;
@@ -69,17 +78,22 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
     private TrainQualityMapper trainQualityMapper;
     @Resource
     private RedisUtil redisUtil;
+    @Resource
+    private QuestionPoolSampler questionPoolSampler;
+    @Resource
+    private QuestionAnswerCache questionAnswerCache;
 
     // ==================== 核心业务方法：随机抽题 ====================
     /**
-     * 按机构随机抽取不重复题目
+     * 按机构随机抽取不重复题目（尽量避开该用户最近做过的题目）
      *
      * @param orgId     机构ID
+     * @param userId    用户ID
      * @param randomNum 抽题数量
      * @return 抽题结果（含题目信息、会话ID）
      */
     @Override
-    public Result<TrainRandomQuestionOutDTO> selectRandomQuestions(String orgId, int randomNum) {
+    public Result<TrainRandomQuestionOutDTO> selectRandomQuestions(String orgId, Long userId, int randomNum) {
         // 1. 构造机构ID列表（系统机构+目标机构）
         List<String> orgIdList = new ArrayList<>(2);
         orgIdList.add(Constants.SYS_ORG_ID);
@@ -87,12 +101,14 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
             orgIdList.add(orgId);
         }
 
-        // 2. 数据库随机抽题（使用baseMapper，移除冗余注入）
-        List<TrainQuestion> questionList = this.baseMapper.selectRandomQuestions(orgIdList, randomNum);
+        // 2. 从内存题库快照抽样，只按主键取被抽中的题目
+        RecentlySeenWindow recentlySeen = loadRecentlySeen(orgId, userId);
+        List<TrainQuestion> questionList = questionPoolSampler.sample(orgIdList, randomNum, Collections.emptyList(), recentlySeen);
         if (CollectionUtils.isEmpty(questionList)) {
             logger.info("机构{}未查询到可用题目，抽题数量{}", orgId, randomNum);
             return Result.success(null);
         }
+        saveRecentlySeen(orgId, userId, recentlySeen, questionList);
 
         // 3. 转换为输出DTO
         TrainRandomQuestionOutDTO randomQuestionOutDTO = buildRandomQuestionOutDTO(questionList);
@@ -113,11 +129,12 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
      *
      * @param paperId   旧的试卷/会话ID
      * @param orgId     机构ID
+     * @param userId    用户ID
      * @param randomNum 抽题数量
      * @return 新的抽题结果（含新会话ID、与旧题无重复的新题目信息）
      */
     @Override
-    public Result<TrainRandomQuestionOutDTO> reRandomQuestions(String paperId, String orgId, Integer randomNum) {
+    public Result<TrainRandomQuestionOutDTO> reRandomQuestions(String paperId, String orgId, Long userId, Integer randomNum) {
         // 1. 前置参数校验（保持严谨性，与原有逻辑一致）
         if (!StringUtils.hasText(paperId)) {
             throw new BusinessException(ResultConstant.ERROR_CODE, "旧试卷ID（会话ID）不能为空");
@@ -169,12 +186,11 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
             orgIdList.add(orgId);
         }
 
-        // 4. 数据库重新随机抽题（排除旧题目ID，保证新题与旧题不一致）
+        // 4. 重新抽题：旧题目ID在抽样时直接排除（保证新题与旧题不一致），同时尽量避开最近做过的题目
+        RecentlySeenWindow recentlySeen = loadRecentlySeen(orgId, userId);
         List<TrainQuestion> questionList;
         try {
-            // 调用Mapper方法：传入机构ID列表 + 排除的旧题目ID + 抽题数量，实现去重抽题
-            // 【注意】：需要你在 TrainQuestionMapper 中新增对应的查询方法（下方提供Mapper方法示例）
-            questionList = this.baseMapper.selectRandomQuestionsExcludeOldIds(orgIdList, oldQuestionIds, randomNum);
+            questionList = questionPoolSampler.sample(orgIdList, randomNum, oldQuestionIds, recentlySeen);
         } catch (Exception e) {
             logger.error("重新抽题（排除旧题目）失败，机构ID：{}，排除题目数：{}，抽题数量：{}", orgId, oldQuestionIds.size(), randomNum, e);
             throw new BusinessException(ResultConstant.ERROR_CODE, "重新抽题失败，请稍后重试");
@@ -185,6 +201,7 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
             logger.info("机构{}重新抽题（排除{}道旧题）未查询到可用题目，抽题数量{}", orgId, oldQuestionIds.size(), randomNum);
             return Result.success(null);
         }
+        saveRecentlySeen(orgId, userId, recentlySeen, questionList);
 
         // 5. 转换为输出DTO（复用已有辅助方法，保持代码一致性）
         TrainRandomQuestionOutDTO randomQuestionOutDTO = buildRandomQuestionOutDTO(questionList);
@@ -406,6 +423,49 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
         return Constants.EXAM_SESSION_KEY + safeOrgId + ":" + safePaperId;
     }
 
+    /**
+     * 读取用户最近做题窗口，未登录、无记录或Redis异常时返回空窗口（不影响抽题）
+     */
+    private RecentlySeenWindow loadRecentlySeen(String orgId, Long userId) {
+        if (userId == null) {
+            return new RecentlySeenWindow();
+        }
+        try {
+            Object encoded = redisUtil.get(buildRecentQuestionKey(orgId, userId));
+            return RecentlySeenWindow.decode(encoded instanceof String ? (String) encoded : null);
+        } catch (Exception e) {
+            logger.warn("读取最近做题记录失败，用户ID：{}，机构ID：{}", userId, orgId, e);
+            return new RecentlySeenWindow();
+        }
+    }
+
+    /**
+     * 将本次抽中的题目记入用户最近做题窗口（异常隔离，不影响主流程）
+     */
+    private void saveRecentlySeen(String orgId, Long userId, RecentlySeenWindow recentlySeen, List<TrainQuestion> questionList) {
+        if (userId == null) {
+            return;
+        }
+        long[] questionIds = questionList.stream()
+                .map(TrainQuestion::getQuestionId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .toArray();
+        recentlySeen.record(questionIds, recentPapersPerGeneration);
+        try {
+            redisUtil.set(buildRecentQuestionKey(orgId, userId), recentlySeen.encode(), recentWindowExpireDays, TimeUnit.DAYS);
+        } catch (Exception e) {
+            logger.warn("保存最近做题记录失败，用户ID：{}，机构ID：{}", userId, orgId, e);
+        }
+    }
+
+    /**
+     * 构建用户最近做题窗口Redis Key
+     */
+    private String buildRecentQuestionKey(String orgId, Long userId) {
+        return Constants.RECENT_QUESTION_KEY + sanitizeRedisKey(orgId) + ":" + userId;
+    }
+
     /**
      * 构建答题判分分布式锁Key
      *
@@ -545,22 +605,26 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
                                                 List<TrainJudgeQuestionDTO.TrainRandomQuestionInfo> questionResultList,
                                                 TrainQuality trainQuality) {
         List<TrainAnswer> answersToInsert = new ArrayList<>(userAnswerList.size());
+        // 整份试卷的标准答案一次取齐（优先本地缓存，未命中的合并为一次查询）
+        Map<Long, KaryotypeAnswer> standardAnswers = questionAnswerCache.getAnswers(userAnswerList.stream()
+                .map(TrainJudgeQuestionQuery.TrainRandomQuestionInfo::getQuestionId)
+                .collect(Collectors.toList()));
 
         for (TrainJudgeQuestionQuery.TrainRandomQuestionInfo userAnswer : userAnswerList) {
             // 构建答案实体
             TrainAnswer trainAnswer = buildTrainAnswerBaseInfo(userAnswer, userId, orgId, paperId);
             // 构建题目结果DTO
             TrainJudgeQuestionDTO.TrainRandomQuestionInfo resultInfo = convertToJudgeResultInfo(userAnswer);
-            // 查询标准答案
-            TrainQuestion question = this.baseMapper.selectAnswer(userAnswer.getQuestionId());
-            if (Objects.isNull(question)) {
+            // 标准答案
+            KaryotypeAnswer standardAnswer = standardAnswers.get(userAnswer.getQuestionId());
+            if (Objects.isNull(standardAnswer)) {
                 logger.error("题目不存在，题目ID：{}", userAnswer.getQuestionId());
                 resultInfo.setIsRight(false);
                 questionResultList.add(resultInfo);
                 continue;
             }
             // 单题判分
-            boolean isCorrect = judgeSingleQuestion(question.getAnswer(), userAnswer.getAnswer(), trainAnswer);
+            boolean isCorrect = judgeSingleQuestion(standardAnswer, userAnswer.getAnswer(), trainAnswer);
             resultInfo.setIsRight(isCorrect);
             // 累加总分
             trainQuality.setScore(trainQuality.getScore() + trainAnswer.getScore());
@@ -609,61 +673,28 @@ public class TrainQuestionServiceImpl extends ServiceImpl<TrainQuestionMapper, T
     }
 
     /**
-     * 单题判分（完全匹配规则）
+     * 单题判分：提交答案规范化后与任一可选标准答案的规范形式一致即为正确，得满分；
+     * 题目配置了近似答案时，编辑距离在上限内的答案判为错误但给部分分（不超过满分）
      *
-     * @param standardAnswer 标准答案
+     * @param standardAnswer 编译后的标准答案
      * @param userAnswer     用户答案
      * @param trainAnswer    答案实体（用于设置得分）
      * @return true-答对，false-答错
      */
-    private boolean judgeSingleQuestion(String standardAnswer, String userAnswer, TrainAnswer trainAnswer) {
+    private boolean judgeSingleQuestion(KaryotypeAnswer standardAnswer, String userAnswer, TrainAnswer trainAnswer) {
         // 标准答案为空，直接判定错误
-        if (!StringUtils.hasText(standardAnswer)) {
+        if (standardAnswer.isEmpty()) {
             return false;
         }
-
-        String[] standardAnswerGroups = standardAnswer.split(ANSWER_MULTI_SPLIT);
-        String submitAnswer = userAnswer.trim();
-
-        // 遍历多标准答案组，任一匹配即算正确
-        for (String standardGroup : standardAnswerGroups) {
-            if (isAnswerGroupMatch(standardGroup, submitAnswer)) {
-                trainAnswer.setScore(20); // 每题20分
-                return true;
-            }
+        int distance = standardAnswer.distance(userAnswer);
+        if (distance == 0) {
+            trainAnswer.setScore(QUESTION_FULL_SCORE);
+            return true;
         }
-
-        trainAnswer.setScore(0);
+        trainAnswer.setScore(distance > 0 ? Math.min(standardAnswer.getNearMissScore(), QUESTION_FULL_SCORE) : 0);
         return false;
     }
 
-    /**
-     * 校验单组答案是否完全匹配
-     *
-     * @param standardGroup 单组标准答案
-     * @param submitAnswer  用户提交答案
-     * @return true-匹配，false-不匹配
-     */
-    private boolean isAnswerGroupMatch(String standardGroup, String submitAnswer) {
-        String[] expectedParts = standardGroup.split(ANSWER_ITEM_SPLIT);
-        String[] userParts = submitAnswer.split(ANSWER_ITEM_SPLIT);
-
-        // 遍历标准答案项，全部匹配才算合格
-        for (String expectedPart : expectedParts) {
-            boolean partMatched = false;
-            for (String userPart : userParts) {
-                if (expectedPart.trim().equals(userPart.trim())) {
-                    partMatched = true;
-                    break;
-                }
-            }
-            if (!partMatched) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     /**
      * 计算答题耗时（格式化为mm:ss）
      * 【优化】：使用Duration类，更优雅的时间计算
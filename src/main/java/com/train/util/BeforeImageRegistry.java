@@ -0,0 +1,85 @@
+package com.train.util;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 请求级修改前数据登记
+ * 业务层在编辑/删除前已查出的原记录登记到当前请求，操作日志切面直接取用，不再为"原数据"重复查询；
+ * 切面在业务提交之后执行，此时再查询得到的已是修改后的数据，登记的记录才是真正的修改前数据
+ * 非Web线程（无请求上下文）下登记与取用均为空操作
+ */
+public final class BeforeImageRegistry {
+
+    private static final String REQUEST_ATTRIBUTE = BeforeImageRegistry.class.getName();
+
+    private BeforeImageRegistry() {
+    }
+
+    /**
+     * 登记修改前的记录（同一记录以首次登记为准），登记后不应再修改该对象
+     * @param entity 从数据库读出的原记录
+     * @param id 主键
+     */
+    public static void record(Object entity, Object id) {
+        if (entity == null || id == null) {
+            return;
+        }
+        Map<String, Object> images = images(true);
+        if (images != null) {
+            images.putIfAbsent(keyOf(entity.getClass(), id), entity);
+        }
+    }
+
+    /**
+     * 取出并移除指定记录的修改前数据
+     * @return 未登记时返回null
+     */
+    public static Object take(Class<?> entityClass, Object id) {
+        if (entityClass == null || id == null) {
+            return null;
+        }
+        Map<String, Object> images = images(false);
+        return images == null ? null : images.remove(keyOf(entityClass, id));
+    }
+
+    /**
+     * 取出并移除当前请求登记的全部修改前数据（按登记顺序）
+     */
+    public static List<Object> takeAll() {
+        Map<String, Object> images = images(false);
+        if (images == null || images.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> all = new ArrayList<>(images.values());
+        images.clear();
+        return all;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> images(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object value = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (value == null && create) {
+            value = new LinkedHashMap<String, Object>(4);
+            attributes.setAttribute(REQUEST_ATTRIBUTE, value, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<String, Object>) value;
+    }
+
+    /**
+     * 主键按字符串比较（请求参数中的主键与实体主键类型可能不同）
+     */
+    private static String keyOf(Class<?> entityClass, Object id) {
+        return entityClass.getName() + "#" + id;
+    }
+}
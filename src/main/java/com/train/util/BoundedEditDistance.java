@@ -0,0 +1,108 @@
+package com.train.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 有上限的编辑距离（Myers 位并行算法，多字版本）
+ * 1. 模式串预先编译为每个字符的出现位向量；计算时文本每个字符只做 ⌈m/64⌉ 个字的位运算，整体 O(n·⌈m/64⌉)
+ * 2. 长度差已超过上限时直接返回；逐列维护末行距离，剩余列数不足以降回上限时提前结束
+ * 编译结果不可变，可多线程共享
+ */
+public final class BoundedEditDistance {
+
+    private static final int ASCII_SIZE = 128;
+
+    private final int length;
+    private final int words;
+    /**
+     * 最后一个字中模式串末位对应的位
+     */
+    private final long lastBit;
+    private final long[][] asciiPeq = new long[ASCII_SIZE][];
+    private final Map<Character, long[]> otherPeq = new HashMap<>();
+
+    public BoundedEditDistance(String pattern) {
+        this.length = pattern.length();
+        this.words = (length + Long.SIZE - 1) / Long.SIZE;
+        this.lastBit = length == 0 ? 0 : 1L << ((length - 1) & (Long.SIZE - 1));
+        for (int i = 0; i < length; i++) {
+            char c = pattern.charAt(i);
+            long[] vector;
+            if (c < ASCII_SIZE) {
+                vector = asciiPeq[c];
+                if (vector == null) {
+                    vector = new long[words];
+                    asciiPeq[c] = vector;
+                }
+            } else {
+                vector = otherPeq.computeIfAbsent(c, key -> new long[words]);
+            }
+            vector[i >>> 6] |= 1L << i;
+        }
+    }
+
+    /**
+     * 模式串与文本的编辑距离（插入、删除、替换各计1）
+     * @param maxDistance 距离上限
+     * @return 距离不超过上限时返回距离，否则返回 maxDistance+1
+     */
+    public int distance(CharSequence text, int maxDistance) {
+        maxDistance = Math.max(0, maxDistance);
+        int n = text.length();
+        if (Math.abs(n - length) > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (length == 0) {
+            return n;
+        }
+        long[] pv = new long[words];
+        long[] mv = new long[words];
+        Arrays.fill(pv, -1L);
+        int score = length;
+        for (int j = 0; j < n; j++) {
+            long[] eqs = peq(text.charAt(j));
+            // 第0行 D[0][j]=j，进入首块的水平差恒为+1
+            int carry = 1;
+            for (int b = 0; b < words; b++) {
+                long eq = eqs == null ? 0 : eqs[b];
+                long p = pv[b];
+                long m = mv[b];
+                long xv = eq | m;
+                if (carry < 0) {
+                    eq |= 1L;
+                }
+                long xh = (((eq & p) + p) ^ p) | eq;
+                long ph = m | ~(xh | p);
+                long mh = p & xh;
+                long high = b == words - 1 ? lastBit : Long.MIN_VALUE;
+                int out = (ph & high) != 0 ? 1 : ((mh & high) != 0 ? -1 : 0);
+                ph <<= 1;
+                mh <<= 1;
+                if (carry < 0) {
+                    mh |= 1L;
+                } else if (carry > 0) {
+                    ph |= 1L;
+                }
+                pv[b] = mh | ~(xv | ph);
+                mv[b] = ph & xv;
+                carry = out;
+            }
+            score += carry;
+            // 之后每列末行距离最多减1
+            if (score - (n - j - 1) > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+        return score <= maxDistance ? score : maxDistance + 1;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    private long[] peq(char c) {
+        return c < ASCII_SIZE ? asciiPeq[c] : otherPeq.get(c);
+    }
+}
@@ -1,17 +1,34 @@
 package com.train.util;
 
+import com.train.enums.TokenSessionStatus;
 import com.train.security.JwtUserDetails;
+import com.train.security.PermissionDictionary;
+import com.train.security.RbacIndex;
+import com.train.security.SessionRenewalService;
+import com.train.security.TokenRevocationCache;
+import com.train.security.VerifiedToken;
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Component
@@ -29,18 +46,161 @@ public class JwtTokenUtil{
     @Value("${jwt.expiration:3600}")
     private Long expiration;
 
+    /**
+     * 是否启用无状态访问令牌模式：访问令牌短期有效（带exp），请求校验只验签与过期时间，
+     * Redis 仅在刷新令牌与吊销纪元时访问
+     */
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean stateless;
+
+    /**
+     * 无状态模式访问令牌有效期（秒），即吊销纪元生效的最大延迟
+     */
+    @Value("${jwt.stateless.access-ttl-seconds:300}")
+    private long accessTtlSeconds = 300;
+
+    /**
+     * 无状态模式刷新令牌有效期（秒）
+     */
+    @Value("${jwt.stateless.refresh-ttl-seconds:604800}")
+    private long refreshTtlSeconds = 604800;
+
+    /**
+     * 是否信任Token中签名的权限：签发时写入用户权限版本，接口权限校验直接使用Token中的权限集合，
+     * 只比对本地缓存的权限版本，角色/菜单变更后签发的旧Token被拒绝，需刷新或重新登录
+     */
+    @Value("${security.permission.trust-token-claims:false}")
+    private boolean trustPermissionClaims;
+
     @Resource
     private RedisUtil redisUtil;
 
-    // 统一Key前缀
+    @Resource
+    private TokenRevocationCache revocationCache;
+
+    @Resource
+    private SessionRenewalService sessionRenewalService;
+
+    @Resource
+    private PermissionDictionary permissionDictionary;
+
+    @Resource
+    private RbacIndex rbacIndex;
+
+    // 统一Key前缀（后缀为会话ID：Token的jti，旧Token无jti时为Token的SHA-256摘要）
     private static final String TOKEN_BLACKLIST_PREFIX = "token:invalid:";
     private static final String USER_INFO_PREFIX = "user:info:";
+    // 用户吊销纪元（修改密码、禁用、删除用户时递增，纪元之前签发的刷新令牌全部失效）
+    private static final String USER_EPOCH_PREFIX = "token:epoch:";
+
+    /**
+     * 载荷字段：令牌类型 / 吊销纪元
+     */
+    public static final String CLAIM_TOKEN_TYPE = "typ";
+    public static final String CLAIM_EPOCH = "ep";
+    public static final String TOKEN_TYPE_REFRESH = "refresh";
+
+    /**
+     * Token会话校验脚本：一次往返完成 黑名单校验 + 用户信息缓存存在性校验 +（可选）续期
+     * KEYS[1]=黑名单键，KEYS[2]=用户信息键，ARGV[1]=续期秒数（<=0不续期）
+     * 返回：0=有效，1=已登出，2=会话不存在
+     */
+    private static final String SESSION_CHECK_LUA =
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 1 end\n" +
+            "local ttl = tonumber(ARGV[1])\n" +
+            "if ttl and ttl > 0 then\n" +
+            "  if redis.call('EXPIRE', KEYS[2], ttl) == 1 then return 0 end\n" +
+            "  return 2\n" +
+            "end\n" +
+            "if redis.call('EXISTS', KEYS[2]) == 1 then return 0 end\n" +
+            "return 2";
+    private static final DefaultRedisScript<Long> SESSION_CHECK_SCRIPT = new DefaultRedisScript<>(SESSION_CHECK_LUA, Long.class);
+
+    /**
+     * 旧Token（无jti）会话校验脚本：先把以完整Token为后缀的旧键迁移（RENAME，保留TTL）到摘要键，再按上面逻辑校验
+     * KEYS[3]=旧黑名单键，KEYS[4]=旧用户信息键
+     */
+    private static final DefaultRedisScript<Long> LEGACY_SESSION_CHECK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[3]) == 1 then redis.call('RENAME', KEYS[3], KEYS[1]) end\n" +
+            "if redis.call('EXISTS', KEYS[4]) == 1 then redis.call('RENAME', KEYS[4], KEYS[2]) end\n" +
+            SESSION_CHECK_LUA, Long.class);
+
+    /**
+     * 刷新令牌轮换脚本：一次往返完成 旧刷新令牌作废（防重放）+ 读取用户吊销纪元
+     * 轮换作废的黑名单值为 rotated，与登出写入的黑名单值区分：只有已轮换的令牌再次出现才视为重放
+     * KEYS[1]=刷新令牌黑名单键，KEYS[2]=用户纪元键，ARGV[1]=黑名单秒数
+     * 返回：-1=刷新令牌已轮换（重放），-2=刷新令牌已登出，否则为当前纪元
+     */
+    private static final DefaultRedisScript<Long> REFRESH_ROTATE_SCRIPT = new DefaultRedisScript<>(
+            "local used = redis.call('GET', KEYS[1])\n" +
+            "if used == 'rotated' then return -1 end\n" +
+            "if used then return -2 end\n" +
+            "redis.call('SET', KEYS[1], 'rotated', 'EX', ARGV[1])\n" +
+            "return tonumber(redis.call('GET', KEYS[2]) or '0')", Long.class);
+    private static final long REFRESH_REPLAYED = -1;
+
+    /**
+     * 读取用户吊销纪元（纪元按整数存储，不经过值序列化器）
+     */
+    private static final DefaultRedisScript<Long> EPOCH_GET_SCRIPT = new DefaultRedisScript<>(
+            "return tonumber(redis.call('GET', KEYS[1]) or '0')", Long.class);
+
+    /**
+     * 递增用户吊销纪元，KEYS[1]=用户纪元键，ARGV[1]=纪元键有效期（不短于刷新令牌有效期）
+     */
+    private static final DefaultRedisScript<Long> EPOCH_BUMP_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = redis.call('INCR', KEYS[1])\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1])\n" +
+            "return epoch", Long.class);
+
+    /**
+     * 预构建的签名密钥与解析器（启动时构建一次，避免每次解析重复解码密钥）
+     */
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * 签名校验次数（用于观测每个请求的验签开销）
+     */
+    private final AtomicLong verifyCount = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // 与 signWith(alg, String) 保持一致：配置中的密钥按Base64解码
+        this.signingKey = new SecretKeySpec(TextCodec.BASE64.decode(secret), SignatureAlgorithm.HS512.getJcaName());
+        this.jwtParser = Jwts.parser().setSigningKey(signingKey);
+    }
 
     /**
-     * 生成JWT令牌
+     * 生成JWT令牌（会话模式：不设置exp，会话有效期由Redis用户信息缓存控制）
      */
     public String generateToken(JwtUserDetails userDetails) {
-        log.info("生成Token时的JWT密钥：{}，密钥长度：{}", secret, secret == null ? 0 : secret.length());
+        return buildToken(accessClaims(userDetails), userDetails.getUsername(), 0);
+    }
+
+    /**
+     * 生成短期访问令牌（无状态模式：携带exp与用户吊销纪元，请求校验不访问Redis）
+     */
+    public String generateAccessToken(JwtUserDetails userDetails, long epoch) {
+        Map<String, Object> claims = accessClaims(userDetails);
+        claims.put(CLAIM_EPOCH, epoch);
+        return buildToken(claims, userDetails.getUsername(), accessTtlSeconds);
+    }
+
+    /**
+     * 生成刷新令牌（无状态模式）：只携带身份信息，不能用于访问接口
+     */
+    public String generateRefreshToken(JwtUserDetails userDetails, long epoch) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", userDetails.getUserId());
+        claims.put("account", userDetails.getAccount());
+        claims.put("orgId", userDetails.getOrgId());
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH);
+        claims.put(CLAIM_EPOCH, epoch);
+        return buildToken(claims, userDetails.getUsername(), refreshTtlSeconds);
+    }
+
+    private Map<String, Object> accessClaims(JwtUserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userDetails.getUserId());
         claims.put("account", userDetails.getAccount());
@@ -50,34 +210,42 @@ public class JwtTokenUtil{
         claims.put("authorities", userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList()));
-        if (userDetails.getPermissions() != null) {
-            claims.put("permissions", userDetails.getPermissions());
-        } else {
-            claims.put("permissions", userDetails.getAuthorities().stream()
-                    .map(GrantedAuthority::getAuthority)
-                    .collect(Collectors.toList()));
+        Collection<String> permissions = userDetails.getPermissions();
+        if (trustPermissionClaims) {
+            // 信任模式下Token权限即授权依据：取与接口校验一致的有效权限（排除停用角色），并写入对应的权限版本
+            permissions = rbacIndex.getEffectivePermissions(userDetails.getUserId(), userDetails.getOrgId());
+            claims.put(VerifiedToken.CLAIM_PERMISSION_STAMP,
+                    rbacIndex.getPermissionVersion(userDetails.getUserId(), userDetails.getOrgId()));
         }
+        // 权限标识不再逐条写入，只携带 字典版本(pv) + 权限位图(pb)
+        claims.put(VerifiedToken.CLAIM_PERMISSION_VERSION, permissionDictionary.getVersion());
+        claims.put(VerifiedToken.CLAIM_PERMISSION_BITS, permissionDictionary.encode(permissions));
+        return claims;
+    }
 
-        return Jwts.builder()
+    /**
+     * @param ttlSeconds 有效期（秒），<=0 不设置exp
+     */
+    private String buildToken(Map<String, Object> claims, String subject, long ttlSeconds) {
+        Date now = new Date();
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(claims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date())
-//                .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000))
-                .signWith(SignatureAlgorithm.HS512, secret)
-                .compact();
-
+                .setId(UUID.randomUUID().toString().replace("-", ""))
+                .setSubject(subject)
+                .setIssuedAt(now);
+        if (ttlSeconds > 0) {
+            builder.setExpiration(new Date(now.getTime() + ttlSeconds * 1000));
+        }
+        return builder.signWith(SignatureAlgorithm.HS512, signingKey).compact();
     }
 
     /**
      * 解析JWT令牌（针对性捕获异常，确保过期Token返回null）
      */
     public Claims getClaimsFromToken(String token) {
-        log.info("验证Token时的JWT密钥：{}，密钥长度：{}", secret, secret == null ? 0 : secret.length());
         try {
-            return Jwts.parser()
-                    .setSigningKey(secret)
-                    .parseClaimsJws(token)
-                    .getBody();
+            verifyCount.incrementAndGet();
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             log.warn("JWT Token已过期: {}", token.substring(Math.max(0, token.length() - 10)));
             return null;
@@ -90,6 +258,170 @@ public class JwtTokenUtil{
         }
     }
 
+    /**
+     * 验签并解析Token，一个请求只应调用一次，结果由 {@link VerifiedToken} 在请求内复用
+     * @return 验签失败/已过期返回null
+     */
+    public VerifiedToken verify(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return null;
+        }
+        Claims claims = getClaimsFromToken(token);
+        if (claims == null) {
+            return null;
+        }
+        String permissionVersion = claims.get(VerifiedToken.CLAIM_PERMISSION_VERSION, String.class);
+        Set<String> permissions = permissionDictionary.decode(permissionVersion,
+                claims.get(VerifiedToken.CLAIM_PERMISSION_BITS, String.class));
+        // 已验签的Token带字典版本却无法解码：版本已超出保留的历史
+        return new VerifiedToken(token, claims, permissions, permissionVersion != null && permissions == null);
+    }
+
+    /**
+     * 校验已验签Token的载荷（未过期 + 用户名匹配），不再重复解析，也不访问Redis
+     */
+    public boolean validateToken(VerifiedToken verifiedToken) {
+        if (verifiedToken == null || verifiedToken.isExpired() || isRefreshToken(verifiedToken)) {
+            return false;
+        }
+        String subject = verifiedToken.getClaims().getSubject();
+        return subject != null && subject.equals(verifiedToken.getUserDetails().getUsername());
+    }
+
+    /**
+     * 一次Redis往返校验Token会话：黑名单 + 用户信息缓存，slide=true 时同时续期用户信息缓存
+     * 本地已知吊销的Token直接拒绝，不访问Redis
+     */
+    public TokenSessionStatus checkSession(VerifiedToken verifiedToken, boolean slide) {
+        String sessionId = verifiedToken.getSessionId();
+        if (Boolean.TRUE.equals(revocationCache.lookup(sessionId))) {
+            return TokenSessionStatus.REVOKED;
+        }
+        // 无状态访问令牌：签名 + exp 即可，登出吊销由本地缓存与广播覆盖，不访问Redis
+        if (isStatelessToken(verifiedToken)) {
+            return TokenSessionStatus.VALID;
+        }
+        String slideSeconds = String.valueOf(slide ? expiration : 0);
+        Long code;
+        if (verifiedToken.isLegacy()) {
+            String token = verifiedToken.getToken();
+            code = redisUtil.executeScript(LEGACY_SESSION_CHECK_SCRIPT,
+                    Arrays.asList(TOKEN_BLACKLIST_PREFIX + sessionId, USER_INFO_PREFIX + sessionId,
+                            TOKEN_BLACKLIST_PREFIX + token, USER_INFO_PREFIX + token),
+                    slideSeconds);
+        } else {
+            code = redisUtil.executeScript(SESSION_CHECK_SCRIPT,
+                    Arrays.asList(TOKEN_BLACKLIST_PREFIX + sessionId, USER_INFO_PREFIX + sessionId),
+                    slideSeconds);
+        }
+        TokenSessionStatus status = TokenSessionStatus.of(code);
+        if (status == TokenSessionStatus.REVOKED) {
+            revocationCache.markRevoked(sessionId, System.currentTimeMillis() + revokedCacheMillis(verifiedToken.getRemainingSeconds()));
+        } else if (status == TokenSessionStatus.VALID) {
+            revocationCache.markNotRevoked(sessionId);
+        }
+        return status;
+    }
+
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    public boolean isTrustPermissionClaims() {
+        return trustPermissionClaims;
+    }
+
+    public long getAccessTtlSeconds() {
+        return accessTtlSeconds;
+    }
+
+    public long getRefreshTtlSeconds() {
+        return refreshTtlSeconds;
+    }
+
+    /**
+     * 是否按无状态访问令牌校验：启用无状态模式且Token带exp（切换前签发的无exp Token仍走Redis会话校验）
+     */
+    public boolean isStatelessToken(VerifiedToken verifiedToken) {
+        return stateless && verifiedToken.getExpiration() != null;
+    }
+
+    public boolean isRefreshToken(VerifiedToken verifiedToken) {
+        return TOKEN_TYPE_REFRESH.equals(verifiedToken.getClaims().get(CLAIM_TOKEN_TYPE, String.class));
+    }
+
+    /**
+     * 验签并解析刷新令牌
+     * @return 非刷新令牌、验签失败或已过期返回null
+     */
+    public VerifiedToken verifyRefreshToken(String refreshToken) {
+        VerifiedToken verifiedToken = verify(refreshToken);
+        if (verifiedToken == null || verifiedToken.isExpired() || !isRefreshToken(verifiedToken)) {
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    /**
+     * 轮换刷新令牌：作废本次使用的刷新令牌并校验吊销纪元（一次Redis往返）
+     * 已轮换过的刷新令牌再次出现视为泄露，递增纪元吊销该用户全部刷新令牌；
+     * 已登出的刷新令牌只是无效（客户端登出后重试），不吊销该用户其他设备的令牌
+     * @return 当前纪元；刷新令牌已作废或早于当前纪元时返回-1
+     */
+    public long rotateRefreshToken(VerifiedToken refreshToken) {
+        Long userId = refreshToken.getUserDetails().getUserId();
+        Long result = redisUtil.executeScript(REFRESH_ROTATE_SCRIPT,
+                Arrays.asList(TOKEN_BLACKLIST_PREFIX + refreshToken.getSessionId(), USER_EPOCH_PREFIX + userId),
+                String.valueOf(Math.max(1, refreshToken.getRemainingSeconds())));
+        if (result == null) {
+            return -1;
+        }
+        long epoch = result;
+        if (epoch == REFRESH_REPLAYED) {
+            log.warn("刷新令牌重复使用，吊销用户全部令牌，userId：{}", userId);
+            revokeUserTokens(userId);
+            return -1;
+        }
+        if (epoch < 0) {
+            log.info("刷新令牌已登出，userId：{}", userId);
+            return -1;
+        }
+        Long tokenEpoch = refreshToken.getClaims().get(CLAIM_EPOCH, Long.class);
+        // 纪元键过期后回落为0，只拒绝早于当前纪元的令牌
+        if (tokenEpoch == null || tokenEpoch < epoch) {
+            return -1;
+        }
+        return epoch;
+    }
+
+    /**
+     * 当前用户吊销纪元（登录签发令牌时读取）
+     */
+    public long getUserEpoch(Long userId) {
+        Long epoch = redisUtil.executeScript(EPOCH_GET_SCRIPT, Collections.singletonList(USER_EPOCH_PREFIX + userId));
+        return epoch == null ? 0 : epoch;
+    }
+
+    /**
+     * 吊销用户全部刷新令牌（递增纪元），已签发的访问令牌在其短期有效期内自然过期
+     * 纪元只约束无状态模式的刷新令牌，未开启无状态模式时不访问Redis
+     */
+    public void revokeUserTokens(Long userId) {
+        if (userId == null || !stateless) {
+            return;
+        }
+        redisUtil.executeScript(EPOCH_BUMP_SCRIPT, Collections.singletonList(USER_EPOCH_PREFIX + userId),
+                String.valueOf(refreshTtlSeconds));
+        log.info("用户吊销纪元已递增，userId：{}", userId);
+    }
+
+    /**
+     * 累计签名校验次数
+     */
+    public long getVerifyCount() {
+        return verifyCount.get();
+    }
+
     /**
      * 验证JWT令牌是否有效（用户名匹配 + 未过期 + 非黑名单）
      */
@@ -98,11 +430,11 @@ public class JwtTokenUtil{
             return false;
         }
         Claims claims = getClaimsFromToken(token);
-        if (claims == null || isTokenInBlacklist(token)) {
+        if (claims == null || isExpired(claims) || isSessionRevoked(sessionIdOf(token, claims))) {
             return false;
         }
         String subject = claims.getSubject();
-        return subject != null && subject.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return subject != null && subject.equals(userDetails.getUsername());
     }
 
     /**
@@ -112,26 +444,42 @@ public class JwtTokenUtil{
         if (token == null || token.trim().isEmpty()) {
             return false;
         }
-        // 1. 优先校验黑名单
-        if (isTokenInBlacklist(token)) {
-            return false;
-        }
-        // 2. 校验JWT是否过期且能解析
+        // 1. 校验JWT能解析且未过期
         Claims claims = getClaimsFromToken(token);
-        if (claims == null) {
+        if (claims == null || isExpired(claims)) {
             return false;
         }
-        return !isTokenExpired(token);
+        // 2. 校验黑名单
+        return !isSessionRevoked(sessionIdOf(token, claims));
     }
 
     /**
-     * 判断Token是否过期
+     * 校验已验签Token是否有效（未过期 + 非黑名单），不再重复解析
      */
-    private boolean isTokenExpired(String token) {
-        Date expirationDate = getExpirationFromToken(token);
+    public boolean isTokenValid(VerifiedToken verifiedToken) {
+        return verifiedToken != null && !verifiedToken.isExpired() && !isSessionRevoked(verifiedToken.getSessionId());
+    }
+
+    private boolean isExpired(Claims claims) {
+        Date expirationDate = claims.getExpiration();
         return expirationDate != null && expirationDate.before(new Date());
     }
 
+    /**
+     * 解析Token对应的会话ID（Redis会话键、黑名单键的后缀）
+     */
+    public String resolveSessionId(String token) {
+        return sessionIdOf(token, getClaimsFromToken(token));
+    }
+
+    /**
+     * 会话ID：优先使用jti；旧Token无jti（或无法解析）时使用Token的SHA-256摘要，保证键长固定
+     */
+    private static String sessionIdOf(String token, Claims claims) {
+        String jti = claims == null ? null : claims.getId();
+        return jti != null ? jti : VerifiedToken.sha256Hex(token);
+    }
+
     /**
      * 获取Token剩余时间（秒）
      */
@@ -149,27 +497,22 @@ public class JwtTokenUtil{
     }
 
     /**
-     * 构建用户信息Redis键名
+     * 构建用户信息Redis键名（按会话ID，不再拼接完整Token）
      */
     public String buildUserInfoKey(String token) {
-        return USER_INFO_PREFIX + token;
+        return USER_INFO_PREFIX + resolveSessionId(token);
+    }
+
+    public String buildUserInfoKey(VerifiedToken verifiedToken) {
+        return USER_INFO_PREFIX + verifiedToken.getSessionId();
     }
 
     /**
-     * 更新Redis用户信息缓存过期时间（无感续期核心方法）
+     * 申请续期Redis用户信息缓存（无感续期核心方法），续期窗口内只续期一次，由后台线程批量执行
+     * @return true=已提交续期，false=窗口内已续期
      */
-    public boolean refreshUserInfoCache(String token) {
-        if (token == null || token.trim().isEmpty()) {
-            return false;
-        }
-        String userInfoKey = buildUserInfoKey(token);
-        if (!redisUtil.hasKey(userInfoKey)) {
-            return false;
-        }
-        // 更新过期时间为原始JWT过期时间
-        redisUtil.expire(userInfoKey, expiration, TimeUnit.SECONDS);
-        log.info("Token用户信息缓存已续期: {}", token.substring(Math.max(0, token.length() - 10)));
-        return true;
+    public boolean refreshUserInfoCache(VerifiedToken verifiedToken) {
+        return sessionRenewalService.requestRenewal(buildUserInfoKey(verifiedToken));
     }
 
     public Date getExpirationFromToken(String token) {
@@ -188,25 +531,73 @@ public class JwtTokenUtil{
         return this.expiration;
     }
 
+    /**
+     * 是否在黑名单中（优先读本地吊销缓存，未命中再查Redis并回填）
+     */
     public boolean isTokenInBlacklist(String token) {
         if (token == null || token.trim().isEmpty()) {
             return false;
         }
-        String blacklistKey = TOKEN_BLACKLIST_PREFIX + token;
-        return redisUtil.hasKey(blacklistKey);
+        return isSessionRevoked(resolveSessionId(token));
     }
 
+    private boolean isSessionRevoked(String sessionId) {
+        Boolean cached = revocationCache.lookup(sessionId);
+        if (cached != null) {
+            return cached;
+        }
+        boolean revoked = redisUtil.hasKey(TOKEN_BLACKLIST_PREFIX + sessionId);
+        if (revoked) {
+            revocationCache.markRevoked(sessionId, System.currentTimeMillis() + revokedCacheMillis(0));
+        } else {
+            revocationCache.markNotRevoked(sessionId);
+        }
+        return revoked;
+    }
+
+    /**
+     * 加入黑名单并广播吊销消息，其他节点据此更新本地吊销缓存
+     * Token未设置exp时，以用户信息缓存有效期作为黑名单有效期（超过该时间会话已失效）
+     */
     public void addTokenToBlacklist(String token) {
         if (token == null || token.trim().isEmpty()) {
             return;
         }
-        long remainingTime = getTokenRemainingTime(token);
-        if (remainingTime <= 0) {
-            return;
+        Claims claims = getClaimsFromToken(token);
+        long remainingTime = 0;
+        if (claims != null && claims.getExpiration() != null) {
+            remainingTime = Math.max(0, (claims.getExpiration().getTime() - System.currentTimeMillis()) / 1000);
+        }
+        blacklist(sessionIdOf(token, claims), remainingTime, token.substring(Math.max(0, token.length() - 10)));
+    }
+
+    /**
+     * 已验签Token加入黑名单，不再重复解析
+     */
+    public void addTokenToBlacklist(VerifiedToken verifiedToken) {
+        blacklist(verifiedToken.getSessionId(), verifiedToken.getRemainingSeconds(), verifiedToken.getTokenSuffix());
+    }
+
+    private void blacklist(String sessionId, long remainingTime, String tokenSuffix) {
+        long blacklistSeconds = remainingTime > 0 ? remainingTime : expiration;
+        redisUtil.set(TOKEN_BLACKLIST_PREFIX + sessionId, "invalid", blacklistSeconds, TimeUnit.SECONDS);
+
+        long expireAt = System.currentTimeMillis() + blacklistSeconds * 1000;
+        revocationCache.markRevoked(sessionId, expireAt);
+        try {
+            redisUtil.publish(TokenRevocationCache.REVOKED_CHANNEL, TokenRevocationCache.buildMessage(sessionId, expireAt));
+        } catch (Exception e) {
+            // 广播失败不影响登出：其他节点仍会在会话校验时从Redis读到黑名单
+            log.error("Token吊销广播失败: {}", tokenSuffix, e);
         }
-        String blacklistKey = TOKEN_BLACKLIST_PREFIX + token;
-        redisUtil.set(blacklistKey, "invalid", remainingTime, TimeUnit.SECONDS);
-        log.info("Token已加入黑名单: {}", token.substring(Math.max(0, token.length() - 10)));
+        log.info("Token已加入黑名单: {}", tokenSuffix);
+    }
+
+    /**
+     * 已吊销记录的本地缓存时长：Token剩余有效期，未设置exp时取用户信息缓存有效期
+     */
+    private long revokedCacheMillis(long remainingSeconds) {
+        return (remainingSeconds > 0 ? remainingSeconds : expiration) * 1000;
     }
 
     public long getExpirationTimeFromToken(String token) {
@@ -0,0 +1,274 @@
+package com.train.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 核型题标准答案的编译形式（ISCN，如 46,XX,t(4;21)(p15.2;q22)）
+ * 1. 标准答案按"||"拆成多个可选答案，每个答案规范化后解析为 染色体数目、性染色体、按书写顺序排列的结构/数目异常
+ * 2. 规范化：全角字符转半角、去掉空白、补齐缺失的右括号；大小写与异常的先后顺序在 ISCN 中有含义，保持原样
+ * 3. 判分时提交答案只做一趟规范化，再与各可选答案的规范形式做哈希比较，耗时与答案长度成线性
+ * 4. 题目配置了近似答案距离时，不完全一致的提交再与各可选答案计算有上限的编辑距离（{@link BoundedEditDistance}），
+ *    距离在上限内按近似答案给分
+ * 编译结果不可变，可按题目缓存复用
+ */
+public final class KaryotypeAnswer {
+
+    private static final String ALTERNATIVE_SEPARATOR = "||";
+    private static final char ITEM_SEPARATOR = ',';
+
+    /**
+     * 空标准答案：任何提交都不匹配
+     */
+    public static final KaryotypeAnswer EMPTY = new KaryotypeAnswer(Collections.<Karyotype>emptyList(), 0, 0);
+
+    private final List<Karyotype> alternatives;
+    private final Set<String> canonicalForms;
+
+    /**
+     * 近似答案允许的最大编辑距离，0表示不启用
+     */
+    private final int nearMissMaxDistance;
+    private final int nearMissScore;
+    /**
+     * 各可选答案的编辑距离计算器（未启用近似答案时为空列表）
+     */
+    private final List<BoundedEditDistance> nearMissMatchers;
+
+    private KaryotypeAnswer(List<Karyotype> alternatives, int nearMissMaxDistance, int nearMissScore) {
+        this.alternatives = alternatives;
+        Set<String> forms = new HashSet<>(alternatives.size() * 2);
+        for (Karyotype karyotype : alternatives) {
+            forms.add(karyotype.getCanonical());
+        }
+        this.canonicalForms = forms;
+        this.nearMissMaxDistance = nearMissMaxDistance;
+        this.nearMissScore = nearMissScore;
+        List<BoundedEditDistance> matchers = new ArrayList<>(nearMissMaxDistance > 0 ? alternatives.size() : 0);
+        if (nearMissMaxDistance > 0) {
+            for (Karyotype karyotype : alternatives) {
+                matchers.add(new BoundedEditDistance(karyotype.getCanonical()));
+            }
+        }
+        this.nearMissMatchers = matchers;
+    }
+
+    /**
+     * 编译标准答案（不启用近似答案）
+     */
+    public static KaryotypeAnswer compile(String standardAnswer) {
+        return compile(standardAnswer, null, null);
+    }
+
+    /**
+     * 编译标准答案
+     * @param nearMissMaxDistance 近似答案允许的最大编辑距离（按规范形式的字符计），为空或不大于0时不启用
+     * @param nearMissScore 近似答案得分，为空时按0分
+     */
+    public static KaryotypeAnswer compile(String standardAnswer, Integer nearMissMaxDistance, Integer nearMissScore) {
+        if (standardAnswer == null || standardAnswer.isEmpty()) {
+            return EMPTY;
+        }
+        List<Karyotype> alternatives = new ArrayList<>(2);
+        int start = 0;
+        while (start <= standardAnswer.length()) {
+            int end = standardAnswer.indexOf(ALTERNATIVE_SEPARATOR, start);
+            if (end < 0) {
+                end = standardAnswer.length();
+            }
+            Karyotype karyotype = Karyotype.parse(standardAnswer.substring(start, end));
+            if (karyotype != null) {
+                alternatives.add(karyotype);
+            }
+            start = end + ALTERNATIVE_SEPARATOR.length();
+        }
+        if (alternatives.isEmpty()) {
+            return EMPTY;
+        }
+        int maxDistance = nearMissMaxDistance == null ? 0 : Math.max(0, nearMissMaxDistance);
+        int score = nearMissScore == null ? 0 : Math.max(0, nearMissScore);
+        return new KaryotypeAnswer(Collections.unmodifiableList(alternatives), maxDistance, score);
+    }
+
+    /**
+     * 提交答案是否与任一可选答案一致
+     */
+    public boolean matches(String submission) {
+        if (alternatives.isEmpty() || submission == null) {
+            return false;
+        }
+        String canonical = canonicalize(submission);
+        return !canonical.isEmpty() && canonicalForms.contains(canonical);
+    }
+
+    /**
+     * 提交答案与最接近的可选答案的编辑距离
+     * @return 0-完全一致；1~最大距离-近似答案；-1-不一致且不在近似范围内（或未启用近似答案）
+     */
+    public int distance(String submission) {
+        if (alternatives.isEmpty() || submission == null) {
+            return -1;
+        }
+        String canonical = canonicalize(submission);
+        if (canonical.isEmpty()) {
+            return -1;
+        }
+        if (canonicalForms.contains(canonical)) {
+            return 0;
+        }
+        int best = nearMissMaxDistance + 1;
+        for (BoundedEditDistance matcher : nearMissMatchers) {
+            // 只关心比当前最优更近的可选答案，上限随之收紧
+            best = Math.min(best, matcher.distance(canonical, best - 1));
+            if (best == 1) {
+                break;
+            }
+        }
+        return best <= nearMissMaxDistance ? best : -1;
+    }
+
+    public int getNearMissMaxDistance() {
+        return nearMissMaxDistance;
+    }
+
+    public int getNearMissScore() {
+        return nearMissScore;
+    }
+
+    public List<Karyotype> getAlternatives() {
+        return alternatives;
+    }
+
+    public boolean isEmpty() {
+        return alternatives.isEmpty();
+    }
+
+    /**
+     * 规范化核型字符串（一趟扫描）
+     * 全角转半角；去掉空白；逗号处补齐未闭合的括号，多余的右括号丢弃；空的项（连续逗号、首尾逗号）去掉
+     */
+    public static String canonicalize(String text) {
+        StringBuilder builder = new StringBuilder(text.length() + 4);
+        int depth = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = toHalfWidth(text.charAt(i));
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                continue;
+            }
+            if (c == ITEM_SEPARATOR) {
+                depth = closeParentheses(builder, depth);
+                if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ITEM_SEPARATOR) {
+                    builder.append(c);
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (depth == 0) {
+                    continue;
+                }
+                depth--;
+            }
+            builder.append(c);
+        }
+        closeParentheses(builder, depth);
+        int length = builder.length();
+        if (length > 0 && builder.charAt(length - 1) == ITEM_SEPARATOR) {
+            builder.setLength(length - 1);
+        }
+        return builder.toString();
+    }
+
+    private static int closeParentheses(StringBuilder builder, int depth) {
+        for (; depth > 0; depth--) {
+            builder.append(')');
+        }
+        return 0;
+    }
+
+    /**
+     * 全角ASCII（！～，含全角括号、逗号、分号）转半角
+     */
+    private static char toHalfWidth(char c) {
+        return c >= '\uFF01' && c <= '\uFF5E' ? (char) (c - 0xFEE0) : c;
+    }
+
+    /**
+     * 单个核型的解析结果
+     */
+    public static final class Karyotype {
+        /**
+         * 染色体数目（如 46，也可能是 45~47 等写法，按原样保留）
+         */
+        private final String chromosomeCount;
+        /**
+         * 性染色体组成（如 XX、XXY），缺省时为空字符串
+         */
+        private final String sexChromosomes;
+        /**
+         * 异常项，保持书写顺序（ISCN 规定了排列顺序）
+         */
+        private final List<String> abnormalities;
+        private final String canonical;
+
+        private Karyotype(String chromosomeCount, String sexChromosomes, List<String> abnormalities, String canonical) {
+            this.chromosomeCount = chromosomeCount;
+            this.sexChromosomes = sexChromosomes;
+            this.abnormalities = abnormalities;
+            this.canonical = canonical;
+        }
+
+        /**
+         * 解析单个核型，规范化后为空时返回null
+         */
+        public static Karyotype parse(String text) {
+            String canonical = canonicalize(text);
+            if (canonical.isEmpty()) {
+                return null;
+            }
+            List<String> items = new ArrayList<>();
+            int start = 0;
+            while (start <= canonical.length()) {
+                int end = canonical.indexOf(ITEM_SEPARATOR, start);
+                if (end < 0) {
+                    end = canonical.length();
+                }
+                items.add(canonical.substring(start, end));
+                start = end + 1;
+            }
+            String sexChromosomes = items.size() > 1 ? items.get(1) : "";
+            List<String> abnormalities = items.size() > 2
+                    ? Collections.unmodifiableList(new ArrayList<>(items.subList(2, items.size())))
+                    : Collections.<String>emptyList();
+            return new Karyotype(items.get(0), sexChromosomes, abnormalities, canonical);
+        }
+
+        public String getChromosomeCount() {
+            return chromosomeCount;
+        }
+
+        public String getSexChromosomes() {
+            return sexChromosomes;
+        }
+
+        public List<String> getAbnormalities() {
+            return abnormalities;
+        }
+
+        /**
+         * 规范形式（项之间以逗号连接）
+         */
+        public String getCanonical() {
+            return canonical;
+        }
+
+        @Override
+        public String toString() {
+            return canonical;
+        }
+    }
+}
@@ -77,7 +77,7 @@ public class QuestionSqlGenerator {
     }
 
     // 获取30道题目答案列表
-    private static List<String> getQuestionAnswers() {
+    public static List<String> getQuestionAnswers() {
         List<String> answers = new ArrayList<>();
         answers.add("46,XX,t(4;21)(p15.2;q22)");
         answers.add("46,XY,t(2;5)(q11.2;p13)");
@@ -1,9 +1,14 @@
 package com.train.util;
 
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.Resource;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -12,6 +17,9 @@ public class RedisUtil {
     @Resource
     private RedisTemplate<String, Object> redisTemplate;
 
+    private static final StringRedisSerializer SCRIPT_ARGS_SERIALIZER = new StringRedisSerializer();
+    private static final GenericToStringSerializer<Long> LONG_RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
     /**
      * 存入Redis键值对（带过期时间）
      * @param key 键
@@ -84,4 +92,36 @@ public class RedisUtil {
     public boolean expire(String key,  long timeout, final  TimeUnit seconds) {
         return redisTemplate.expire(key, timeout, seconds);
     }
-}
\ No newline at end of file
+
+    /**
+     * 执行返回整数的Lua脚本（参数按纯字符串传递，不经过JSON序列化）
+     * @param script 脚本
+     * @param keys KEYS
+     * @param args ARGV
+     * @return 脚本返回值
+     */
+    public Long executeScript(RedisScript<Long> script, List<String> keys, String... args) {
+        return redisTemplate.execute(script, SCRIPT_ARGS_SERIALIZER, LONG_RESULT_SERIALIZER, keys, (Object[]) args);
+    }
+
+    /**
+     * 发布纯字符串消息（不经过JSON序列化，便于订阅方直接按UTF-8解析）
+     */
+    public void publish(String channel, String message) {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                SCRIPT_ARGS_SERIALIZER.serialize(channel), SCRIPT_ARGS_SERIALIZER.serialize(message)));
+    }
+
+    /**
+     * 批量设置过期时间（pipeline一次往返发送，不存在的键忽略）
+     */
+    public void expireBatch(Collection<String> keys, long timeout, TimeUnit unit) {
+        long seconds = unit.toSeconds(timeout);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.expire(SCRIPT_ARGS_SERIALIZER.serialize(key), seconds);
+            }
+            return null;
+        });
+    }
+}
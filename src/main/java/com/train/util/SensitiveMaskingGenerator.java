@@ -0,0 +1,390 @@
+package com.train.util;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.JsonGeneratorDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.regex.Pattern;
+
+/**
+ * 序列化时即完成脱敏的JSON生成器（单趟：不再 序列化 → 解析成树 → 遍历脱敏 → 再序列化）
+ * 脱敏规则：
+ * 1. 字段名整体匹配敏感模式时，字段值（无论标量、对象还是数组）整体替换为 ***
+ * 2. 数组中的字符串元素包含敏感词时替换为 ***
+ */
+public class SensitiveMaskingGenerator extends JsonGeneratorDelegate {
+
+    public static final String MASK = "***";
+
+    private final Pattern sensitivePattern;
+
+    /**
+     * 下一个值是否需要整体替换
+     */
+    private boolean maskNext;
+
+    /**
+     * 被替换的对象/数组内部的嵌套深度，大于0时丢弃所有写入
+     */
+    private int skipDepth;
+
+    public SensitiveMaskingGenerator(JsonGenerator delegate, Pattern sensitivePattern) {
+        // 不委托copy/writeObject：对象序列化经过本生成器，嵌套值同样脱敏
+        super(delegate, false);
+        this.sensitivePattern = sensitivePattern;
+    }
+
+    /**
+     * 序列化并脱敏
+     */
+    public static String writeValueAsString(ObjectMapper objectMapper, Object value, Pattern sensitivePattern) throws IOException {
+        StringWriter writer = new StringWriter(128);
+        try (JsonGenerator generator = new SensitiveMaskingGenerator(objectMapper.getFactory().createGenerator(writer), sensitivePattern)) {
+            objectMapper.writeValue(generator, value);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * 标量值写入前调用：丢弃中或已替换时返回true
+     */
+    private boolean consumeScalar() throws IOException {
+        if (skipDepth > 0) {
+            return true;
+        }
+        if (maskNext) {
+            maskNext = false;
+            delegate.writeString(MASK);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 对象/数组开始前调用：丢弃中或已替换时返回true
+     */
+    private boolean consumeStart() throws IOException {
+        if (skipDepth > 0) {
+            skipDepth++;
+            return true;
+        }
+        if (maskNext) {
+            maskNext = false;
+            delegate.writeString(MASK);
+            skipDepth = 1;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean consumeEnd() {
+        if (skipDepth > 0) {
+            skipDepth--;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isSensitiveArrayElement(String text) {
+        return text != null && delegate.getOutputContext().inArray() && sensitivePattern.matcher(text).find();
+    }
+
+    // ==================== 结构 ====================
+
+    @Override
+    public void writeStartObject() throws IOException {
+        if (!consumeStart()) {
+            delegate.writeStartObject();
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue) throws IOException {
+        if (!consumeStart()) {
+            delegate.writeStartObject(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartObject(Object forValue, int size) throws IOException {
+        if (!consumeStart()) {
+            delegate.writeStartObject(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (!consumeEnd()) {
+            delegate.writeEndObject();
+        }
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        if (!consumeStart()) {
+            delegate.writeStartArray();
+        }
+    }
+
+    @Override
+    @Deprecated
+    public void writeStartArray(int size) throws IOException {
+        if (!consumeStart()) {
+            delegate.writeStartArray(size);
+        }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue) throws IOException {
+        if (!consumeStart()) {
+            delegate.writeStartArray(forValue);
+        }
+    }
+
+    @Override
+    public void writeStartArray(Object forValue, int size) throws IOException {
+        if (!consumeStart()) {
+            delegate.writeStartArray(forValue, size);
+        }
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (!consumeEnd()) {
+            delegate.writeEndArray();
+        }
+    }
+
+    @Override
+    public void writeArray(int[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(long[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(double[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeNumber(array[i]);
+        }
+        writeEndArray();
+    }
+
+    @Override
+    public void writeArray(String[] array, int offset, int length) throws IOException {
+        writeStartArray(array, length);
+        for (int i = offset, end = offset + length; i < end; i++) {
+            writeString(array[i]);
+        }
+        writeEndArray();
+    }
+
+    // ==================== 字段名 ====================
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (skipDepth > 0) {
+            return;
+        }
+        maskNext = sensitivePattern.matcher(name).matches();
+        delegate.writeFieldName(name);
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        if (skipDepth > 0) {
+            return;
+        }
+        maskNext = sensitivePattern.matcher(name.getValue()).matches();
+        delegate.writeFieldName(name);
+    }
+
+    @Override
+    public void writeFieldId(long id) throws IOException {
+        writeFieldName(Long.toString(id));
+    }
+
+    // ==================== 字符串 ====================
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (consumeScalar()) {
+            return;
+        }
+        delegate.writeString(isSensitiveArrayElement(text) ? MASK : text);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        writeString(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeString(SerializableString text) throws IOException {
+        writeString(text.getValue());
+    }
+
+    @Override
+    public void writeString(Reader reader, int len) throws IOException {
+        if (consumeScalar()) {
+            return;
+        }
+        delegate.writeString(reader, len);
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeRawUTF8String(text, offset, length);
+        }
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeUTF8String(text, offset, length);
+        }
+    }
+
+    // ==================== 其他标量 ====================
+
+    @Override
+    public void writeNumber(short v) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(float v) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(v);
+        }
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(encodedValue);
+        }
+    }
+
+    @Override
+    public void writeNumber(char[] encodedValue, int offset, int length) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNumber(encodedValue, offset, length);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeBoolean(state);
+        }
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeNull();
+        }
+    }
+
+    @Override
+    public void writeBinary(Base64Variant b64variant, byte[] data, int offset, int len) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeBinary(b64variant, data, offset, len);
+        }
+    }
+
+    @Override
+    public int writeBinary(Base64Variant b64variant, InputStream data, int dataLength) throws IOException {
+        if (consumeScalar()) {
+            return 0;
+        }
+        return delegate.writeBinary(b64variant, data, dataLength);
+    }
+
+    @Override
+    public void writeRawValue(String text) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeRawValue(text);
+        }
+    }
+
+    @Override
+    public void writeRawValue(String text, int offset, int len) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeRawValue(char[] text, int offset, int len) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeRawValue(text, offset, len);
+        }
+    }
+
+    @Override
+    public void writeEmbeddedObject(Object object) throws IOException {
+        if (!consumeScalar()) {
+            delegate.writeEmbeddedObject(object);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- 操作日志查询/导出权限（PostgreSQL）
+-- 操作日志接口标注了 @RequiresPermission("log:read")；security.permission.fail-on-unknown=true 时菜单表中缺少该标识会导致启动失败，
+-- 升级前先执行本脚本。默认授予机构管理员角色，超级管理员无需授权；脚本可重复执行
+
+INSERT INTO sys_menu (menu_name, parent_id, path, perms, type, sort, status, create_time)
+SELECT '操作日志', 0, '/sysOperLog', 'log:read', 1, 90, 1, now()
+WHERE NOT EXISTS (SELECT 1 FROM sys_menu WHERE perms = 'log:read');
+
+INSERT INTO sys_role_menu (role_id, menu_id)
+SELECT 'ROLE_ORG_ROLE_ADMIN', m.menu_id
+FROM sys_menu m
+WHERE m.perms = 'log:read'
+  AND NOT EXISTS (SELECT 1 FROM sys_role_menu rm WHERE rm.role_id = 'ROLE_ORG_ROLE_ADMIN' AND rm.menu_id = m.menu_id);
@@ -0,0 +1,4 @@
+-- 题库抽题索引（PostgreSQL）
+-- 抽题快照加载与题库版本检查只读 (org_id, status, question_id)，可走仅索引扫描，不回表
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_question_org_status_id
+    ON train_question (org_id, status, question_id);
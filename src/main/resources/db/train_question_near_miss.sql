@@ -0,0 +1,7 @@
+-- 题目近似答案配置（PostgreSQL）
+-- 两列均为空时该题仍按完全一致判分；配置后，规范化后编辑距离不超过 near_miss_max_distance 的答案得 near_miss_score 分
+ALTER TABLE train_question ADD COLUMN IF NOT EXISTS near_miss_max_distance integer;
+ALTER TABLE train_question ADD COLUMN IF NOT EXISTS near_miss_score integer;
+
+COMMENT ON COLUMN train_question.near_miss_max_distance IS '近似答案允许的最大编辑距离（为空或0时不启用）';
+COMMENT ON COLUMN train_question.near_miss_score IS '近似答案得分（不超过每题满分）';
@@ -0,0 +1,23 @@
+-- 题库版本号（PostgreSQL）
+-- 判分答案缓存按此版本号感知绕过服务的改库（后台直接改库、导入脚本），替代逐行计算全部题目答案指纹
+-- 语句级触发器：每条写入 train_question 的语句只递增一次，与影响行数无关；题库写入频率低，单行更新的行锁开销可忽略
+CREATE TABLE IF NOT EXISTS train_question_version (
+    id      integer PRIMARY KEY,
+    version bigint  NOT NULL
+);
+
+COMMENT ON TABLE train_question_version IS '题库版本号（train_question 每次写入后递增，只有一行）';
+
+INSERT INTO train_question_version (id, version) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION train_question_bump_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE train_question_version SET version = version + 1 WHERE id = 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_train_question_version ON train_question;
+CREATE TRIGGER trg_train_question_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON train_question
+    FOR EACH STATEMENT EXECUTE PROCEDURE train_question_bump_version();
@@ -0,0 +1,54 @@
+package com.train.service;
+
+import com.train.entity.SysRole;
+import com.train.entity.SysUser;
+import com.train.util.BeforeImageRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BeforeImageRegistryTest {
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void testRecordAndTake() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        SysUser first = new SysUser();
+        SysUser second = new SysUser();
+        BeforeImageRegistry.record(first, 5L);
+        // 同一记录以首次登记为准
+        BeforeImageRegistry.record(second, 5L);
+
+        // 主键按字符串比较
+        assertSame(first, BeforeImageRegistry.take(SysUser.class, "5"));
+        assertNull(BeforeImageRegistry.take(SysUser.class, 5L));
+        assertNull(BeforeImageRegistry.take(SysRole.class, 5L));
+    }
+
+    @Test
+    public void testTakeAll() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        SysUser user = new SysUser();
+        SysRole role = new SysRole();
+        BeforeImageRegistry.record(user, 1L);
+        BeforeImageRegistry.record(role, "ROLE_A");
+
+        assertEquals(2, BeforeImageRegistry.takeAll().size());
+        assertTrue(BeforeImageRegistry.takeAll().isEmpty());
+    }
+
+    @Test
+    public void testNoRequestContext() {
+        BeforeImageRegistry.record(new SysUser(), 1L);
+        assertNull(BeforeImageRegistry.take(SysUser.class, 1L));
+        assertTrue(BeforeImageRegistry.takeAll().isEmpty());
+    }
+}
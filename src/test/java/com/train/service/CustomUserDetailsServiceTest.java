@@ -1,11 +1,7 @@
 package com.train.service;
 
-import com.train.entity.SysRole;
-import com.train.entity.SysUser;
-import com.train.entity.SysUserRole;
-import com.train.mapper.SysRoleMapper;
+import com.train.dto.SysUserAuthDTO;
 import com.train.mapper.SysUserMapper;
-import com.train.mapper.SysUserRoleMapper;
 import com.train.security.CustomUserDetailsService;
 import com.train.security.JwtUserDetails;
 import org.junit.jupiter.api.Test;
@@ -14,8 +10,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -23,10 +18,6 @@ import static org.junit.jupiter.api.Assertions.*;
 public class CustomUserDetailsServiceTest {
     @Mock
     private SysUserMapper userMapper;
-    @Mock
-    private SysUserRoleMapper userRoleMapper;
-    @Mock
-    private SysRoleMapper roleMapper;
     @InjectMocks
     private CustomUserDetailsService userDetailsService;
 
@@ -53,20 +44,19 @@ public class CustomUserDetailsServiceTest {
 
     @Test
     public void testLoadUserByUsername_UserNotFound() {
-        when(userMapper.selectOne(any())).thenReturn(null); // 用户不存在
+        when(userMapper.selectAuthUser(any(), any())).thenReturn(null); // 用户不存在
         assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername("test@1001"));
     }
 
     @Test
     public void testLoadUserByUsername_NoRoles() {
         // 无角色关联
-        SysUser user = new SysUser();
+        SysUserAuthDTO user = new SysUserAuthDTO();
         user.setUserId(1L);
         user.setAccount("test");
         user.setOrgId("1001");
         user.setStatus(1);
-        when(userMapper.selectOne(any())).thenReturn(user);
-        when(userRoleMapper.selectList(any())).thenReturn(Collections.emptyList()); // 无角色
+        when(userMapper.selectAuthUser("test", "1001")).thenReturn(user); // 无角色（roleIds为null）
 
         // 执行（应正常返回，权限为空）
         JwtUserDetails details = (JwtUserDetails) userDetailsService.loadUserByUsername("test@1001");
@@ -76,20 +66,13 @@ public class CustomUserDetailsServiceTest {
     @Test
     public void testLoadUserByUsername_RoleIdInvalid() {
         // 角色ID含特殊字符（覆盖正则校验）
-        SysUser user = new SysUser();
+        SysUserAuthDTO user = new SysUserAuthDTO();
         user.setUserId(1L);
         user.setAccount("test");
         user.setOrgId("1001");
         user.setStatus(1);
-        when(userMapper.selectOne(any())).thenReturn(user);
-
-        SysUserRole userRole = new SysUserRole();
-        userRole.setRoleId("role@1"); // 含@，非法
-        when(userRoleMapper.selectList(any())).thenReturn(Collections.singletonList(userRole));
-
-        SysRole role = new SysRole();
-        role.setRoleId("role@1");
-        when(roleMapper.selectList(any())).thenReturn(Collections.singletonList(role));
+        user.setRoleIds(new String[]{"role@1"}); // 含@，非法
+        when(userMapper.selectAuthUser("test", "1001")).thenReturn(user);
 
         // 覆盖角色ID格式校验异常
         assertThrows(IllegalArgumentException.class, () -> userDetailsService.loadUserByUsername("test@1001"));
@@ -98,7 +81,7 @@ public class CustomUserDetailsServiceTest {
     @Test
     public void testLoadUserByUsername_Success() {
         // 正常流程
-        SysUser user = new SysUser();
+        SysUserAuthDTO user = new SysUserAuthDTO();
         user.setUserId(1L);
         user.setAccount("test");
         user.setOrgId("1001");
@@ -106,15 +89,9 @@ public class CustomUserDetailsServiceTest {
         user.setPassword("加密密码");
         user.setIsSysAdmin(0);
         user.setStatus(1);
-        when(userMapper.selectOne(any())).thenReturn(user);
-
-        SysUserRole userRole = new SysUserRole();
-        userRole.setRoleId("ROLE_ADMIN");
-        when(userRoleMapper.selectList(any())).thenReturn(Collections.singletonList(userRole));
-
-        SysRole role = new SysRole();
-        role.setRoleId("ROLE_ADMIN");
-        when(roleMapper.selectList(any())).thenReturn(Collections.singletonList(role));
+        user.setRoleIds(new String[]{"ROLE_ADMIN"});
+        user.setPerms(new String[]{"org:add", "org:read"});
+        when(userMapper.selectAuthUser("test", "1001")).thenReturn(user);
 
         JwtUserDetails details = (JwtUserDetails) userDetailsService.loadUserByUsername("test@1001");
         assertEquals(1L, details.getUserId());
@@ -122,5 +99,6 @@ public class CustomUserDetailsServiceTest {
         assertEquals("加密密码", details.getPassword());
         assertEquals(1, details.getAuthorities().size());
         assertEquals("ROLE_ADMIN", details.getAuthorities().iterator().next().getAuthority());
+        assertEquals(Arrays.asList("org:add", "org:read"), details.getPermissions());
     }
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+package com.train.service;
+
+import com.train.filter.JwtAuthorizationFilter;
+import com.train.filter.JwtTokenRefreshFilter;
+import com.train.security.JwtUserDetails;
+import com.train.security.PermissionDictionary;
+import com.train.security.SessionRenewalService;
+import com.train.security.TokenRevocationCache;
+import com.train.security.VerifiedToken;
+import com.train.service.impl.AuthServiceImpl;
+import com.train.util.JwtTokenUtil;
+import com.train.util.RedisUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.http.HttpServlet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 校验一次请求只做一次JWT签名校验、一次Redis会话校验
+ */
+@ExtendWith(MockitoExtension.class)
+public class JwtTokenVerifyTest {
+    @Mock
+    private RedisUtil redisUtil;
+    @Mock
+    private SessionRenewalService sessionRenewalService;
+    @Spy
+    private TokenRevocationCache revocationCache = new TokenRevocationCache();
+    @Spy
+    private PermissionDictionary permissionDictionary = new PermissionDictionary();
+    @InjectMocks
+    private JwtTokenUtil jwtTokenUtil;
+
+    private String token;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", "train-center-secret-key-2025");
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 600L);
+        jwtTokenUtil.init();
+        permissionDictionary.rebuild(Arrays.asList("user:read", "user:edit", "role:read", "org:read"));
+
+        JwtUserDetails user = new JwtUserDetails();
+        user.setUserId(1L);
+        user.setAccount("test");
+        user.setOrgId("1001");
+        user.setIsSysAdmin(0);
+        user.setAuthorities(Collections.singletonList(new SimpleGrantedAuthority("ORG_ROLE_USER")));
+        user.setPermissions(Arrays.asList("user:read", "org:read"));
+        token = jwtTokenUtil.generateToken(user);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testFilterChain_VerifyOncePerRequest() throws Exception {
+        when(redisUtil.executeScript(any(), anyList(), anyString())).thenReturn(0L);
+
+        JwtAuthorizationFilter authorizationFilter = new JwtAuthorizationFilter(jwtTokenUtil, "/train/auth/login");
+        JwtTokenRefreshFilter refreshFilter = new JwtTokenRefreshFilter(jwtTokenUtil, "/train/auth/login");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/train/sys/org/page");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        long before = jwtTokenUtil.getVerifyCount();
+        // 续期过滤器包裹授权过滤器，模拟完整过滤器链
+        refreshFilter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+        }, authorizationFilter));
+
+        assertEquals(1, jwtTokenUtil.getVerifyCount() - before);
+        // 黑名单 + 会话 + 续期 合并为一次Redis往返，键按jti构建而非完整Token
+        ArgumentCaptor<List<String>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        verify(redisUtil, times(1)).executeScript(any(), keysCaptor.capture(), anyString());
+        verifyNoMoreInteractions(redisUtil);
+        String jti = VerifiedToken.from(request).getSessionId();
+        assertEquals(32, jti.length());
+        assertEquals(Arrays.asList("token:invalid:" + jti, "user:info:" + jti), keysCaptor.getValue());
+        // 续期只入队，不在请求线程访问Redis
+        verify(sessionRenewalService).requestRenewal("user:info:" + jti);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        JwtUserDetails principal = (JwtUserDetails) authentication.getPrincipal();
+        assertEquals("test@1001", principal.getUsername());
+        assertEquals(1L, principal.getUserId());
+
+        VerifiedToken verifiedToken = VerifiedToken.from(request);
+        assertNotNull(verifiedToken);
+        assertSame(verifiedToken, authentication.getDetails());
+        assertEquals(64, verifiedToken.getTokenHash().length());
+    }
+
+    @Test
+    public void testFilter_RevokedToken() throws Exception {
+        when(redisUtil.executeScript(any(), anyList(), anyString())).thenReturn(1L);
+        JwtAuthorizationFilter authorizationFilter = new JwtAuthorizationFilter(jwtTokenUtil, "/train/auth/login");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/train/sys/org/page");
+        request.addHeader("Authorization", "Bearer " + token);
+        authorizationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(VerifiedToken.from(request));
+
+        // 已吊销结果进入本地缓存，再次请求不再访问Redis
+        MockHttpServletRequest again = new MockHttpServletRequest("GET", "/train/sys/org/page");
+        again.addHeader("Authorization", "Bearer " + token);
+        authorizationFilter.doFilter(again, new MockHttpServletResponse(), new MockFilterChain());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verify(redisUtil, times(1)).executeScript(any(), anyList(), anyString());
+    }
+
+    @Test
+    public void testVerify_PermissionBits() {
+        VerifiedToken verifiedToken = jwtTokenUtil.verify(token);
+        assertNotNull(verifiedToken);
+        // 载荷只携带字典版本与位图，不再携带权限明文
+        assertNull(verifiedToken.getClaims().get("permissions"));
+        assertEquals(permissionDictionary.getVersion(), verifiedToken.getClaims().get(VerifiedToken.CLAIM_PERMISSION_VERSION));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("user:read", "org:read")), verifiedToken.getPermissions());
+        assertEquals(Arrays.asList("user:read", "org:read"), verifiedToken.getUserDetails().getPermissions());
+        // 同一位图的解码结果复用
+        assertSame(verifiedToken.getPermissions(), jwtTokenUtil.verify(token).getPermissions());
+    }
+
+    @Test
+    public void testVerify_InvalidSignature() {
+        long before = jwtTokenUtil.getVerifyCount();
+        assertNull(jwtTokenUtil.verify(token + "x"));
+        assertEquals(1, jwtTokenUtil.getVerifyCount() - before);
+    }
+
+    @Test
+    public void testVerify_OncePerRequest() throws Exception {
+        when(redisUtil.executeScript(any(), anyList(), anyString())).thenReturn(0L);
+        JwtAuthorizationFilter authorizationFilter = new JwtAuthorizationFilter(jwtTokenUtil, "/train/auth/login");
+
+        int requests = 20;
+        long before = jwtTokenUtil.getVerifyCount();
+        for (int i = 0; i < requests; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/train/sys/org/page");
+            request.addHeader("Authorization", "Bearer " + token);
+            authorizationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            SecurityContextHolder.clearContext();
+        }
+        // 每个请求只验签一次
+        assertEquals(requests, jwtTokenUtil.getVerifyCount() - before);
+    }
+
+    @Test
+    public void testLogout_VerifyOnce() {
+        AuthServiceImpl authService = new AuthServiceImpl();
+        ReflectionTestUtils.setField(authService, "jwtTokenUtil", jwtTokenUtil);
+        ReflectionTestUtils.setField(authService, "redisUtil", redisUtil);
+        String jti = jwtTokenUtil.verify(token).getSessionId();
+
+        long before = jwtTokenUtil.getVerifyCount();
+        assertEquals(200, authService.logout(token).getCode());
+
+        // 有效性校验、加入黑名单、删除用户信息共用一次验签
+        assertEquals(1, jwtTokenUtil.getVerifyCount() - before);
+        verify(redisUtil).set(eq("token:invalid:" + jti), eq("invalid"), anyLong(), eq(TimeUnit.SECONDS));
+        verify(redisUtil).delete("user:info:" + jti);
+        assertTrue(revocationCache.lookup(jti));
+    }
+}
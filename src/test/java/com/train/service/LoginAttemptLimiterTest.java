@@ -0,0 +1,66 @@
+package com.train.service;
+
+import com.train.entity.SysUser;
+import com.train.mapper.SysUserMapper;
+import com.train.security.LoginAttemptLimiter;
+import com.train.util.RedisUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LoginAttemptLimiterTest {
+    @Mock
+    private RedisUtil redisUtil;
+    @Mock
+    private SysUserMapper sysUserMapper;
+    @InjectMocks
+    private LoginAttemptLimiter limiter;
+
+    @Test
+    public void testRecordFailure_LockCachedLocally() {
+        when(redisUtil.executeScript(any(), anyList(), anyString(), anyString(), anyString())).thenReturn(5L);
+
+        long count = limiter.recordFailure("login:error:count:test@1001", "user:locked:test:1001", false);
+        assertEquals(5, count);
+        assertTrue(limiter.isLockedBy(count, false));
+
+        // 锁定后本地缓存命中，不再访问Redis与数据库
+        assertTrue(limiter.isLocked("user:locked:test:1001"));
+        assertTrue(limiter.isLocked("user:locked:test:1001"));
+        verify(redisUtil, never()).hasKey(anyString());
+        verify(redisUtil, times(1)).executeScript(any(), anyList(), anyString(), anyString(), anyString());
+        verifyNoInteractions(sysUserMapper);
+
+        // 解锁清除本地缓存
+        limiter.unlock("user:locked:test:1001", "login:error:count:test@1001");
+        when(redisUtil.hasKey("user:locked:test:1001")).thenReturn(false);
+        assertFalse(limiter.isLocked("user:locked:test:1001"));
+    }
+
+    @Test
+    public void testRecordFailure_SysAdminExempt() {
+        SysUser admin = new SysUser();
+        admin.setAccount("admin");
+        admin.setOrgId("0");
+        when(sysUserMapper.selectList(any())).thenReturn(Collections.singletonList(admin));
+        when(redisUtil.executeScript(any(), anyList(), anyString(), anyString(), anyString())).thenReturn(6L);
+
+        assertTrue(limiter.isSysAdmin("admin", "0"));
+        assertFalse(limiter.isSysAdmin("test", "0"));
+        // 名单已缓存，不重复查库
+        verify(sysUserMapper, times(1)).selectList(any());
+
+        long count = limiter.recordFailure("login:error:count:admin@0", "user:locked:admin:0", true);
+        assertFalse(limiter.isLockedBy(count, true));
+        verify(redisUtil).executeScript(any(), anyList(), eq("3600"), eq("5"), eq("1"));
+    }
+}
@@ -0,0 +1,83 @@
+package com.train.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.train.aspect.OperLogAggregator;
+import com.train.aspect.OperLogWriter;
+import com.train.entity.SysOperLog;
+import com.train.enums.OperateType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OperLogAggregatorTest {
+    @Mock
+    private OperLogWriter operLogWriter;
+    @InjectMocks
+    private OperLogAggregator aggregator;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(aggregator, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    public void testRecord_RollsUpPerOrgAccountEndpoint() {
+        for (int i = 0; i < 50; i++) {
+            aggregator.record("1001", "zhangsan", "张三", "培训管理", "GET /train/video/list", "视频分页查询", "10.0.0.1");
+        }
+        for (int i = 0; i < 3; i++) {
+            aggregator.record("1001", "zhangsan", "张三", "培训管理", "GET /train/video/{videoId}", "", "10.0.0.2");
+        }
+        aggregator.record("1002", "lisi", "李四", "培训管理", "GET /train/video/list", "视频分页查询", "10.0.0.3");
+
+        assertEquals(3, aggregator.getPendingBuckets());
+        assertEquals(54, aggregator.getRecordedCount());
+        assertEquals(3, aggregator.flush(true));
+        ArgumentCaptor<SysOperLog> captor = ArgumentCaptor.forClass(SysOperLog.class);
+        verify(operLogWriter, times(3)).write(captor.capture());
+        Map<String, SysOperLog> byKey = new HashMap<>();
+        for (SysOperLog operLog : captor.getAllValues()) {
+            byKey.put(operLog.getOperAccount() + "|" + operLog.getOperContent().contains("{videoId}"), operLog);
+        }
+
+        SysOperLog listLog = byKey.get("zhangsan|false");
+        assertEquals("1001", listLog.getOperOrgId());
+        assertEquals(OperateType.QUERY.getDesc(), listLog.getOperType());
+        assertTrue(listLog.getOperContent().startsWith("视频分页查询："));
+        assertTrue(listLog.getOperContent().contains("\"次数\":50"));
+        assertTrue(byKey.get("zhangsan|true").getOperContent().startsWith("{"));
+        assertTrue(byKey.get("zhangsan|true").getOperContent().contains("\"次数\":3"));
+        assertEquals("10.0.0.3", byKey.get("lisi|false").getOperIp());
+
+        assertEquals(0, aggregator.getPendingBuckets());
+        assertEquals(3, aggregator.getSummaryCount());
+    }
+
+    @Test
+    public void testStop_FlushesCurrentMinute() {
+        aggregator.record("1001", "zhangsan", "张三", "系统管理", "GET /sys/menu/tree", "菜单树形查询", "10.0.0.1");
+
+        aggregator.stop();
+
+        verify(operLogWriter).write(any(SysOperLog.class));
+        assertEquals(0, aggregator.getPendingBuckets());
+    }
+
+    @Test
+    public void testFlush_EmptyWritesNothing() {
+        assertEquals(0, aggregator.flush(true));
+        verifyNoInteractions(operLogWriter);
+    }
+}
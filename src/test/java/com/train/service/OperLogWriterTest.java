@@ -0,0 +1,191 @@
+package com.train.service;
+
+import com.train.aspect.OperLogWriter;
+import com.train.entity.SysOperLog;
+import com.train.mapper.SysOperLogMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OperLogWriterTest {
+    @Mock
+    private SysOperLogMapper sysOperLogMapper;
+    @InjectMocks
+    private OperLogWriter writer;
+
+    private void start(int capacity, int batchSize, OperLogWriter.OverflowPolicy policy) {
+        ReflectionTestUtils.setField(writer, "capacity", capacity);
+        ReflectionTestUtils.setField(writer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", policy);
+        // 定时写入间隔设大，由测试手动触发
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+        writer.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writer.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlush_MultiRowBatches() {
+        start(100, 3, OperLogWriter.OverflowPolicy.DROP_OLDEST);
+        List<List<String>> batches = new ArrayList<>();
+        when(sysOperLogMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<String> ids = new ArrayList<>();
+            for (SysOperLog operLog : (List<SysOperLog>) invocation.getArgument(0)) {
+                ids.add(operLog.getLogId());
+            }
+            synchronized (batches) {
+                batches.add(ids);
+            }
+            return ids.size();
+        });
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        for (int i = 0; i < 7; i++) {
+            assertTrue(writer.write(operLog("L" + i)));
+        }
+        assertEquals(7, writer.getQueueDepth());
+
+        ReflectionTestUtils.setField(writer, "batchSize", 3);
+        writer.flush();
+
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(7, writer.getWrittenCount());
+        assertEquals(3, batches.size());
+        assertEquals(3, batches.get(0).size());
+        assertEquals("L0", batches.get(0).get(0));
+        verify(sysOperLogMapper, never()).insert(any(SysOperLog.class));
+    }
+
+    @Test
+    public void testOverflow_DropOldest() {
+        start(3, 100, OperLogWriter.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(writer.write(operLog("L" + i)));
+        }
+        assertEquals(3, writer.getQueueDepth());
+        assertEquals(2, writer.getDroppedCount());
+
+        ArgumentCaptor<List<SysOperLog>> captor = captor();
+        writer.flush();
+        verify(sysOperLogMapper).insertBatch(captor.capture());
+        // 丢弃最旧的两条，保留 L2~L4 且顺序不变
+        assertEquals(Arrays.asList("L2", "L3", "L4"),
+                captor.getValue().stream().map(SysOperLog::getLogId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testOverflow_BlockTimesOut() {
+        start(2, 100, OperLogWriter.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(writer, "blockTimeoutMs", 10L);
+        assertTrue(writer.write(operLog("L0")));
+        assertTrue(writer.write(operLog("L1")));
+        assertFalse(writer.write(operLog("L2")));
+        assertEquals(1, writer.getDroppedCount());
+        assertEquals(2, writer.getAcceptedCount());
+    }
+
+    @Test
+    public void testOverflow_SampleAboveWatermark() {
+        start(10, 100, OperLogWriter.OverflowPolicy.SAMPLE);
+        ReflectionTestUtils.setField(writer, "sampleHighWatermark", 0.5);
+        ReflectionTestUtils.setField(writer, "sampleRate", 0.0);
+        for (int i = 0; i < 8; i++) {
+            writer.write(operLog("L" + i));
+        }
+        // 高水位以下全部保留，以上按比例（0）抽样
+        assertEquals(5, writer.getQueueDepth());
+        assertEquals(3, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testBatchFailure_FallsBackToSingleInserts() {
+        start(100, 100, OperLogWriter.OverflowPolicy.DROP_OLDEST);
+        when(sysOperLogMapper.insertBatch(anyList())).thenThrow(new RuntimeException("batch failed"));
+        when(sysOperLogMapper.insert(any(SysOperLog.class))).thenReturn(1).thenThrow(new RuntimeException("bad row"));
+        writer.write(operLog("L0"));
+        writer.write(operLog("L1"));
+
+        writer.flush();
+
+        assertEquals(1, writer.getWrittenCount());
+        assertEquals(1, writer.getFailedCount());
+    }
+
+    @Test
+    public void testStop_FlushesRemaining() {
+        start(100, 100, OperLogWriter.OverflowPolicy.DROP_OLDEST);
+        when(sysOperLogMapper.insertBatch(anyList())).thenReturn(2);
+        writer.write(operLog("L0"));
+        writer.write(operLog("L1"));
+
+        writer.stop();
+
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(2, writer.getWrittenCount());
+    }
+
+    @Test
+    public void testStop_RecordQueuedDuringShutdownIsWritten() throws Exception {
+        start(1, 100, OperLogWriter.OverflowPolicy.BLOCK);
+        ReflectionTestUtils.setField(writer, "blockTimeoutMs", 10_000L);
+        when(sysOperLogMapper.insertBatch(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+        writer.write(operLog("L0"));
+        // 队列已满，L1 阻塞到停机流程的最后一次写出腾出空间后才入队
+        Thread blocked = new Thread(() -> writer.write(operLog("L1")));
+        blocked.start();
+        while (blocked.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+
+        writer.stop();
+        blocked.join(5000);
+
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(2, writer.getWrittenCount());
+    }
+
+    @Test
+    public void testBindTo_Metrics() {
+        start(2, 100, OperLogWriter.OverflowPolicy.DROP_OLDEST);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        writer.bindTo(registry);
+        for (int i = 0; i < 3; i++) {
+            writer.write(operLog("L" + i));
+        }
+
+        assertEquals(2, registry.get("oper.log.writer.queue.depth").gauge().value());
+        assertEquals(1, registry.get("oper.log.writer.records").tag("result", "dropped").functionCounter().count());
+        assertEquals(3, registry.get("oper.log.writer.records").tag("result", "accepted").functionCounter().count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<SysOperLog>> captor() {
+        return ArgumentCaptor.forClass((Class<List<SysOperLog>>) (Class<?>) List.class);
+    }
+
+    private static SysOperLog operLog(String logId) {
+        SysOperLog operLog = new SysOperLog();
+        operLog.setLogId(logId);
+        return operLog;
+    }
+}
@@ -0,0 +1,89 @@
+package com.train.service;
+
+import com.train.entity.SysOrgRole;
+import com.train.mapper.SysOrgRoleMapper;
+import com.train.security.OrgRoleCache;
+import com.train.security.RbacIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrgRoleCacheTest {
+    @Mock
+    private SysOrgRoleMapper sysOrgRoleMapper;
+    @Mock
+    private RbacIndex rbacIndex;
+    @InjectMocks
+    private OrgRoleCache orgRoleCache;
+
+    @BeforeEach
+    public void setUp() {
+        lenient().when(rbacIndex.getAppliedVersion()).thenReturn(1L);
+    }
+
+    @Test
+    public void testGetRoleIds_LazyLoadAndInvalidate() {
+        when(sysOrgRoleMapper.selectRoleIdsByOrgId("1001")).thenReturn(Arrays.asList("ROLE_A", "ROLE_B"));
+
+        assertEquals(Arrays.asList("ROLE_A", "ROLE_B"), orgRoleCache.getRoleIds("1001"));
+        assertEquals(Arrays.asList("ROLE_A", "ROLE_B"), orgRoleCache.getRoleIds("1001"));
+        verify(sysOrgRoleMapper, times(1)).selectRoleIdsByOrgId("1001");
+        assertEquals(1, orgRoleCache.getHitCount());
+        assertEquals(1, orgRoleCache.getMissCount());
+        assertEquals(0.5, orgRoleCache.getHitRate());
+
+        // 无事务时失效立即生效
+        orgRoleCache.invalidate("1001");
+        orgRoleCache.getRoleIds("1001");
+        verify(sysOrgRoleMapper, times(2)).selectRoleIdsByOrgId("1001");
+        assertEquals(1, orgRoleCache.getInvalidationCount());
+    }
+
+    @Test
+    public void testPreload() {
+        when(sysOrgRoleMapper.selectList(any())).thenReturn(Arrays.asList(
+                orgRole("1001", "ROLE_A"), orgRole("1001", "ROLE_B"), orgRole("1002", "ROLE_C")));
+
+        orgRoleCache.preload(Arrays.asList("1001", "1002", "1003"));
+
+        assertEquals(3, orgRoleCache.size());
+        assertEquals(3, orgRoleCache.getPreloadCount());
+        assertEquals(Arrays.asList("ROLE_A", "ROLE_B"), orgRoleCache.getRoleIds("1001"));
+        assertEquals(Collections.singletonList("ROLE_C"), orgRoleCache.getRoleIds("1002"));
+        assertTrue(orgRoleCache.getRoleIds("1003").isEmpty());
+        verify(sysOrgRoleMapper, never()).selectRoleIdsByOrgId(any());
+
+        // 已缓存的机构不再重复加载
+        orgRoleCache.preload(Arrays.asList("1001", "1002"));
+        verify(sysOrgRoleMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    public void testIndexVersionChangeClears() {
+        when(sysOrgRoleMapper.selectRoleIdsByOrgId("1001")).thenReturn(Collections.singletonList("ROLE_A"));
+        orgRoleCache.getRoleIds("1001");
+
+        // 其他节点修改了权限数据
+        when(rbacIndex.getAppliedVersion()).thenReturn(2L);
+        orgRoleCache.getRoleIds("1001");
+        verify(sysOrgRoleMapper, times(2)).selectRoleIdsByOrgId("1001");
+    }
+
+    private static SysOrgRole orgRole(String orgId, String roleId) {
+        SysOrgRole orgRole = new SysOrgRole();
+        orgRole.setOrgId(orgId);
+        orgRole.setRoleId(roleId);
+        return orgRole;
+    }
+}
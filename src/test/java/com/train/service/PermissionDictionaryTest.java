@@ -0,0 +1,108 @@
+package com.train.service;
+
+import com.train.mapper.SysMenuMapper;
+import com.train.security.PermissionDictionary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PermissionDictionaryTest {
+    @Mock
+    private SysMenuMapper menuMapper;
+    @InjectMocks
+    private PermissionDictionary dictionary;
+
+    private final List<String> perms = Arrays.asList(
+            "user:read", "user:add", "user:edit", "user:remove",
+            "role:read", "role:add", "role:edit", "role:remove",
+            "org:read", "org:add", "org:edit", "org:remove",
+            "train:practice", "train:video");
+
+    @BeforeEach
+    public void setUp() {
+        dictionary.rebuild(perms);
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        String bits = dictionary.encode(Arrays.asList("user:read", "org:edit", "train:video", "unknown:perm"));
+        Set<String> decoded = dictionary.decode(dictionary.getVersion(), bits);
+        assertEquals(new HashSet<>(Arrays.asList("user:read", "org:edit", "train:video")), decoded);
+        assertThrows(UnsupportedOperationException.class, () -> decoded.add("x"));
+        assertSame(decoded, dictionary.decode(dictionary.getVersion(), bits));
+        assertTrue(dictionary.decode(dictionary.getVersion(), dictionary.encode(null)).isEmpty());
+    }
+
+    @Test
+    public void testDecode_OldVersionAfterRebuild() {
+        String oldVersion = dictionary.getVersion();
+        String bits = dictionary.encode(Collections.singletonList("role:edit"));
+
+        List<String> changed = new ArrayList<>(perms);
+        changed.remove("user:add");
+        dictionary.rebuild(changed);
+
+        assertNotEquals(oldVersion, dictionary.getVersion());
+        // 字典变化前签发的Token仍按旧版本解码
+        assertEquals(Collections.singleton("role:edit"), dictionary.decode(oldVersion, bits));
+        // 编号按位置分配（各节点按同一顺序独立重建，版本号即区分编号方案），新版本中编号前移
+        assertEquals(5, dictionary.idOf("role:edit"));
+        assertEquals(Collections.singleton("role:edit"),
+                dictionary.decode(dictionary.getVersion(), dictionary.encode(Collections.singletonList("role:edit"))));
+    }
+
+    @Test
+    public void testDecode_UnknownVersionReloadsOnce() {
+        when(menuMapper.selectDistinctPerms()).thenReturn(perms);
+        assertNull(dictionary.decode("deadbeef", "AQ"));
+        assertNull(dictionary.decode("deadbeef", "Ag"));
+        // 未知版本限频重新加载
+        verify(menuMapper, times(1)).selectDistinctPerms();
+        assertNull(dictionary.decode(dictionary.getVersion(), "!!"));
+    }
+
+    @Test
+    public void testDecode_VersionBeyondHistory() {
+        String oldVersion = dictionary.getVersion();
+        String bits = dictionary.encode(Collections.singletonList("role:edit"));
+        List<String> changed = new ArrayList<>(perms);
+        for (int i = 0; i < 8; i++) {
+            changed.add("extra:" + i);
+            dictionary.rebuild(changed);
+        }
+        when(menuMapper.selectDistinctPerms()).thenReturn(changed);
+
+        // 超出保留的历史版本后无法解码，由调用方按版本过期处理
+        assertNull(dictionary.decode(oldVersion, bits));
+        assertEquals(Collections.singleton("role:edit"),
+                dictionary.decode(dictionary.getVersion(), dictionary.encode(Collections.singletonList("role:edit"))));
+    }
+
+    @Test
+    public void testEncodedSize() {
+        String bits = dictionary.encode(perms);
+        String plain = "\"permissions\":[\"" + String.join("\",\"", perms) + "\"]";
+        String compact = "\"pv\":\"" + dictionary.getVersion() + "\",\"pb\":\"" + bits + "\"";
+        int plainBase64 = Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8)).length();
+        int compactBase64 = Base64.getUrlEncoder().withoutPadding().encodeToString(compact.getBytes(StandardCharsets.UTF_8)).length();
+        assertTrue(compactBase64 < plainBase64);
+    }
+}
@@ -0,0 +1,220 @@
+package com.train.service;
+
+import com.train.annotation.RequiresPermission;
+import com.train.security.JwtUserDetails;
+import com.train.security.PermissionInterceptor;
+import com.train.security.PermissionRouteTable;
+import com.train.security.RbacIndex;
+import com.train.security.VerifiedToken;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PermissionRouteTableTest {
+    @Mock
+    private RequestMappingHandlerMapping handlerMapping;
+    @Mock
+    private RbacIndex rbacIndex;
+    @InjectMocks
+    private PermissionRouteTable routeTable;
+
+    static class DemoController {
+        @RequiresPermission("user:read")
+        public void list() {
+        }
+
+        @RequiresPermission("user:unknown")
+        public void unknown() {
+        }
+
+        public void open() {
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static HandlerMethod listHandler() throws Exception {
+        return new HandlerMethod(new DemoController(), DemoController.class.getMethod("list"));
+    }
+
+    private void mapHandlers(String... methodNames) throws Exception {
+        Map<RequestMappingInfo, HandlerMethod> handlerMethods = new LinkedHashMap<>();
+        for (String methodName : methodNames) {
+            handlerMethods.put(RequestMappingInfo.paths("/" + methodName).build(),
+                    new HandlerMethod(new DemoController(), DemoController.class.getMethod(methodName)));
+        }
+        when(handlerMapping.getHandlerMethods()).thenReturn(handlerMethods);
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        mapHandlers("list", "open");
+        when(rbacIndex.isKnownPermission("user:read")).thenReturn(true);
+        when(rbacIndex.internPermission("user:read")).thenReturn(7);
+
+        routeTable.afterSingletonsInstantiated();
+
+        assertEquals(1, routeTable.size());
+        assertEquals(7, routeTable.requiredPermission(DemoController.class.getMethod("list")));
+        assertEquals(PermissionRouteTable.NONE, routeTable.requiredPermission(DemoController.class.getMethod("open")));
+    }
+
+    @Test
+    public void testBuild_UnknownPermissionFailsFast() throws Exception {
+        mapHandlers("list", "unknown");
+        when(rbacIndex.isKnownPermission(any())).thenAnswer(invocation -> "user:read".equals(invocation.getArgument(0)));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, routeTable::afterSingletonsInstantiated);
+        assertTrue(e.getMessage().contains("user:unknown"));
+    }
+
+    @Test
+    public void testBuild_UnknownPermissionWarnOnly() throws Exception {
+        ReflectionTestUtils.setField(routeTable, "failOnUnknown", false);
+        mapHandlers("unknown");
+        when(rbacIndex.internPermission("user:unknown")).thenReturn(3);
+
+        routeTable.afterSingletonsInstantiated();
+        assertEquals(3, routeTable.requiredPermission(DemoController.class.getMethod("unknown")));
+    }
+
+    @Test
+    public void testInterceptor_BitTest() throws Exception {
+        PermissionRouteTable table = mock(PermissionRouteTable.class);
+        PermissionInterceptor interceptor = new PermissionInterceptor(table, rbacIndex);
+        when(table.requiredPermission(any(Method.class))).thenReturn(7);
+
+        JwtUserDetails user = new JwtUserDetails();
+        user.setUserId(1L);
+        user.setOrgId("1001");
+        user.setIsSysAdmin(0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, Collections.emptyList()));
+
+        when(rbacIndex.hasPermission(1L, "1001", 7)).thenReturn(true);
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/list"), new MockHttpServletResponse(), listHandler()));
+
+        when(rbacIndex.hasPermission(1L, "1001", 7)).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest("GET", "/list"), response, listHandler()));
+        assertTrue(response.getContentAsString().contains("403"));
+    }
+
+    @Test
+    public void testInterceptor_SysAdminSkipsBitTest() throws Exception {
+        PermissionRouteTable table = mock(PermissionRouteTable.class);
+        when(table.requiredPermission(any(Method.class))).thenReturn(7);
+        JwtUserDetails admin = new JwtUserDetails();
+        admin.setUserId(1L);
+        admin.setOrgId("0");
+        admin.setIsSysAdmin(1);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(admin, null, Collections.emptyList()));
+
+        assertTrue(new PermissionInterceptor(table, rbacIndex)
+                .preHandle(new MockHttpServletRequest("GET", "/list"), new MockHttpServletResponse(), listHandler()));
+        verifyNoInteractions(rbacIndex);
+    }
+
+    @Test
+    public void testInterceptor_TrustTokenClaims() throws Exception {
+        PermissionRouteTable table = mock(PermissionRouteTable.class);
+        when(table.requiredPermission(any(Method.class))).thenReturn(7);
+        PermissionInterceptor interceptor = new PermissionInterceptor(table, rbacIndex, true, false);
+
+        DefaultClaims claims = new DefaultClaims();
+        claims.put("userId", 1L);
+        claims.put("orgId", "1001");
+        claims.put("isSysAdmin", 0);
+        claims.put(VerifiedToken.CLAIM_PERMISSION_STAMP, "abc");
+        VerifiedToken verifiedToken = new VerifiedToken("token", claims, new HashSet<>(Collections.singletonList("user:read")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(verifiedToken.getUserDetails(), null, Collections.emptyList()));
+        when(rbacIndex.permissionName(7)).thenReturn("user:read");
+
+        // 权限版本一致：按Token中的权限放行，不做位测试
+        when(rbacIndex.getPermissionVersion(1L, "1001")).thenReturn("abc");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/list");
+        verifiedToken.bindTo(request);
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), listHandler()));
+        verify(rbacIndex, never()).hasPermission(any(), any(), anyInt());
+
+        // 权限版本已变化：会话模式Token无法刷新，要求重新登录
+        when(rbacIndex.getPermissionVersion(1L, "1001")).thenReturn("def");
+        MockHttpServletRequest staleRequest = new MockHttpServletRequest("GET", "/list");
+        verifiedToken.bindTo(staleRequest);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(staleRequest, response, listHandler()));
+        assertTrue(response.getContentAsString().contains("40105"));
+    }
+
+    @Test
+    public void testInterceptor_StaleDictionaryVersionRequiresRefresh() throws Exception {
+        PermissionRouteTable table = mock(PermissionRouteTable.class);
+        when(table.requiredPermission(any(Method.class))).thenReturn(7);
+        PermissionInterceptor interceptor = new PermissionInterceptor(table, rbacIndex, true, true);
+
+        DefaultClaims claims = new DefaultClaims();
+        claims.put("userId", 1L);
+        claims.put("orgId", "1001");
+        claims.put("isSysAdmin", 0);
+        claims.put(VerifiedToken.CLAIM_PERMISSION_STAMP, "abc");
+        // 无状态模式访问令牌（带exp），可以刷新
+        claims.setExpiration(new Date(System.currentTimeMillis() + 60000));
+        VerifiedToken verifiedToken = new VerifiedToken("token", claims, null, true);
+        assertTrue(verifiedToken.getPermissions().isEmpty());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(verifiedToken.getUserDetails(), null, Collections.emptyList()));
+
+        // 权限字典版本已超出历史：返回刷新码而不是403
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/list");
+        verifiedToken.bindTo(request);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request, response, listHandler()));
+        assertTrue(response.getContentAsString().contains("40104"));
+    }
+
+    @Test
+    public void testInterceptor_FailsClosed() throws Exception {
+        PermissionRouteTable table = mock(PermissionRouteTable.class);
+        when(table.requiredPermission(any(Method.class))).thenReturn(7);
+        PermissionInterceptor interceptor = new PermissionInterceptor(table, rbacIndex);
+
+        // 受控接口上没有登录用户：拒绝而不是放行
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(new MockHttpServletRequest("GET", "/list"), response, listHandler()));
+        assertTrue(response.getContentAsString().contains("403"));
+
+        // 非处理方法（静态资源）不做权限校验
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/static/a.png"), new MockHttpServletResponse(), new Object()));
+        verifyNoInteractions(rbacIndex);
+    }
+}
@@ -0,0 +1,170 @@
+package com.train.service;
+
+import com.train.entity.TrainQuestion;
+import com.train.mapper.TrainQuestionMapper;
+import com.train.service.impl.QuestionAnswerCache;
+import com.train.util.KaryotypeAnswer;
+import com.train.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class QuestionAnswerCacheTest {
+    @Mock
+    private TrainQuestionMapper trainQuestionMapper;
+    @Mock
+    private RedisUtil redisUtil;
+    @InjectMocks
+    private QuestionAnswerCache answerCache;
+
+    /**
+     * 模拟Redis中的版本号
+     */
+    private final AtomicLong redisVersion = new AtomicLong(3);
+
+    /**
+     * 模拟数据库中的题库版本号
+     */
+    private final AtomicLong dbVersion = new AtomicLong(100);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(answerCache, "versionCheckMs", 0L);
+        lenient().when(redisUtil.executeScript(any(), anyList())).thenAnswer(invocation -> {
+            RedisScript<?> script = invocation.getArgument(0);
+            return script.getScriptAsString().contains("INCR") ? redisVersion.incrementAndGet() : redisVersion.get();
+        });
+        lenient().when(trainQuestionMapper.selectAnswerVersion()).thenAnswer(invocation -> dbVersion.get());
+        lenient().when(trainQuestionMapper.selectAnswersByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            List<TrainQuestion> rows = new ArrayList<>();
+            for (Long id : ids) {
+                // 题目9已禁用
+                if (id != 9L) {
+                    rows.add(question(id, id == 4L ? null : "A" + id));
+                }
+            }
+            return rows;
+        });
+    }
+
+    @Test
+    public void testGetAnswers_OneQueryPerPaperThenCached() {
+        Map<Long, KaryotypeAnswer> answers = answerCache.getAnswers(Arrays.asList(1L, 2L, 3L, 4L, 9L, 2L, null));
+
+        assertTrue(answers.get(1L).matches("A1"));
+        assertTrue(answers.get(3L).matches("A3"));
+        // 空答案编译为空答案，禁用题目不返回
+        assertTrue(answers.get(4L).isEmpty());
+        assertFalse(answers.containsKey(9L));
+        verify(trainQuestionMapper, times(1)).selectAnswersByIds(Arrays.asList(1L, 2L, 3L, 4L, 9L));
+
+        // 再次判分：全部命中时不访问数据库
+        answerCache.getAnswers(Arrays.asList(1L, 2L, 3L, 4L));
+        assertEquals(1, answerCache.getQueryCount());
+        assertEquals(4, answerCache.getHitCount());
+
+        // 部分命中：只查询未缓存的题目
+        answerCache.getAnswers(Arrays.asList(1L, 5L));
+        verify(trainQuestionMapper).selectAnswersByIds(Collections.singletonList(5L));
+        assertEquals(2, answerCache.getQueryCount());
+    }
+
+    @Test
+    public void testInvalidate_EvictsAndBumpsVersion() {
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+
+        // 无事务时失效立即生效，并递增版本号（本节点版本连续，不清空其他题目）
+        answerCache.invalidate(Collections.singletonList(1L));
+        assertEquals(4, redisVersion.get());
+        assertEquals(1, answerCache.size());
+
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+        verify(trainQuestionMapper).selectAnswersByIds(Collections.singletonList(1L));
+        assertEquals(2, answerCache.size());
+    }
+
+    @Test
+    public void testRemoteVersionChange_ClearsCache() {
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+        assertEquals(2, answerCache.size());
+
+        // 其他节点修改了答案
+        redisVersion.incrementAndGet();
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+
+        verify(trainQuestionMapper, times(2)).selectAnswersByIds(Arrays.asList(1L, 2L));
+        assertEquals(2, answerCache.getInvalidationCount());
+    }
+
+    @Test
+    public void testVersionReadFailure_DoesNotServeCachedAnswers() {
+        answerCache.getAnswers(Arrays.asList(1L));
+        doThrow(new RuntimeException("redis down")).when(redisUtil).executeScript(any(), anyList());
+
+        assertTrue(answerCache.getAnswers(Arrays.asList(1L)).get(1L).matches("A1"));
+
+        verify(trainQuestionMapper, times(2)).selectAnswersByIds(Collections.singletonList(1L));
+    }
+
+    @Test
+    public void testDirectDbChange_ClearsCacheOnBackgroundCheck() {
+        // 启动时后台检查记录当前版本号
+        ReflectionTestUtils.invokeMethod(answerCache, "checkDbVersion");
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+
+        // 判分请求不读取数据库版本号
+        dbVersion.incrementAndGet();
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+        verify(trainQuestionMapper, times(1)).selectAnswerVersion();
+        verify(trainQuestionMapper, times(1)).selectAnswersByIds(Arrays.asList(1L, 2L));
+
+        // 题目被直接改库（未调用失效、Redis版本未变），后台检查到版本号变化后清空
+        ReflectionTestUtils.invokeMethod(answerCache, "checkDbVersion");
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+        verify(trainQuestionMapper, times(2)).selectAnswersByIds(Arrays.asList(1L, 2L));
+        assertEquals(2, answerCache.getInvalidationCount());
+
+        // 版本号不变时继续使用缓存
+        ReflectionTestUtils.invokeMethod(answerCache, "checkDbVersion");
+        answerCache.getAnswers(Arrays.asList(1L, 2L));
+        verify(trainQuestionMapper, times(2)).selectAnswersByIds(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    public void testDbVersionReadFailure_DoesNotServeCachedAnswers() {
+        ReflectionTestUtils.invokeMethod(answerCache, "checkDbVersion");
+        answerCache.getAnswers(Arrays.asList(1L));
+        when(trainQuestionMapper.selectAnswerVersion()).thenThrow(new RuntimeException("db down"));
+
+        ReflectionTestUtils.invokeMethod(answerCache, "checkDbVersion");
+        assertTrue(answerCache.getAnswers(Arrays.asList(1L)).get(1L).matches("A1"));
+
+        verify(trainQuestionMapper, times(2)).selectAnswersByIds(Collections.singletonList(1L));
+    }
+
+    private static TrainQuestion question(Long id, String answer) {
+        TrainQuestion question = new TrainQuestion();
+        question.setQuestionId(id);
+        question.setAnswer(answer);
+        return question;
+    }
+}
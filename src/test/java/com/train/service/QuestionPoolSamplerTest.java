@@ -0,0 +1,220 @@
+package com.train.service;
+
+import com.train.entity.TrainQuestion;
+import com.train.mapper.TrainQuestionMapper;
+import com.train.service.impl.QuestionPoolSampler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class QuestionPoolSamplerTest {
+    @Mock
+    private TrainQuestionMapper trainQuestionMapper;
+    @InjectMocks
+    private QuestionPoolSampler sampler;
+
+    @Test
+    public void testFloydSample_DistinctAcrossParts() {
+        long[][] parts = {{1, 2, 3}, {10, 20}};
+        Random random = new Random(42);
+        for (int round = 0; round < 1000; round++) {
+            long[] ids = QuestionPoolSampler.floydSample(parts, 5, 3, random);
+            assertEquals(3, ids.length);
+            Set<Long> distinct = new HashSet<>();
+            for (long id : ids) {
+                assertTrue(distinct.add(id));
+                assertTrue(Arrays.asList(1L, 2L, 3L, 10L, 20L).contains(id));
+            }
+        }
+        // 题库不足时返回全部
+        assertEquals(5, QuestionPoolSampler.floydSample(parts, 5, 8, random).length);
+        assertEquals(0, QuestionPoolSampler.floydSample(new long[][]{{}}, 0, 5, random).length);
+    }
+
+    @Test
+    public void testFloydSample_Uniform() {
+        int n = 20;
+        long[] pool = new long[n];
+        for (int i = 0; i < n; i++) {
+            pool[i] = i;
+        }
+        int[] hits = new int[n];
+        int[] firstHits = new int[n];
+        Random random = new Random(7);
+        int rounds = 100_000;
+        for (int round = 0; round < rounds; round++) {
+            long[] ids = QuestionPoolSampler.floydSample(new long[][]{pool}, n, 5, random);
+            firstHits[(int) ids[0]]++;
+            for (long id : ids) {
+                hits[(int) id]++;
+            }
+        }
+        // 每道题被抽中概率 5/20，首位（顺序）也应均匀
+        for (int i = 0; i < n; i++) {
+            assertEquals(rounds * 5.0 / n, hits[i], rounds * 5.0 / n * 0.05);
+            assertEquals(rounds * 1.0 / n, firstHits[i], rounds * 1.0 / n * 0.1);
+        }
+    }
+
+    @Test
+    public void testSample_ExcludedPositionsNeverReturned() {
+        long[][] parts = {{1, 2, 3, 4}, {10, 20, 30}};
+        // 排除位置 0、2、5（题目1、3、20）
+        int[] excluded = {0, 2, 5};
+        int[] hits = new int[7];
+        Random random = new Random(3);
+        for (int round = 0; round < 40_000; round++) {
+            long[] ids = QuestionPoolSampler.sample(parts, 7, 2, excluded, null, random);
+            assertEquals(2, ids.length);
+            assertNotEquals(ids[0], ids[1]);
+            for (long id : ids) {
+                assertFalse(id == 1L || id == 3L || id == 20L);
+                hits[Arrays.asList(1L, 2L, 3L, 4L, 10L, 20L, 30L).indexOf(id)]++;
+            }
+        }
+        // 剩余4道题等概率：每道 40000*2/4
+        for (int index : new int[]{1, 3, 4, 6}) {
+            assertEquals(20_000, hits[index], 20_000 * 0.05);
+        }
+        // 排除后不足时只返回剩余题目
+        assertEquals(4, QuestionPoolSampler.sample(parts, 7, 5, excluded, null, random).length);
+    }
+
+    @Test
+    public void testSample_SoftExclusionAvoidedUnlessPoolRunsShort() {
+        long[] pool = new long[10];
+        for (int i = 0; i < pool.length; i++) {
+            pool[i] = i + 1;
+        }
+        long[][] parts = {pool};
+        Random random = new Random(11);
+        for (int round = 0; round < 1000; round++) {
+            // 题目1~6最近做过，仍有4道未做过的题目
+            long[] ids = QuestionPoolSampler.sample(parts, 10, 4, new int[0], id -> id <= 6, random);
+            assertEquals(4, ids.length);
+            for (long id : ids) {
+                assertTrue(id > 6);
+            }
+            // 未做过的题目不够时用做过的补足，仍不重复
+            ids = QuestionPoolSampler.sample(parts, 10, 6, new int[0], id -> id <= 6, random);
+            assertEquals(6, ids.length);
+            Set<Long> distinct = new HashSet<>();
+            int fresh = 0;
+            for (long id : ids) {
+                assertTrue(distinct.add(id));
+                fresh += id > 6 ? 1 : 0;
+            }
+            assertEquals(4, fresh);
+        }
+    }
+
+    @Test
+    public void testSampleIds_ExcludesOldPaperIds() {
+        when(trainQuestionMapper.selectPoolVersion("0")).thenReturn("3:6");
+        when(trainQuestionMapper.selectActiveQuestionIds("0")).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(trainQuestionMapper.selectPoolVersion("1001")).thenReturn("2:30");
+        when(trainQuestionMapper.selectActiveQuestionIds("1001")).thenReturn(Arrays.asList(10L, 20L));
+
+        for (int round = 0; round < 200; round++) {
+            // 不在题库中的ID（99）与null忽略
+            long[] ids = sampler.sampleIds(Arrays.asList("0", "1001"), 5, Arrays.asList(2L, 20L, 99L, null), null);
+            assertEquals(3, ids.length);
+            Set<Long> distinct = new HashSet<>();
+            for (long id : ids) {
+                distinct.add(id);
+            }
+            assertEquals(new HashSet<>(Arrays.asList(1L, 3L, 10L)), distinct);
+        }
+    }
+
+    @Test
+    public void testSample_FetchesOnlySampledRowsInOrder() {
+        when(trainQuestionMapper.selectPoolVersion("0")).thenReturn("3:6");
+        when(trainQuestionMapper.selectActiveQuestionIds("0")).thenReturn(Arrays.asList(1L, 2L, 3L));
+        when(trainQuestionMapper.selectPoolVersion("1001")).thenReturn("2:30");
+        when(trainQuestionMapper.selectActiveQuestionIds("1001")).thenReturn(Arrays.asList(10L, 20L));
+        List<List<Long>> requested = new ArrayList<>();
+        when(trainQuestionMapper.selectQuestionsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> argument = invocation.getArgument(0);
+            List<Long> ids = new ArrayList<>(argument);
+            requested.add(ids);
+            List<TrainQuestion> rows = new ArrayList<>();
+            // 数据库返回顺序与请求顺序无关
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                rows.add(question(ids.get(i)));
+            }
+            return rows;
+        });
+
+        List<TrainQuestion> questions = sampler.sample(Arrays.asList("0", "1001"), 4);
+
+        assertEquals(4, questions.size());
+        assertEquals(1, requested.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(requested.get(0).get(i), questions.get(i).getQuestionId());
+        }
+        assertEquals(3, sampler.getPoolSize("0"));
+        assertEquals(2, sampler.getPoolSize("1001"));
+
+        // 再次抽题直接使用快照
+        sampler.sample(Arrays.asList("0", "1001"), 4);
+        verify(trainQuestionMapper, times(1)).selectActiveQuestionIds("0");
+        assertEquals(2, sampler.getLoadCount());
+    }
+
+    @Test
+    public void testVersionChange_ReloadsSnapshot() {
+        ReflectionTestUtils.setField(sampler, "refreshCheckMs", 0L);
+        when(trainQuestionMapper.selectPoolVersion("0")).thenReturn("2:3", "2:3", "3:6");
+        when(trainQuestionMapper.selectActiveQuestionIds("0"))
+                .thenReturn(Arrays.asList(1L, 2L), Arrays.asList(1L, 2L, 3L));
+
+        sampler.sampleIds(Arrays.asList("0"), 1);
+        assertEquals(2, sampler.getPoolSize("0"));
+        // 版本未变：保留快照
+        sampler.sampleIds(Arrays.asList("0"), 1);
+        assertEquals(2, sampler.getPoolSize("0"));
+        // 版本变化：重新加载
+        sampler.sampleIds(Arrays.asList("0"), 1);
+        assertEquals(3, sampler.getPoolSize("0"));
+        assertEquals(2, sampler.getLoadCount());
+        assertEquals(2, sampler.getVersionCheckCount());
+    }
+
+    @Test
+    public void testStaleSnapshot_ReloadsWhenRowsMissing() {
+        when(trainQuestionMapper.selectPoolVersion("0")).thenReturn("1:1", "1:2");
+        when(trainQuestionMapper.selectActiveQuestionIds("0")).thenReturn(Arrays.asList(1L), Arrays.asList(2L));
+        // 题目1已被禁用
+        when(trainQuestionMapper.selectQuestionsByIds(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.contains(2L) ? Arrays.asList(question(2L)) : new ArrayList<TrainQuestion>();
+        });
+
+        List<TrainQuestion> questions = sampler.sample(Arrays.asList("0"), 1);
+
+        assertEquals(1, questions.size());
+        assertEquals(2L, questions.get(0).getQuestionId());
+    }
+
+    private static TrainQuestion question(Long id) {
+        TrainQuestion question = new TrainQuestion();
+        question.setQuestionId(id);
+        return question;
+    }
+}
@@ -0,0 +1,188 @@
+package com.train.service;
+
+import com.train.entity.SysMenu;
+import com.train.entity.SysOrgRole;
+import com.train.entity.SysRole;
+import com.train.entity.SysRoleMenu;
+import com.train.entity.SysUserRole;
+import com.train.mapper.SysMenuMapper;
+import com.train.mapper.SysOrgRoleMapper;
+import com.train.mapper.SysRoleMapper;
+import com.train.mapper.SysRoleMenuMapper;
+import com.train.mapper.SysUserRoleMapper;
+import com.train.security.PermissionDictionary;
+import com.train.security.RbacIndex;
+import com.train.util.RedisUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RbacIndexTest {
+    @Mock
+    private SysUserRoleMapper userRoleMapper;
+    @Mock
+    private SysOrgRoleMapper orgRoleMapper;
+    @Mock
+    private SysRoleMapper roleMapper;
+    @Mock
+    private SysRoleMenuMapper roleMenuMapper;
+    @Mock
+    private SysMenuMapper menuMapper;
+    @Mock
+    private PermissionDictionary permissionDictionary;
+    @Mock
+    private RedisUtil redisUtil;
+    @InjectMocks
+    private RbacIndex rbacIndex;
+
+    @BeforeEach
+    public void setUp() {
+        when(userRoleMapper.selectList(any())).thenReturn(Arrays.asList(
+                userRole(1L, "ROLE_A"), userRole(2L, "ROLE_B")));
+        when(orgRoleMapper.selectList(any())).thenReturn(Collections.singletonList(orgRole("1001")));
+        when(menuMapper.selectList(any())).thenReturn(Arrays.asList(menu(10L, "user:read"), menu(11L, "user:edit")));
+        when(roleMenuMapper.selectList(any())).thenReturn(Arrays.asList(
+                roleMenu("ROLE_A", 10L), roleMenu("ROLE_A", 11L), roleMenu("ROLE_B", 10L)));
+        when(roleMapper.selectList(any())).thenReturn(Arrays.asList(role("ROLE_A", 1), role("ROLE_B", 0)));
+        rbacIndex.rebuild();
+        ReflectionTestUtils.setField(rbacIndex, "appliedVersion", 3L);
+    }
+
+    @Test
+    public void testHasPermission() {
+        assertTrue(rbacIndex.hasPermission(1L, "1001", "user:edit"));
+        assertFalse(rbacIndex.hasPermission(1L, "1001", "role:edit"));
+        // 角色已禁用
+        assertFalse(rbacIndex.hasPermission(2L, "1001", "user:read"));
+        // 机构未绑定任何角色
+        assertFalse(rbacIndex.hasPermission(1L, "2002", "user:read"));
+        assertFalse(rbacIndex.hasPermission(3L, "1001", "user:read"));
+        assertEquals(new java.util.HashSet<>(Arrays.asList("user:read", "user:edit")), rbacIndex.getPermissions(1L));
+    }
+
+    @Test
+    public void testHasPermission_InternedId() {
+        int read = rbacIndex.internPermission("user:read");
+        int edit = rbacIndex.internPermission("user:edit");
+        assertEquals(read, rbacIndex.internPermission("user:read"));
+        assertNotEquals(read, edit);
+        assertTrue(rbacIndex.isKnownPermission("user:edit"));
+        assertFalse(rbacIndex.isKnownPermission("role:edit"));
+
+        assertTrue(rbacIndex.hasPermission(1L, "1001", edit));
+        assertFalse(rbacIndex.hasPermission(1L, "1001", rbacIndex.internPermission("role:edit")));
+
+        // 角色被禁用后，缓存的用户位图随之失效
+        when(roleMapper.selectById("ROLE_A")).thenReturn(role("ROLE_A", 0));
+        when(redisUtil.executeScript(any(), anyList())).thenReturn(4L);
+        rbacIndex.onRoleChanged("ROLE_A");
+        assertFalse(rbacIndex.hasPermission(1L, "1001", edit));
+    }
+
+    @Test
+    public void testPermissionVersion() {
+        String version = rbacIndex.getPermissionVersion(1L, "1001");
+        assertEquals(RbacIndex.versionOf(Arrays.asList("user:edit", "user:read")), version);
+        assertEquals(RbacIndex.EMPTY_PERMISSION_VERSION, rbacIndex.getPermissionVersion(2L, "1001"));
+        assertEquals(RbacIndex.EMPTY_PERMISSION_VERSION, rbacIndex.getPermissionVersion(1L, "2002"));
+        assertTrue(rbacIndex.getEffectivePermissions(1L, "2002").isEmpty());
+
+        // 角色权限变化后版本随之变化；权限集合恢复后版本也恢复
+        when(roleMapper.selectById("ROLE_A")).thenReturn(role("ROLE_A", 1));
+        when(menuMapper.selectPermsByRoleIds(Collections.singletonList("ROLE_A"))).thenReturn(Collections.singletonList("user:read"));
+        when(redisUtil.executeScript(any(), anyList())).thenReturn(4L, 5L);
+        rbacIndex.onRoleChanged("ROLE_A");
+        assertNotEquals(version, rbacIndex.getPermissionVersion(1L, "1001"));
+
+        when(menuMapper.selectPermsByRoleIds(Collections.singletonList("ROLE_A"))).thenReturn(Arrays.asList("user:read", "user:edit"));
+        rbacIndex.onRoleChanged("ROLE_A");
+        assertEquals(version, rbacIndex.getPermissionVersion(1L, "1001"));
+    }
+
+    @Test
+    public void testOnRoleChanged_PatchAndBumpVersion() {
+        when(roleMapper.selectById("ROLE_B")).thenReturn(role("ROLE_B", 1));
+        when(menuMapper.selectPermsByRoleIds(Collections.singletonList("ROLE_B"))).thenReturn(Collections.singletonList("user:read"));
+        when(redisUtil.executeScript(any(), anyList())).thenReturn(4L);
+
+        rbacIndex.onRoleChanged("ROLE_B");
+
+        assertTrue(rbacIndex.hasPermission(2L, "1001", "user:read"));
+        assertEquals(4L, rbacIndex.getAppliedVersion());
+        // 版本号连续，只修补不重建
+        verify(userRoleMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    public void testOnUserRolesChanged_VersionGapRebuilds() {
+        when(userRoleMapper.selectList(any())).thenReturn(Collections.singletonList(userRole(1L, "ROLE_A")));
+        // 其他节点的变更（版本4）尚未应用
+        when(redisUtil.executeScript(any(), anyList())).thenReturn(5L);
+
+        rbacIndex.onUserRolesChanged(2L);
+
+        assertEquals(5L, rbacIndex.getAppliedVersion());
+        verify(permissionDictionary).reload();
+        verify(userRoleMapper, times(3)).selectList(any());
+    }
+
+    @Test
+    public void testPoll_OtherNodeChanged() {
+        when(redisUtil.executeScript(any(), anyList())).thenReturn(3L);
+        ReflectionTestUtils.invokeMethod(rbacIndex, "pollSafely");
+        verify(userRoleMapper, times(1)).selectList(any());
+
+        when(redisUtil.executeScript(any(), anyList())).thenReturn(7L);
+        when(roleMapper.selectList(any())).thenReturn(Arrays.asList(role("ROLE_A", 0), role("ROLE_B", 0)));
+        ReflectionTestUtils.invokeMethod(rbacIndex, "pollSafely");
+        assertEquals(7L, rbacIndex.getAppliedVersion());
+        assertFalse(rbacIndex.hasPermission(1L, "1001", "user:edit"));
+    }
+
+    private static SysUserRole userRole(Long userId, String roleId) {
+        SysUserRole userRole = new SysUserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        return userRole;
+    }
+
+    private static SysOrgRole orgRole(String orgId) {
+        SysOrgRole orgRole = new SysOrgRole();
+        orgRole.setOrgId(orgId);
+        return orgRole;
+    }
+
+    private static SysMenu menu(Long menuId, String perms) {
+        SysMenu menu = new SysMenu();
+        menu.setMenuId(menuId);
+        menu.setPerms(perms);
+        return menu;
+    }
+
+    private static SysRoleMenu roleMenu(String roleId, Long menuId) {
+        SysRoleMenu roleMenu = new SysRoleMenu();
+        roleMenu.setRoleId(roleId);
+        roleMenu.setMenuId(menuId);
+        return roleMenu;
+    }
+
+    private static SysRole role(String roleId, int status) {
+        SysRole role = new SysRole();
+        role.setRoleId(roleId);
+        role.setStatus(status);
+        return role;
+    }
+}
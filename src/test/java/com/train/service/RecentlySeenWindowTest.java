@@ -0,0 +1,79 @@
+package com.train.service;
+
+import com.train.service.impl.RecentlySeenWindow;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecentlySeenWindowTest {
+
+    @Test
+    public void testRecord_RotatesAfterTwoGenerations() {
+        RecentlySeenWindow window = new RecentlySeenWindow();
+        window.record(new long[]{101, 102, 103, 104, 105}, 2);
+        assertTrue(window.test(101));
+        assertTrue(window.test(105));
+
+        // 第2份试卷仍在当前代，第3份试卷开始新一代：第1份转入上一代，仍然可见
+        window.record(new long[]{201}, 2);
+        window.record(new long[]{301}, 2);
+        assertTrue(window.test(101));
+        assertTrue(window.test(301));
+
+        // 再满一代后第1、2份试卷被丢弃
+        window.record(new long[]{401}, 2);
+        window.record(new long[]{501}, 2);
+        assertTrue(window.test(301));
+        assertTrue(window.test(501));
+        assertFalse(window.test(101) && window.test(102) && window.test(103) && window.test(104) && window.test(105));
+    }
+
+    @Test
+    public void testEncode_RoundTripWithFixedSize() {
+        RecentlySeenWindow window = new RecentlySeenWindow();
+        for (long id = 1; id <= 50; id++) {
+            window.record(new long[]{id, id + 1_000_000}, 10);
+        }
+        String encoded = window.encode();
+        // 位图大小固定，与做题数量无关
+        assertEquals(260, Base64.getDecoder().decode(encoded).length);
+        assertTrue(encoded.length() < 400);
+
+        RecentlySeenWindow decoded = RecentlySeenWindow.decode(encoded);
+        for (long id = 0; id < 5000; id++) {
+            assertEquals(window.test(id), decoded.test(id));
+        }
+        assertEquals(encoded, decoded.encode());
+    }
+
+    @Test
+    public void testDecode_InvalidInputReturnsEmptyWindow() {
+        assertFalse(RecentlySeenWindow.decode(null).test(1));
+        assertFalse(RecentlySeenWindow.decode("").test(1));
+        assertFalse(RecentlySeenWindow.decode("not base64!").test(1));
+        assertFalse(RecentlySeenWindow.decode("AAAA").test(1));
+    }
+
+    @Test
+    public void testFalsePositiveRate_StaysLow() {
+        RecentlySeenWindow window = new RecentlySeenWindow();
+        // 两代共20份试卷、每份5道题
+        for (int paper = 0; paper < 20; paper++) {
+            long[] ids = new long[5];
+            for (int i = 0; i < 5; i++) {
+                ids[i] = paper * 5 + i + 1;
+            }
+            window.record(ids, 10);
+        }
+        int falsePositives = 0;
+        for (long id = 10_000; id < 20_000; id++) {
+            if (window.test(id)) {
+                falsePositives++;
+            }
+        }
+        // 100道题占用约100/1024位，误判率约10%
+        assertTrue(falsePositives < 1500, "误判数：" + falsePositives);
+    }
+}
@@ -0,0 +1,69 @@
+package com.train.service;
+
+import com.train.security.SessionRenewalService;
+import com.train.util.RedisUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SessionRenewalServiceTest {
+    @Mock
+    private RedisUtil redisUtil;
+    @InjectMocks
+    private SessionRenewalService renewalService;
+
+    @Test
+    public void testRequestRenewal_ThrottledWithinWindow() {
+        assertTrue(renewalService.requestRenewal("user:info:a"));
+        assertFalse(renewalService.requestRenewal("user:info:a"));
+        assertTrue(renewalService.requestRenewal("user:info:b"));
+        assertEquals(3, renewalService.getRequestedCount());
+        assertEquals(1, renewalService.getThrottledCount());
+        // 请求线程不访问Redis
+        verifyNoInteractions(redisUtil);
+    }
+
+    @Test
+    public void testFlush_PipelinedBatch() {
+        renewalService.requestRenewal("user:info:a");
+        renewalService.requestRenewal("user:info:b");
+        renewalService.requestRenewal("user:info:a");
+
+        renewalService.flush();
+
+        verify(redisUtil, times(1)).expireBatch(Arrays.asList("user:info:a", "user:info:b"), 3600L, TimeUnit.SECONDS);
+        assertEquals(2, renewalService.getFlushedCount());
+        assertEquals(0, renewalService.getPendingSize());
+
+        // 队列为空时不发送
+        renewalService.flush();
+        verify(redisUtil, times(1)).expireBatch(any(), anyLong(), any());
+    }
+
+    @Test
+    public void testFlush_EvictsDrainedStaleRecords() throws Exception {
+        ReflectionTestUtils.setField(renewalService, "windowSeconds", 0L);
+        renewalService.requestRenewal("user:info:a");
+        renewalService.requestRenewal("user:info:b");
+        assertEquals(2, renewalService.getTrackedSize());
+        Thread.sleep(5);
+
+        renewalService.flush();
+
+        // 窗口外的记录在发送后清理，再次请求重新入队
+        assertEquals(0, renewalService.getTrackedSize());
+        assertTrue(renewalService.requestRenewal("user:info:a"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.train.service;
+
+import com.train.filter.JwtAuthorizationFilter;
+import com.train.filter.JwtTokenRefreshFilter;
+import com.train.security.JwtUserDetails;
+import com.train.security.PermissionDictionary;
+import com.train.security.SessionRenewalService;
+import com.train.security.TokenRevocationCache;
+import com.train.security.VerifiedToken;
+import com.train.util.JwtTokenUtil;
+import com.train.util.RedisUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.http.HttpServlet;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 无状态访问令牌模式：请求校验不访问Redis，刷新令牌轮换与吊销纪元
+ */
+@ExtendWith(MockitoExtension.class)
+public class StatelessTokenTest {
+    @Mock
+    private RedisUtil redisUtil;
+    @Mock
+    private SessionRenewalService sessionRenewalService;
+    @Spy
+    private TokenRevocationCache revocationCache = new TokenRevocationCache();
+    @Spy
+    private PermissionDictionary permissionDictionary = new PermissionDictionary();
+    @InjectMocks
+    private JwtTokenUtil jwtTokenUtil;
+
+    private JwtUserDetails user;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", "train-center-secret-key-2025");
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 600L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "stateless", true);
+        jwtTokenUtil.init();
+        permissionDictionary.rebuild(Arrays.asList("user:read", "org:read"));
+
+        user = new JwtUserDetails();
+        user.setUserId(1L);
+        user.setAccount("test");
+        user.setOrgId("1001");
+        user.setIsSysAdmin(0);
+        user.setAuthorities(Collections.singletonList(new SimpleGrantedAuthority("ORG_ROLE_USER")));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testFilter_AccessTokenWithoutRedis() throws Exception {
+        String accessToken = jwtTokenUtil.generateAccessToken(user, 0);
+        JwtAuthorizationFilter authorizationFilter = new JwtAuthorizationFilter(jwtTokenUtil, "/train/auth/login");
+        JwtTokenRefreshFilter refreshFilter = new JwtTokenRefreshFilter(jwtTokenUtil, "/train/auth/login");
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/train/sys/org/page");
+        request.addHeader("Authorization", "Bearer " + accessToken);
+        refreshFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+        }, authorizationFilter));
+
+        VerifiedToken verifiedToken = VerifiedToken.from(request);
+        assertNotNull(verifiedToken);
+        assertNotNull(verifiedToken.getExpiration());
+        assertTrue(verifiedToken.getRemainingSeconds() <= jwtTokenUtil.getAccessTtlSeconds());
+        // 只验签与过期时间，既不校验Redis会话也不续期
+        verifyNoInteractions(redisUtil);
+        verifyNoInteractions(sessionRenewalService);
+    }
+
+    @Test
+    public void testFilter_LocallyRevokedAccessToken() throws Exception {
+        String accessToken = jwtTokenUtil.generateAccessToken(user, 0);
+        revocationCache.markRevoked(jwtTokenUtil.verify(accessToken).getSessionId(), System.currentTimeMillis() + 60000);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/train/sys/org/page");
+        request.addHeader("Authorization", "Bearer " + accessToken);
+        new JwtAuthorizationFilter(jwtTokenUtil, "/train/auth/login")
+                .doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(redisUtil);
+    }
+
+    @Test
+    public void testFilter_RefreshTokenCannotAccess() throws Exception {
+        String refreshToken = jwtTokenUtil.generateRefreshToken(user, 0);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/train/sys/org/page");
+        request.addHeader("Authorization", "Bearer " + refreshToken);
+        new JwtAuthorizationFilter(jwtTokenUtil, "/train/auth/login")
+                .doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNotNull(jwtTokenUtil.verifyRefreshToken(refreshToken));
+        assertNull(jwtTokenUtil.verifyRefreshToken(jwtTokenUtil.generateAccessToken(user, 0)));
+    }
+
+    @Test
+    public void testRotateRefreshToken() {
+        VerifiedToken refreshToken = jwtTokenUtil.verifyRefreshToken(jwtTokenUtil.generateRefreshToken(user, 2));
+
+        when(redisUtil.executeScript(any(), anyList(), anyString())).thenReturn(2L);
+        assertEquals(2, jwtTokenUtil.rotateRefreshToken(refreshToken));
+
+        // 用户纪元已递增（修改密码/禁用），旧刷新令牌失效
+        when(redisUtil.executeScript(any(), anyList(), anyString())).thenReturn(3L);
+        assertEquals(-1, jwtTokenUtil.rotateRefreshToken(refreshToken));
+    }
+
+    @Test
+    public void testRotateRefreshToken_ReuseRevokesUser() {
+        VerifiedToken refreshToken = jwtTokenUtil.verifyRefreshToken(jwtTokenUtil.generateRefreshToken(user, 0));
+        when(redisUtil.executeScript(any(), anyList(), anyString())).thenReturn(-1L, 1L);
+
+        assertEquals(-1, jwtTokenUtil.rotateRefreshToken(refreshToken));
+        // 轮换脚本 + 纪元递增脚本
+        verify(redisUtil, times(2)).executeScript(any(), anyList(), anyString());
+    }
+
+    @Test
+    public void testRotateRefreshToken_LoggedOutIsInvalidNotReplay() {
+        VerifiedToken refreshToken = jwtTokenUtil.verifyRefreshToken(jwtTokenUtil.generateRefreshToken(user, 0));
+        when(redisUtil.executeScript(any(), anyList(), anyString())).thenReturn(-2L);
+
+        assertEquals(-1, jwtTokenUtil.rotateRefreshToken(refreshToken));
+        // 登出后重试只判无效，不递增纪元吊销其他设备
+        verify(redisUtil, times(1)).executeScript(any(), anyList(), anyString());
+    }
+}
@@ -1,15 +1,21 @@
 package com.train.service;
 
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.train.entity.SysMenu;
 import com.train.exception.BusinessException;
 import com.train.mapper.SysMenuMapper;
 import com.train.mapper.SysRoleMenuMapper;
+import com.train.security.RbacIndex;
 import com.train.util.Result;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -23,9 +29,19 @@ public class SysMenuServiceImplTest {
     private SysMenuMapper menuMapper;
     @Mock
     private SysRoleMenuMapper roleMenuMapper;
+    @Mock
+    private RbacIndex rbacIndex;
     @InjectMocks
     private com.train.service.SysMenuServiceImpl menuService;
 
+    @BeforeEach
+    public void setUp() {
+        // 两个Mapper都是BaseMapper子类型，按类型无法确定泛型字段baseMapper的注入对象
+        ReflectionTestUtils.setField(menuService, "baseMapper", menuMapper);
+        // removeById 需要实体的表信息（判断逻辑删除）
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), SysMenu.class);
+    }
+
     @Test
     public void testDeleteMenu_MenuIdNull() {
         assertThrows(BusinessException.class, () -> menuService.deleteMenu(null));
@@ -34,7 +50,8 @@ public class SysMenuServiceImplTest {
     @Test
     public void testDeleteMenu_HasChildMenu() {
         // 有子菜单（覆盖递归查询子菜单分支）
-        when(menuMapper.selectList(any())).thenReturn(Arrays.asList(new SysMenu())); // 模拟存在子菜单
+        // 模拟存在子菜单（子菜单下无子菜单，递归结束）
+        when(menuMapper.selectList(any())).thenReturn(Arrays.asList(new SysMenu()), Collections.emptyList());
         assertThrows(BusinessException.class, () -> menuService.deleteMenu(1L));
     }
 
@@ -60,6 +77,64 @@ public class SysMenuServiceImplTest {
         when(roleMenuMapper.exists(any())).thenReturn(false);
         when(menuMapper.deleteById(1L)).thenReturn(1); // 删除成功
         Result<?> result = menuService.deleteMenu(1L);
-        assertEquals("菜单删除成功", result.getMessage());
+        assertEquals("菜单删除成功", result.getData());
+        verify(rbacIndex).invalidate();
+    }
+
+    @Test
+    public void testDeleteMenu_FailDoesNotInvalidate() {
+        when(menuMapper.selectList(any())).thenReturn(Collections.emptyList());
+        when(roleMenuMapper.exists(any())).thenReturn(true);
+        assertThrows(BusinessException.class, () -> menuService.deleteMenu(1L));
+        verify(rbacIndex, never()).invalidate();
+    }
+
+    @Test
+    public void testAddMenu_InvalidatesRbacIndex() {
+        SysMenu menu = new SysMenu();
+        menu.setMenuName("日志查询");
+        menu.setType(1);
+        when(menuMapper.exists(any())).thenReturn(false);
+        when(menuMapper.insert(menu)).thenReturn(1);
+
+        Result<?> result = menuService.addMenu(menu);
+
+        assertEquals("菜单新增成功", result.getData());
+        verify(rbacIndex).invalidate();
+    }
+
+    @Test
+    public void testEditMenu_InvalidatesRbacIndex() {
+        SysMenu oldMenu = new SysMenu();
+        oldMenu.setMenuId(2L);
+        SysMenu menu = new SysMenu();
+        menu.setMenuId(2L);
+        menu.setMenuName("日志查询");
+        menu.setType(1);
+        when(menuMapper.selectById(2L)).thenReturn(oldMenu);
+        when(menuMapper.selectList(any())).thenReturn(Collections.emptyList());
+        when(menuMapper.exists(any())).thenReturn(false);
+        when(menuMapper.updateById(menu)).thenReturn(1);
+
+        Result<?> result = menuService.editMenu(menu);
+
+        assertEquals("菜单编辑成功", result.getData());
+        verify(rbacIndex).invalidate();
+    }
+
+    @Test
+    public void testEditMenu_UniqueNameFailDoesNotInvalidate() {
+        SysMenu oldMenu = new SysMenu();
+        oldMenu.setMenuId(2L);
+        SysMenu menu = new SysMenu();
+        menu.setMenuId(2L);
+        menu.setMenuName("日志查询");
+        menu.setType(1);
+        when(menuMapper.selectById(2L)).thenReturn(oldMenu);
+        when(menuMapper.selectList(any())).thenReturn(Collections.emptyList());
+        when(menuMapper.exists(any())).thenReturn(true);
+
+        assertThrows(BusinessException.class, () -> menuService.editMenu(menu));
+        verify(rbacIndex, never()).invalidate();
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.train.service;
 import com.train.aspect.SysOperLogAspect;
 import com.train.entity.SysOrg;
+import com.train.entity.TrainQuality;
 import com.train.entity.SysRole;
 import com.train.entity.SysUser;
 import org.junit.jupiter.api.Test;
@@ -53,4 +54,11 @@ public class SysOperLogAspectTest {
         String name = aspect.getOperObjName(new Object[]{null, new SysUser()});
         assertEquals("", name); // 第二个参数是SysUser但未设userName
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetOperObjName_NoNameField() {
+        // 实体计划中没有名称字段的实体
+        String name = aspect.getOperObjName(new Object[]{new TrainQuality()});
+        assertEquals("答题质量记录", name);
+    }
+}
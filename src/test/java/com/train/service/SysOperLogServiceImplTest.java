@@ -0,0 +1,236 @@
+package com.train.service;
+
+import com.train.dto.SysOperLogPage;
+import com.train.dto.SysOperLogQuery;
+import com.train.entity.SysOperLog;
+import com.train.mapper.SysOperLogMapper;
+import com.train.service.impl.SysOperLogServiceImpl;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SysOperLogServiceImplTest {
+    @Mock
+    private SysOperLogMapper sysOperLogMapper;
+    @Mock
+    private Cursor<SysOperLog> cursor;
+    @InjectMocks
+    private SysOperLogServiceImpl operLogService;
+
+    @Test
+    public void testExportCsv_StreamsCursorRows() throws Exception {
+        when(sysOperLogMapper.selectForExport(any(SysOperLogQuery.class))).thenReturn(cursor);
+        when(cursor.iterator()).thenReturn(generate(2500, null, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = operLogService.exportCsv(new SysOperLogQuery(), out, null, 1L);
+
+        assertEquals(2500, rows);
+        verify(cursor).close();
+        String[] lines = lines(out);
+        assertEquals(2501, lines.length);
+        assertTrue(lines[0].startsWith("\uFEFF日志ID,机构ID,"));
+        assertEquals("L0,,zhangsan,,,查询,,,{},,2026-01-01 08:00:00,成功", lines[1]);
+        assertTrue(lines[2500].startsWith("L2499,"));
+    }
+
+    @Test
+    public void testExportCsv_EmptyResultWritesHeader() throws Exception {
+        when(sysOperLogMapper.selectForExport(any(SysOperLogQuery.class))).thenReturn(cursor);
+        when(cursor.iterator()).thenReturn(generate(0, null, null));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, operLogService.exportCsv(null, out, null, 1L));
+        assertEquals(1, lines(out).length);
+    }
+
+    @Test
+    public void testExportCsv_EscapesFieldsAndFormulas() throws Exception {
+        SysOperLog operLog = new SysOperLog();
+        operLog.setLogId("L0");
+        operLog.setOperName("=HYPERLINK(\"x\")");
+        operLog.setOperContent("{\"a\":1,\"b\":2}");
+        operLog.setTargetName("第一行\n第二行");
+        when(sysOperLogMapper.selectForExport(any(SysOperLogQuery.class))).thenReturn(cursor);
+        when(cursor.iterator()).thenReturn(Collections.singletonList(operLog).iterator());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        operLogService.exportCsv(null, out, null, 1L);
+
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(csv.contains("\r\nL0,,,\"'=HYPERLINK(\"\"x\"\")\",,,,\"第一行\n第二行\",\"{\"\"a\"\":1,\"\"b\"\":2}\",,,\r\n"), csv);
+    }
+
+    @Test
+    public void testExportCsv_Cancel() throws Exception {
+        when(sysOperLogMapper.selectForExport(any(SysOperLogQuery.class))).thenReturn(cursor);
+        // 读到第1500行时取消，下一次检查（第2000行）中止
+        // 其他用户不能取消
+        when(cursor.iterator()).thenReturn(generate(100_000, 1500, () -> {
+            assertFalse(operLogService.cancelExport("E1", 2L));
+            assertTrue(operLogService.cancelExport("E1", 1L));
+        }));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // 响应已提交，按写出中断处理，不抛业务异常
+        InterruptedIOException e = assertThrows(InterruptedIOException.class, () -> operLogService.exportCsv(new SysOperLogQuery(), out, "E1", 1L));
+
+        assertEquals("导出已取消", e.getMessage());
+        // 中止前已写出的行全部推送给客户端，且以整行结束
+        String[] lines = lines(out);
+        assertEquals(2001, lines.length);
+        assertEquals("L1999", lines[2000].split(",")[0]);
+        verify(cursor).close();
+        // 任务结束后标识释放
+        assertFalse(operLogService.cancelExport("E1", 1L));
+    }
+
+    @Test
+    public void testExportCsv_ClientDisconnectStopsCursor() throws Exception {
+        when(sysOperLogMapper.selectForExport(any(SysOperLogQuery.class))).thenReturn(cursor);
+        // 第一次推送即失败，不应继续读取游标
+        when(cursor.iterator()).thenReturn(generate(100_000, 1001, () -> fail("客户端断开后仍在读取游标")));
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> operLogService.exportCsv(new SysOperLogQuery(), out, "E2", 1L));
+
+        verify(cursor).close();
+        assertFalse(operLogService.cancelExport("E2", 1L));
+    }
+
+    @Test
+    public void testSearchLogs_KeysetWithEstimatedTotal() {
+        SysOperLogQuery query = new SysOperLogQuery();
+        query.setPageSize(3);
+        when(sysOperLogMapper.selectPageAfter(query, 4)).thenReturn(logs(4));
+        when(sysOperLogMapper.explainCount(query)).thenReturn("[{\"Plan\": {\"Node Type\": \"Index Scan\", \"Plan Rows\": 120000}}]");
+
+        SysOperLogPage page = operLogService.searchLogs(query);
+
+        assertEquals(3, page.getRecords().size());
+        assertTrue(page.isHasMore());
+        assertEquals("L2", page.getNextLogId());
+        assertEquals(LocalDateTime.of(2026, 1, 1, 8, 0).minusSeconds(2), page.getNextOperTime());
+        assertEquals(120000, page.getTotal());
+        assertFalse(page.isTotalExact());
+        verify(sysOperLogMapper, never()).countByQuery(any());
+    }
+
+    @Test
+    public void testSearchLogs_SinglePageIsExact() {
+        when(sysOperLogMapper.selectPageAfter(any(SysOperLogQuery.class), eq(21))).thenReturn(logs(5));
+
+        SysOperLogPage page = operLogService.searchLogs(new SysOperLogQuery());
+
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextLogId());
+        assertEquals(5, page.getTotal());
+        assertTrue(page.isTotalExact());
+        verify(sysOperLogMapper, never()).explainCount(any());
+    }
+
+    @Test
+    public void testSearchLogs_ExactCountAndPageSizeCap() {
+        SysOperLogQuery query = new SysOperLogQuery();
+        query.setPageSize(1000);
+        query.setExactCount(true);
+        query.setAfterOperTime(LocalDateTime.of(2026, 1, 1, 8, 0));
+        query.setAfterLogId("L0");
+        when(sysOperLogMapper.selectPageAfter(query, 101)).thenReturn(logs(2));
+        when(sysOperLogMapper.countByQuery(query)).thenReturn(102L);
+
+        SysOperLogPage page = operLogService.searchLogs(query);
+
+        assertEquals(102, page.getTotal());
+        assertTrue(page.isTotalExact());
+    }
+
+    @Test
+    public void testSearchLogs_EstimateFailureFallsBackToCount() {
+        SysOperLogQuery query = new SysOperLogQuery();
+        when(sysOperLogMapper.selectPageAfter(eq(query), anyInt())).thenReturn(logs(21));
+        when(sysOperLogMapper.explainCount(query)).thenThrow(new RuntimeException("explain failed"));
+        when(sysOperLogMapper.countByQuery(query)).thenReturn(500L);
+
+        SysOperLogPage page = operLogService.searchLogs(query);
+
+        assertEquals(500, page.getTotal());
+        assertTrue(page.isTotalExact());
+    }
+
+    private static List<SysOperLog> logs(int count) {
+        List<SysOperLog> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SysOperLog operLog = new SysOperLog();
+            operLog.setLogId("L" + i);
+            operLog.setOperTime(LocalDateTime.of(2026, 1, 1, 8, 0).minusSeconds(i));
+            list.add(operLog);
+        }
+        return list;
+    }
+
+    private static String[] lines(ByteArrayOutputStream out) {
+        return new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+    }
+
+    /**
+     * 生成日志行（不预先构造整份数据，模拟游标逐行读取）
+     */
+    private static Iterator<SysOperLog> generate(int count, Integer triggerAt, Runnable trigger) {
+        return new Iterator<SysOperLog>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public SysOperLog next() {
+                if (triggerAt != null && index == triggerAt) {
+                    trigger.run();
+                }
+                SysOperLog operLog = new SysOperLog();
+                operLog.setLogId("L" + index);
+                operLog.setOperAccount("zhangsan");
+                operLog.setOperType("查询");
+                operLog.setOperContent("{}");
+                operLog.setOperTime(LocalDateTime.of(2026, 1, 1, 8, 0));
+                operLog.setOperResult("成功");
+                index++;
+                return operLog;
+            }
+        };
+    }
+}
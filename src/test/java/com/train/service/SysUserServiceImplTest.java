@@ -3,6 +3,7 @@ import com.train.entity.SysUser;
 import com.train.exception.BusinessException;
 import com.train.mapper.SysUserMapper;
 import com.train.service.impl.SysUserServiceImpl;
+import com.train.util.JwtTokenUtil;
 import com.train.util.Result;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,6 +17,8 @@ import static org.junit.jupiter.api.Assertions.*;
 public class SysUserServiceImplTest {
     @Mock
     private SysUserMapper userMapper;
+    @Mock
+    private JwtTokenUtil jwtTokenUtil;
     @InjectMocks
     private SysUserServiceImpl userService;
 
@@ -66,4 +69,25 @@ public class SysUserServiceImplTest {
         assertNotNull(user.getPassword());
         assertNotEquals("123456", user.getPassword());
     }
+
+    @Test
+    public void testResetUserPwd_RevokesTokens() {
+        SysUser user = new SysUser();
+        user.setIsSysAdmin(0);
+        when(userMapper.selectById(1L)).thenReturn(user);
+        when(userMapper.updateById(any())).thenReturn(1);
+        userService.resetUserPwd(1L, "123456");
+        // 重置密码后吊销该用户已签发的刷新令牌（无事务时立即执行）
+        verify(jwtTokenUtil).revokeUserTokens(1L);
+    }
+
+    @Test
+    public void testResetUserPwd_UpdateFailDoesNotRevoke() {
+        SysUser user = new SysUser();
+        user.setIsSysAdmin(0);
+        when(userMapper.selectById(1L)).thenReturn(user);
+        when(userMapper.updateById(any())).thenReturn(0);
+        assertThrows(BusinessException.class, () -> userService.resetUserPwd(1L, "123456"));
+        verify(jwtTokenUtil, never()).revokeUserTokens(any());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.train.service;
+
+import com.train.security.TokenRevocationCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenRevocationCacheTest {
+
+    @Test
+    public void testLookup_RevokedAndNegative() {
+        TokenRevocationCache cache = new TokenRevocationCache();
+        assertNull(cache.lookup("a"));
+
+        cache.markNotRevoked("a");
+        assertEquals(Boolean.FALSE, cache.lookup("a"));
+
+        // 吊销记录覆盖未吊销记录，且不会被未吊销记录覆盖回去
+        cache.markRevoked("a", System.currentTimeMillis() + 60000);
+        cache.markNotRevoked("a");
+        assertEquals(Boolean.TRUE, cache.lookup("a"));
+
+        // 首次查询未命中，之后两次命中
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLookup_NegativeExpired() throws Exception {
+        TokenRevocationCache cache = new TokenRevocationCache();
+        ReflectionTestUtils.setField(cache, "negativeTtlMs", 1L);
+        cache.markNotRevoked("a");
+        Thread.sleep(5);
+        // 超过陈旧上限后必须回源Redis
+        assertNull(cache.lookup("a"));
+    }
+
+    @Test
+    public void testOnMessage_Broadcast() {
+        TokenRevocationCache cache = new TokenRevocationCache();
+        String body = TokenRevocationCache.buildMessage("hash", System.currentTimeMillis() + 60000);
+        cache.onMessage(new DefaultMessage(TokenRevocationCache.REVOKED_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+        assertEquals(Boolean.TRUE, cache.lookup("hash"));
+
+        // 格式错误的消息忽略
+        cache.onMessage(new DefaultMessage(new byte[0], "bad".getBytes(StandardCharsets.UTF_8)), null);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testBounded_EvictsNotRevokedFirst() {
+        TokenRevocationCache cache = new TokenRevocationCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        cache.markRevoked("revoked", System.currentTimeMillis() + 60000);
+        cache.markNotRevoked("a");
+        cache.markNotRevoked("b");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        // 吊销记录保留，淘汰的是未吊销记录（只需多查一次Redis）
+        assertEquals(Boolean.TRUE, cache.lookup("revoked"));
+
+        // 全部为吊销记录时也不超出上限
+        cache.markRevoked("c", System.currentTimeMillis() + 60000);
+        cache.markRevoked("d", System.currentTimeMillis() + 60000);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testBindTo_Metrics() {
+        TokenRevocationCache cache = new TokenRevocationCache();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.markNotRevoked("a");
+        cache.lookup("a");
+        cache.lookup("b");
+        cache.lookup("b");
+
+        assertEquals(1, registry.get("token.revocation.cache.lookups").tag("result", "hit").functionCounter().count());
+        assertEquals(2, registry.get("token.revocation.cache.lookups").tag("result", "miss").functionCounter().count());
+        assertEquals(1, registry.get("token.revocation.cache.size").gauge().value());
+    }
+}
@@ -0,0 +1,94 @@
+package com.train.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedEditDistanceTest {
+
+    @Test
+    public void testDistance_KnownCases() {
+        BoundedEditDistance kitten = new BoundedEditDistance("kitten");
+        assertEquals(3, kitten.distance("sitting", 5));
+        assertEquals(0, kitten.distance("kitten", 0));
+        assertEquals(6, kitten.distance("", 6));
+        assertEquals(3, new BoundedEditDistance("").distance("abc", 3));
+
+        BoundedEditDistance karyotype = new BoundedEditDistance("46,XX,t(4;21)(p15.2;q22)");
+        assertEquals(1, karyotype.distance("46,XX,t(4;21)(p15.2;q21)", 2));
+        assertEquals(1, karyotype.distance("46,XX,t(4;21)(p15.2;q22", 2));
+        assertEquals(2, karyotype.distance("46,XX,t(4;21)(p15;q22)", 2));
+    }
+
+    @Test
+    public void testDistance_BoundedResult() {
+        BoundedEditDistance distance = new BoundedEditDistance("46,XY,inv(9)(q22q33)");
+        // 超过上限统一返回 上限+1（长度差超限与逐列提前结束两条路径）
+        assertEquals(3, distance.distance("46,XY,inv(9)(q22q33)+abcdefg", 2));
+        assertEquals(3, distance.distance("47,XX,t(1;2)(p32;q21)", 2));
+        assertEquals(1, distance.distance("xyz", -1));
+    }
+
+    @Test
+    public void testDistance_SameAsDynamicProgramming() {
+        Random random = new Random(20261018);
+        String alphabet = "46XYpq(),;.+tdel中文";
+        for (int round = 0; round < 3000; round++) {
+            // 覆盖单字与多字（>64、>128 字符）模式串
+            String pattern = randomText(random, alphabet, random.nextInt(round % 3 == 0 ? 200 : 40));
+            String text = mutate(random, alphabet, pattern, random.nextInt(6));
+            int expected = dynamicProgramming(pattern, text);
+            BoundedEditDistance distance = new BoundedEditDistance(pattern);
+            assertEquals(expected, distance.distance(text, Math.max(pattern.length(), text.length())), pattern + " / " + text);
+            for (int max = 0; max <= 6; max++) {
+                assertEquals(Math.min(expected, max + 1), distance.distance(text, max), pattern + " / " + text + " / " + max);
+            }
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    private static String mutate(Random random, String alphabet, String text, int edits) {
+        StringBuilder builder = new StringBuilder(text);
+        for (int i = 0; i < edits; i++) {
+            int position = builder.length() == 0 ? 0 : random.nextInt(builder.length());
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            int operation = builder.length() == 0 ? 0 : random.nextInt(3);
+            if (operation == 0) {
+                builder.insert(position, c);
+            } else if (operation == 1) {
+                builder.deleteCharAt(position);
+            } else {
+                builder.setCharAt(position, c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int dynamicProgramming(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
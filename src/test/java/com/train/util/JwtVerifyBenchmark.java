@@ -0,0 +1,85 @@
+package com.train.util;
+
+import com.train.security.JwtUserDetails;
+import com.train.security.PermissionDictionary;
+import com.train.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个请求的JWT验签开销基准测试（JMH）
+ * legacyPerRequest：原过滤器链的做法，isTokenValid / getClaimsFromToken / validateToken / 续期过滤器各自新建解析器并验签，共4次
+ * verifyOnce：{@link JwtTokenUtil#verify(String)} 使用预构建的密钥与解析器验签一次，结果在请求内复用
+ * 运行方式同 {@link KaryotypeAnswerBenchmark}，类名换为 com.train.util.JwtVerifyBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+    private static final String SECRET = "train-center-secret-key-2025";
+    private static final int LEGACY_PARSES_PER_REQUEST = 4;
+
+    private JwtTokenUtil jwtTokenUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        PermissionDictionary permissionDictionary = new PermissionDictionary();
+        permissionDictionary.rebuild(Arrays.asList("user:read", "user:edit", "role:read", "org:read"));
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "permissionDictionary", permissionDictionary);
+        jwtTokenUtil.init();
+
+        JwtUserDetails user = new JwtUserDetails();
+        user.setUserId(1L);
+        user.setAccount("test");
+        user.setOrgId("1001");
+        user.setIsSysAdmin(0);
+        user.setAuthorities(Collections.singletonList(new SimpleGrantedAuthority("ORG_ROLE_USER")));
+        user.setPermissions(Arrays.asList("user:read", "org:read"));
+        token = jwtTokenUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public void legacyPerRequest(Blackhole blackhole) {
+        for (int i = 0; i < LEGACY_PARSES_PER_REQUEST; i++) {
+            Claims claims = Jwts.parser().setSigningKey(SECRET).parseClaimsJws(token).getBody();
+            blackhole.consume(claims);
+        }
+    }
+
+    @Benchmark
+    public VerifiedToken verifyOnce() {
+        return jwtTokenUtil.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtVerifyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
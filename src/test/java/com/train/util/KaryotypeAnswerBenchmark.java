@@ -0,0 +1,86 @@
+package com.train.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 判分匹配基准测试（JMH）：原逐次拆分匹配 vs 编译后的 {@link KaryotypeAnswer}
+ * 每次调用对题库语料全部题目各判一次，提交答案取各题第一个可选答案（两种规则都判对，不会提前结束）
+ * 不属于单元测试（类名不以Test结尾，surefire不执行），运行方式：
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.train.util.KaryotypeAnswerBenchmark
+ * 参考结果（JDK 17.0.9，1 vCPU，-prof gc）：legacySplitMatcher 18.3 us/op、37968 B/op；
+ * compiledMatcher 4.9 us/op、3128 B/op；compileAndMatch 15.5 us/op、24440 B/op
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KaryotypeAnswerBenchmark {
+
+    private List<String> standards;
+    private List<KaryotypeAnswer> compiled;
+    private List<String> submissions;
+
+    @Setup
+    public void setUp() {
+        standards = QuestionSqlGenerator.getQuestionAnswers();
+        compiled = new ArrayList<>(standards.size());
+        submissions = new ArrayList<>(standards.size());
+        for (String standard : standards) {
+            compiled.add(KaryotypeAnswer.compile(standard));
+            submissions.add(standard.split("\\|\\|")[0]);
+        }
+    }
+
+    @Benchmark
+    public int legacySplitMatcher() {
+        int matched = 0;
+        for (int i = 0; i < standards.size(); i++) {
+            matched += LegacyKaryotypeMatcher.judge(standards.get(i), submissions.get(i)) ? 1 : 0;
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public int compiledMatcher() {
+        int matched = 0;
+        for (int i = 0; i < compiled.size(); i++) {
+            matched += compiled.get(i).matches(submissions.get(i)) ? 1 : 0;
+        }
+        return matched;
+    }
+
+    /**
+     * 判分时每题都要编译的开销（未命中缓存时）
+     */
+    @Benchmark
+    public int compileAndMatch() {
+        int matched = 0;
+        for (int i = 0; i < standards.size(); i++) {
+            matched += KaryotypeAnswer.compile(standards.get(i)).matches(submissions.get(i)) ? 1 : 0;
+        }
+        return matched;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KaryotypeAnswerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.train.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KaryotypeAnswerTest {
+
+    @Test
+    public void testParse_Structure() {
+        KaryotypeAnswer.Karyotype karyotype = KaryotypeAnswer.compile("46,XY,der(22)t(Y;22)(q12;p12)").getAlternatives().get(0);
+        assertEquals("46", karyotype.getChromosomeCount());
+        assertEquals("XY", karyotype.getSexChromosomes());
+        assertEquals(Arrays.asList("der(22)t(Y;22)(q12;p12)"), karyotype.getAbnormalities());
+
+        karyotype = KaryotypeAnswer.compile("47,XXY").getAlternatives().get(0);
+        assertEquals("XXY", karyotype.getSexChromosomes());
+        assertTrue(karyotype.getAbnormalities().isEmpty());
+
+        // 全角括号、缺失的右括号
+        KaryotypeAnswer answer = KaryotypeAnswer.compile("46,XX,inv(1)(p12q21)||46,XX,inv(1)(p13q21）");
+        assertEquals(2, answer.getAlternatives().size());
+        assertEquals("46,XX,inv(1)(p13q21)", answer.getAlternatives().get(1).getCanonical());
+        assertEquals("46,XX,del(8)(p23)", KaryotypeAnswer.compile("46,XX,del(8)(p23").getAlternatives().get(0).getCanonical());
+    }
+
+    @Test
+    public void testMatches_Normalization() {
+        KaryotypeAnswer answer = KaryotypeAnswer.compile("46,XX,t(4;21)(p15.2;q22)");
+        assertTrue(answer.matches("46,XX,t(4;21)(p15.2;q22)"));
+        assertTrue(answer.matches(" 46, XX, t(4;21)(p15.2; q22) "));
+        assertTrue(answer.matches("46，XX，t（4；21）（p15.2；q22）"));
+        assertTrue(answer.matches("46,XX,,t(4;21)(p15.2;q22),"));
+        // 大小写有含义
+        assertFalse(answer.matches("46,xx,t(4;21)(p15.2;q22)"));
+        assertFalse(answer.matches("46,XX,T(4;21)(P15.2;Q22)"));
+
+        assertTrue(KaryotypeAnswer.compile("45,XX,psu dic(10;15)(p15;p11.2)").matches("45,XX,psudic(10;15)(p15;p11.2)"));
+        assertFalse(KaryotypeAnswer.compile("").matches("46,XX"));
+        assertFalse(KaryotypeAnswer.compile(null).matches("46,XX"));
+        assertFalse(KaryotypeAnswer.compile("46,XX").matches(""));
+        assertFalse(KaryotypeAnswer.compile("46,XX").matches(null));
+    }
+
+    @Test
+    public void testMatches_OrderAndExtraItems() {
+        KaryotypeAnswer normal = KaryotypeAnswer.compile("46,XX");
+        // 旧规则只检查标准答案各项是否出现，多写异常项也判对
+        assertTrue(LegacyKaryotypeMatcher.matchGroup("46,XX", "46,XX,+21"));
+        assertFalse(normal.matches("46,XX,+21"));
+        assertTrue(LegacyKaryotypeMatcher.matchGroup("46,XX", "XX,46"));
+        assertFalse(normal.matches("XX,46"));
+
+        KaryotypeAnswer twoItems = KaryotypeAnswer.compile("46,XX,del(4)(p15.3),t(1;2)(p32;q21)");
+        assertTrue(twoItems.matches("46,XX,del(4)(p15.3),t(1;2)(p32;q21)"));
+        assertFalse(twoItems.matches("46,XX,t(1;2)(p32;q21),del(4)(p15.3)"));
+        assertFalse(twoItems.matches("XX,46,del(4)(p15.3),t(1;2)(p32;q21)"));
+    }
+
+    @Test
+    public void testDistance_NearMiss() {
+        KaryotypeAnswer answer = KaryotypeAnswer.compile("46,XX,inv(1)(p12q21)||46,XX,inv(1)(p13q21）", 2, 10);
+        assertEquals(0, answer.distance("46，XX，inv（1）（p13q21）"));
+        // 取最接近的可选答案
+        assertEquals(1, answer.distance("46,XX,inv(1)(p12q22)"));
+        assertEquals(2, answer.distance("46,XX,inv(1)(p14q22)"));
+        assertEquals(-1, answer.distance("46,XY,inv(1)(p14q22)"));
+        assertEquals(-1, answer.distance("47,XX,+21"));
+        assertEquals(10, answer.getNearMissScore());
+
+        // 未配置近似答案时只有完全一致
+        KaryotypeAnswer exactOnly = KaryotypeAnswer.compile("46,XX,inv(1)(p12q21)");
+        assertEquals(0, exactOnly.distance("46,XX,inv(1)(p12q21)"));
+        assertEquals(-1, exactOnly.distance("46,XX,inv(1)(p12q22)"));
+        assertEquals(-1, KaryotypeAnswer.compile("46,XX", 0, 10).distance("46,XY"));
+        assertEquals(-1, KaryotypeAnswer.compile("", 3, 10).distance("46,XX"));
+    }
+
+    @Test
+    public void testCorpus() {
+        List<String> corpus = QuestionSqlGenerator.getQuestionAnswers();
+        Set<String> distinct = new LinkedHashSet<>(corpus);
+        List<KaryotypeAnswer> compiled = new ArrayList<>();
+        for (String standard : distinct) {
+            compiled.add(KaryotypeAnswer.compile(standard));
+        }
+
+        int index = 0;
+        for (String standard : distinct) {
+            KaryotypeAnswer answer = compiled.get(index++);
+            assertFalse(answer.isEmpty(), standard);
+            for (String alternative : standard.split("\\|\\|")) {
+                // 原样、全角标点、加空格的写法都判对
+                assertTrue(answer.matches(alternative), alternative);
+                assertTrue(answer.matches(toFullWidth(alternative)), alternative);
+                assertTrue(answer.matches(alternative.replace(",", ", ")), alternative);
+                // 数目、性染色体、异常项任一不同都判错
+                assertFalse(answer.matches(alternative.replaceFirst("^4", "9")), alternative);
+                assertFalse(answer.matches(alternative.replace("XX", "XY").equals(alternative)
+                        ? alternative.replace("XY", "XX") : alternative.replace("XX", "XY")), alternative);
+                assertFalse(answer.matches(alternative + ",+13"), alternative);
+                if (alternative.indexOf(',', alternative.indexOf(',') + 1) > 0) {
+                    assertFalse(answer.matches(alternative.substring(0, alternative.lastIndexOf(','))), alternative);
+                }
+                if (alternative.contains("q")) {
+                    assertFalse(answer.matches(alternative.replace("q", "p")), alternative);
+                }
+            }
+            // 与语料中其他题目的答案互不匹配
+            for (int other = 0; other < compiled.size(); other++) {
+                if (compiled.get(other) != answer) {
+                    for (KaryotypeAnswer.Karyotype karyotype : compiled.get(other).getAlternatives()) {
+                        assertFalse(answer.matches(karyotype.getCanonical()), standard + " vs " + karyotype);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String toFullWidth(String text) {
+        StringBuilder builder = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            builder.append(c == '(' || c == ')' || c == ',' || c == ';' ? (char) (c + 0xFEE0) : c);
+        }
+        return builder.toString();
+    }
+}
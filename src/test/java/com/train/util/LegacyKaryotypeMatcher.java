@@ -0,0 +1,37 @@
+package com.train.util;
+
+/**
+ * 原判分规则：按"||"与","拆分后逐项查找（对照测试与基准测试用）
+ */
+final class LegacyKaryotypeMatcher {
+
+    private LegacyKaryotypeMatcher() {
+    }
+
+    static boolean judge(String standardAnswer, String userAnswer) {
+        for (String standardGroup : standardAnswer.split("\\|\\|")) {
+            if (matchGroup(standardGroup, userAnswer.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean matchGroup(String standardGroup, String submitAnswer) {
+        String[] expectedParts = standardGroup.split(",");
+        String[] userParts = submitAnswer.split(",");
+        for (String expectedPart : expectedParts) {
+            boolean partMatched = false;
+            for (String userPart : userParts) {
+                if (expectedPart.trim().equals(userPart.trim())) {
+                    partMatched = true;
+                    break;
+                }
+            }
+            if (!partMatched) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package com.train.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 原脱敏实现：序列化结果解析成树后遍历过滤，再次序列化（对照测试与基准测试用）
+ */
+final class LegacySensitiveFilter {
+
+    private LegacySensitiveFilter() {
+    }
+
+    static String filter(ObjectMapper objectMapper, Pattern sensitivePattern, String json) throws IOException {
+        JsonNode rootNode = objectMapper.readTree(json);
+        filterNode(objectMapper, sensitivePattern, rootNode);
+        return objectMapper.writeValueAsString(rootNode);
+    }
+
+    private static void filterNode(ObjectMapper objectMapper, Pattern sensitivePattern, JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode objectNode = (ObjectNode) node;
+            Iterator<Map.Entry<String, JsonNode>> fieldIterator = objectNode.fields();
+            while (fieldIterator.hasNext()) {
+                Map.Entry<String, JsonNode> fieldEntry = fieldIterator.next();
+                if (sensitivePattern.matcher(fieldEntry.getKey()).matches()) {
+                    objectNode.put(fieldEntry.getKey(), "***");
+                } else {
+                    filterNode(objectMapper, sensitivePattern, fieldEntry.getValue());
+                }
+            }
+        } else if (node.isArray()) {
+            ArrayNode arrayNode = (ArrayNode) node;
+            for (int i = 0; i < arrayNode.size(); i++) {
+                JsonNode elementNode = arrayNode.get(i);
+                if (elementNode.isTextual() && sensitivePattern.matcher(elementNode.asText()).find()) {
+                    arrayNode.set(i, objectMapper.getNodeFactory().textNode("***"));
+                } else {
+                    filterNode(objectMapper, sensitivePattern, elementNode);
+                }
+            }
+        }
+    }
+}
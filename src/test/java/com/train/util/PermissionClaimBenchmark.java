@@ -0,0 +1,117 @@
+package com.train.util;
+
+import com.train.security.JwtUserDetails;
+import com.train.security.PermissionDictionary;
+import com.train.security.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Token权限载荷基准测试（JMH）：原逐条携带权限标识 vs 字典版本 + 权限位图
+ * 两种Token均由 {@link JwtTokenUtil#verify(String)} 验签并还原为权限集合，用户为持有14个权限的机构管理员
+ * 运行方式同 {@link KaryotypeAnswerBenchmark}，类名换为 com.train.util.PermissionClaimBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionClaimBenchmark {
+
+    private static final String SECRET = "train-center-secret-key-2025";
+    private static final List<String> PERMS = Arrays.asList(
+            "user:read", "user:add", "user:edit", "user:remove",
+            "role:read", "role:add", "role:edit", "role:remove",
+            "org:read", "org:add", "org:edit", "org:remove",
+            "train:practice", "train:video");
+
+    private JwtTokenUtil jwtTokenUtil;
+    private String legacyToken;
+    private String compactToken;
+
+    @Setup
+    public void setUp() {
+        PermissionDictionary permissionDictionary = new PermissionDictionary();
+        permissionDictionary.rebuild(PERMS);
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "permissionDictionary", permissionDictionary);
+        jwtTokenUtil.init();
+
+        JwtUserDetails user = new JwtUserDetails();
+        user.setUserId(1L);
+        user.setAccount("admin");
+        user.setOrgId("1001");
+        user.setIsSysAdmin(0);
+        user.setAuthorities(Collections.singletonList(new SimpleGrantedAuthority("ORG_ROLE_ADMIN")));
+        user.setPermissions(PERMS);
+        compactToken = jwtTokenUtil.generateToken(user);
+        legacyToken = legacyToken(user);
+    }
+
+    /**
+     * 原载荷：authorities + 逐条的 permissions 列表
+     */
+    private static String legacyToken(JwtUserDetails user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("userId", user.getUserId());
+        claims.put("account", user.getAccount());
+        claims.put("userName", user.getUsername());
+        claims.put("orgId", user.getOrgId());
+        claims.put("isSysAdmin", user.getIsSysAdmin());
+        claims.put("authorities", user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList()));
+        claims.put("permissions", user.getPermissions());
+        return Jwts.builder()
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString().replace("-", ""))
+                .setSubject(user.getUsername())
+                .setIssuedAt(new Date())
+                .signWith(SignatureAlgorithm.HS512, TextCodec.BASE64.decode(SECRET))
+                .compact();
+    }
+
+    @Benchmark
+    public VerifiedToken legacyPermissionList() {
+        return jwtTokenUtil.verify(legacyToken);
+    }
+
+    @Benchmark
+    public VerifiedToken compactPermissionBits() {
+        return jwtTokenUtil.verify(compactToken);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PermissionClaimBenchmark.class.getSimpleName()).build()).run();
+    }
+}
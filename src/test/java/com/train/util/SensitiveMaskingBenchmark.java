@@ -0,0 +1,59 @@
+package com.train.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 操作日志脱敏基准测试（JMH）：原序列化 + 解析成树 + 遍历过滤 + 再序列化 vs {@link SensitiveMaskingGenerator} 序列化时一次脱敏
+ * 数据为修改用户操作的新旧对比内容（与 SensitiveMaskingGeneratorTest 相同），分配量用 -prof gc 查看
+ * 运行方式同 {@link KaryotypeAnswerBenchmark}，类名换为 com.train.util.SensitiveMaskingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensitiveMaskingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> content;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        content = SensitiveMaskingGeneratorTest.editContent();
+    }
+
+    @Benchmark
+    public String legacyTreeFilter() throws IOException {
+        return LegacySensitiveFilter.filter(objectMapper, SensitiveMaskingGeneratorTest.SENSITIVE_PATTERN,
+                objectMapper.writeValueAsString(content));
+    }
+
+    @Benchmark
+    public String streamingMask() throws IOException {
+        return SensitiveMaskingGenerator.writeValueAsString(objectMapper, content,
+                SensitiveMaskingGeneratorTest.SENSITIVE_PATTERN);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SensitiveMaskingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.train.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SensitiveMaskingGeneratorTest {
+
+    /**
+     * 与操作日志切面一致的敏感字段模式
+     */
+    static final Pattern SENSITIVE_PATTERN = Pattern.compile(
+            "(password|pwd|secret|token|key|card|idcard|phone|mobile|email|tel)", Pattern.CASE_INSENSITIVE);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testMaskScalarAndNestedValues() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("userName", "张三");
+        data.put("password", "123456");
+        data.put("Phone", 13800000000L);
+        data.put("token", Collections.singletonMap("value", "abc"));
+        data.put("key", Arrays.asList("a", Collections.singletonMap("b", 1)));
+        data.put("tags", Arrays.asList("普通", "含token的值", 3));
+        data.put("passwordHint", "不整体匹配，不脱敏");
+
+        String json = SensitiveMaskingGenerator.writeValueAsString(objectMapper, data, SENSITIVE_PATTERN);
+
+        assertEquals("{\"userName\":\"张三\",\"password\":\"***\",\"Phone\":\"***\",\"token\":\"***\","
+                + "\"key\":\"***\",\"tags\":[\"普通\",\"***\",3],\"passwordHint\":\"不整体匹配，不脱敏\"}", json);
+    }
+
+    @Test
+    public void testSameOutputAsTreeFilter() throws Exception {
+        for (Object data : Arrays.asList(editContent(), simpleContent(), Collections.emptyMap())) {
+            String legacy = legacyFilter(objectMapper.writeValueAsString(data));
+            String streaming = SensitiveMaskingGenerator.writeValueAsString(objectMapper, data, SENSITIVE_PATTERN);
+            assertEquals(legacy, streaming);
+        }
+    }
+
+    static Map<String, Object> editContent() {
+        Map<String, Object> oldData = new LinkedHashMap<>();
+        oldData.put("userId", "U1001");
+        oldData.put("userName", "张三");
+        oldData.put("phone", "13800000000");
+        oldData.put("email", "zhangsan@example.com");
+        oldData.put("orgIds", Arrays.asList("1001", "1002"));
+        oldData.put("score", new BigDecimal("92.5"));
+        Map<String, Object> newData = new LinkedHashMap<>(oldData);
+        newData.put("userName", "张三丰");
+        newData.put("password", "$2a$10$abcdefghijklmnopqrstuv");
+        newData.put("remarks", Arrays.asList("修改了phone", "调整机构"));
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("原数据", oldData);
+        content.put("新数据", newData);
+        return content;
+    }
+
+    private static Map<String, Object> simpleContent() {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("roleId", "R01");
+        data.put("secret", Collections.singletonMap("nested", Arrays.asList(1, 2)));
+        data.put("enabled", true);
+        data.put("deleted", null);
+        return data;
+    }
+
+    private String legacyFilter(String json) throws Exception {
+        return LegacySensitiveFilter.filter(objectMapper, SENSITIVE_PATTERN, json);
+    }
+}